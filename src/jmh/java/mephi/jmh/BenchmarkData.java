@@ -0,0 +1,64 @@
+package mephi.jmh;
+
+import mephi.LearningPlatformApplication;
+import mephi.dataset.DatasetGenerator;
+import mephi.dto.DatasetReportDto;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The application on an embedded H2 database, seeded once per benchmark JVM by the
+ * {@link DatasetGenerator}, so benchmarks read the same shape of data as the scale tests.
+ * {@code -Djmh.scale=S} is the generator's scale factor; the default 0.01 is 5k users, 200
+ * courses, 2k lessons, 20k enrollments and 30k submissions.
+ */
+final class BenchmarkData {
+    static final long SEED = 42;
+    static final double DEFAULT_SCALE = 0.01;
+
+    private static ConfigurableApplicationContext context;
+    private static Ids ids;
+
+    private BenchmarkData() {
+    }
+
+    /** Ids the benchmarks query by: the course with the most students and the student with the most submissions. */
+    record Ids(long popularCourseId, long busyStudentId, long courses, long users) {
+    }
+
+    static synchronized ConfigurableApplicationContext context() {
+        if (context == null) {
+            SpringApplication application = new SpringApplication(LearningPlatformApplication.class);
+            application.setAdditionalProfiles("jmh");
+            context = application.run();
+            ids = seed(context, Double.parseDouble(System.getProperty("jmh.scale", String.valueOf(DEFAULT_SCALE))));
+        }
+        return context;
+    }
+
+    static synchronized Ids ids() {
+        context();
+        return ids;
+    }
+
+    static synchronized void close() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    private static Ids seed(ConfigurableApplicationContext context, double scale) {
+        DatasetReportDto report = context.getBean(DatasetGenerator.class)
+                .generate(SEED, scale, Runtime.getRuntime().availableProcessors());
+        System.out.printf("Seeded scale %s in %d ms: %s%n", scale, report.getMillis(), report.getRows());
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Long popularCourseId = jdbcTemplate.queryForObject("select course_id from enrollment " +
+                "group by course_id order by count(*) desc, course_id limit 1", Long.class);
+        Long busyStudentId = jdbcTemplate.queryForObject("select student_id from submissions " +
+                "group by student_id order by count(*) desc, student_id limit 1", Long.class);
+        return new Ids(popularCourseId, busyStudentId, report.getRows().get("courses"), report.getRows().get("users"));
+    }
+}
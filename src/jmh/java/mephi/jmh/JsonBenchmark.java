@@ -0,0 +1,70 @@
+package mephi.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mephi.Role;
+import mephi.dto.CourseDto;
+import mephi.dto.ProfileDto;
+import mephi.dto.SubmissionDto;
+import mephi.dto.UserDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of list responses as the controllers return them, with an object mapper
+ * configured the way Spring Boot configures the one behind {@code @RestController}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+    @Param({"50", "500"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<CourseDto> courses;
+    private List<UserDto> users;
+    private List<SubmissionDto> submissions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        courses = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        submissions = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (long i = 0; i < size; i++) {
+            courses.add(new CourseDto(i, "Course " + i, "Course description ".repeat(20), 30, 1L, 1L));
+            users.add(new UserDto(i, "User " + i, "user" + i + "@example.com", Role.STUDENT,
+                    new ProfileDto("Bio of user " + i, "https://example.com/avatars/" + i + ".png")));
+            submissions.add(new SubmissionDto(i, 1L, i, now, "solution line\n".repeat(30), (int) (i % 100), null));
+        }
+    }
+
+    @Benchmark
+    public byte[] courses() throws Exception {
+        return objectMapper.writeValueAsBytes(courses);
+    }
+
+    @Benchmark
+    public byte[] usersWithProfiles() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] submissions() throws Exception {
+        return objectMapper.writeValueAsBytes(submissions);
+    }
+}
@@ -0,0 +1,132 @@
+package mephi.jmh;
+
+import mephi.Role;
+import mephi.dto.CourseDto;
+import mephi.dto.SubmissionDto;
+import mephi.dto.UserDto;
+import mephi.entity.Assignment;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.Profile;
+import mephi.entity.Submission;
+import mephi.entity.User;
+import mephi.mapper.CourseMapper;
+import mephi.mapper.SubmissionMapper;
+import mephi.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct entity-to-DTO mapping of one list response worth of entities. The mappers come from
+ * a context that only scans {@code mephi.mapper}, so no database is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+    @Param({"50", "500"})
+    private int size;
+
+    private AnnotationConfigApplicationContext mappers;
+    private CourseMapper courseMapper;
+    private UserMapper userMapper;
+    private SubmissionMapper submissionMapper;
+    private List<Course> courses;
+    private List<User> users;
+    private List<Submission> submissions;
+    private List<CourseDto> courseDtos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mappers = new AnnotationConfigApplicationContext("mephi.mapper");
+        courseMapper = mappers.getBean(CourseMapper.class);
+        userMapper = mappers.getBean(UserMapper.class);
+        submissionMapper = mappers.getBean(SubmissionMapper.class);
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Programming");
+        User teacher = user(1);
+        Assignment assignment = new Assignment();
+        assignment.setId(1L);
+
+        courses = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        submissions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Course course = new Course();
+            course.setId((long) i);
+            course.setTitle("Course " + i);
+            course.setDescription("Course description ".repeat(20));
+            course.setDuration(30);
+            course.setCategory(category);
+            course.setTeacher(teacher);
+            courses.add(course);
+
+            users.add(user(i));
+
+            Submission submission = new Submission();
+            submission.setId((long) i);
+            submission.setAssignment(assignment);
+            submission.setStudent(teacher);
+            submission.setSubmittedAt(LocalDateTime.now());
+            submission.setContent("solution line\n".repeat(30));
+            submission.setScore(i % 100);
+            submissions.add(submission);
+        }
+        courseDtos = courses.stream().map(courseMapper::toDto).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mappers.close();
+    }
+
+    @Benchmark
+    public List<CourseDto> courseToDto() {
+        return courses.stream().map(courseMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public List<Course> courseToEntity() {
+        return courseDtos.stream().map(courseMapper::toEntity).toList();
+    }
+
+    @Benchmark
+    public List<UserDto> userWithProfileToDto() {
+        return users.stream().map(userMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public List<SubmissionDto> submissionToDto() {
+        return submissions.stream().map(submissionMapper::toDto).toList();
+    }
+
+    private static User user(int i) {
+        User user = new User();
+        user.setId((long) i);
+        user.setName("User " + i);
+        user.setEmail("user" + i + "@example.com");
+        user.setRole(Role.STUDENT);
+        Profile profile = new Profile();
+        profile.setBio("Bio of user " + i);
+        profile.setAvatar_url("https://example.com/avatars/" + i + ".png");
+        profile.setUser(user);
+        user.setProfile(profile);
+        return user;
+    }
+}
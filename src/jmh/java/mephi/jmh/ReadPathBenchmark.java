@@ -0,0 +1,123 @@
+package mephi.jmh;
+
+import mephi.dto.CourseDto;
+import mephi.dto.CursorPage;
+import mephi.dto.SubmissionDto;
+import mephi.dto.UserDto;
+import mephi.entity.Course;
+import mephi.mapper.CourseMapper;
+import mephi.mapper.SubmissionMapper;
+import mephi.mapper.UserMapper;
+import mephi.repository.EnrollmentRepository;
+import mephi.repository.KeysetQuery;
+import mephi.repository.SubmissionRepository;
+import mephi.request.CursorRequest;
+import mephi.service.CourseService;
+import mephi.service.EnrollmentService;
+import mephi.service.SubmissionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DTO projection reads next to the entity + MapStruct path they replaced, on the same seeded
+ * database (see {@link BenchmarkData}). Each {@code ...Entities} method loads the entities in a
+ * read-write transaction and maps them; {@code gc.alloc.rate.norm} shows the difference per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadPathBenchmark {
+    private static final CursorRequest PAGE = new CursorRequest(null, 50, "title", "asc");
+
+    private TransactionTemplate transaction;
+    private KeysetQuery keysetQuery;
+    private EnrollmentRepository enrollmentRepository;
+    private SubmissionRepository submissionRepository;
+    private CourseMapper courseMapper;
+    private UserMapper userMapper;
+    private SubmissionMapper submissionMapper;
+    private CourseService courseService;
+    private EnrollmentService enrollmentService;
+    private SubmissionService submissionService;
+    private BenchmarkData.Ids ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ConfigurableApplicationContext context = BenchmarkData.context();
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        keysetQuery = context.getBean(KeysetQuery.class);
+        enrollmentRepository = context.getBean(EnrollmentRepository.class);
+        submissionRepository = context.getBean(SubmissionRepository.class);
+        courseMapper = context.getBean(CourseMapper.class);
+        userMapper = context.getBean(UserMapper.class);
+        submissionMapper = context.getBean(SubmissionMapper.class);
+        courseService = context.getBean(CourseService.class);
+        enrollmentService = context.getBean(EnrollmentService.class);
+        submissionService = context.getBean(SubmissionService.class);
+        ids = BenchmarkData.ids();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.close();
+    }
+
+    @Benchmark
+    public CursorPage<CourseDto> coursePageEntities() {
+        return transaction.execute(status -> keysetQuery.fetch(Course.class, PAGE, Set.of("id", "title"), Map.of())
+                .map(courseMapper::toDto));
+    }
+
+    @Benchmark
+    public CursorPage<CourseDto> coursePageProjection() {
+        return courseService.getList(-1L, PAGE);
+    }
+
+    @Benchmark
+    public List<CourseDto> coursesOfStudentEntities() {
+        return transaction.execute(status -> enrollmentRepository.findCourseByUserId(ids.busyStudentId()).stream()
+                .map(courseMapper::toDto).toList());
+    }
+
+    @Benchmark
+    public List<CourseDto> coursesOfStudentProjection() {
+        return enrollmentService.getCoursesByUser(ids.busyStudentId());
+    }
+
+    @Benchmark
+    public List<UserDto> usersOfCourseEntities() {
+        return transaction.execute(status -> enrollmentRepository.findUserByCourseId(ids.popularCourseId()).stream()
+                .map(userMapper::toDto).toList());
+    }
+
+    @Benchmark
+    public List<UserDto> usersOfCourseProjection() {
+        return courseService.getAllUsersByCourse(ids.popularCourseId());
+    }
+
+    @Benchmark
+    public List<SubmissionDto> submissionsOfStudentEntities() {
+        return transaction.execute(status -> submissionRepository.findByStudentId(ids.busyStudentId()).stream()
+                .map(submissionMapper::toDto).toList());
+    }
+
+    @Benchmark
+    public List<SubmissionDto> submissionsOfStudentProjection() {
+        return submissionService.getByStudentId(ids.busyStudentId());
+    }
+}
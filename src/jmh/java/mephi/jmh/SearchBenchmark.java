@@ -0,0 +1,76 @@
+package mephi.jmh;
+
+import mephi.SearchDocumentType;
+import mephi.dto.SearchHitDto;
+import mephi.service.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory search index over a 100k-lesson catalog. Lesson bodies draw
+ * words from a skewed vocabulary, so frequent words have long posting lists; every invocation
+ * queries the next words of its kind, so results are not repeated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+    private static final int LESSONS = 100_000;
+    private static final int WORDS_PER_LESSON = 150;
+    private static final int VOCABULARY = 20_000;
+
+    private SearchIndex index;
+    private String[] words;
+    private int i;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        words = new String[VOCABULARY];
+        for (int w = 0; w < VOCABULARY; w++) {
+            words[w] = "w" + Integer.toString(w, 36);
+        }
+        index = new SearchIndex();
+        for (int lesson = 0; lesson < LESSONS; lesson++) {
+            StringBuilder body = new StringBuilder();
+            for (int j = 0; j < WORDS_PER_LESSON; j++) {
+                body.append(words[zipf(random)]).append(' ');
+            }
+            index.put(SearchIndex.analyze(SearchDocumentType.LESSON, lesson, lesson / 100, "Lesson " + lesson,
+                    body.toString()));
+        }
+    }
+
+    @Benchmark
+    public List<SearchHitDto> rareTerms() {
+        i++;
+        return index.search(words[1_000 + i % 10_000] + " " + words[5_000 + i % 10_000], null, 10);
+    }
+
+    @Benchmark
+    public List<SearchHitDto> frequentTerms() {
+        i++;
+        return index.search(words[i % 10] + " " + words[i % 50], null, 10);
+    }
+
+    @Benchmark
+    public List<SearchHitDto> mixed() {
+        i++;
+        return index.search(words[i % 10] + " " + words[2_000 + i % 10_000] + " lesson", null, 10);
+    }
+
+    /** Roughly Zipf-distributed word index: a few words are everywhere, most are rare. */
+    private static int zipf(Random random) {
+        return (int) Math.min(VOCABULARY - 1, Math.floor(Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1));
+    }
+}
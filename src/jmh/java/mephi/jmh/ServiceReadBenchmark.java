@@ -0,0 +1,94 @@
+package mephi.jmh;
+
+import mephi.dto.CourseDetailDto;
+import mephi.dto.CourseDto;
+import mephi.dto.CourseTreeDto;
+import mephi.dto.CursorPage;
+import mephi.dto.SubmissionDto;
+import mephi.dto.UserDto;
+import mephi.request.CursorRequest;
+import mephi.service.CourseDetailService;
+import mephi.service.CourseService;
+import mephi.service.EnrollmentService;
+import mephi.service.SubmissionService;
+import mephi.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service read paths against the seeded embedded database (see {@link BenchmarkData}),
+ * including the transaction, the queries and the DTO mapping, but not HTTP or JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceReadBenchmark {
+    private CourseService courseService;
+    private UserService userService;
+    private EnrollmentService enrollmentService;
+    private SubmissionService submissionService;
+    private CourseDetailService courseDetailService;
+    private BenchmarkData.Ids ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ConfigurableApplicationContext context = BenchmarkData.context();
+        courseService = context.getBean(CourseService.class);
+        userService = context.getBean(UserService.class);
+        enrollmentService = context.getBean(EnrollmentService.class);
+        submissionService = context.getBean(SubmissionService.class);
+        courseDetailService = context.getBean(CourseDetailService.class);
+        ids = BenchmarkData.ids();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.close();
+    }
+
+    @Benchmark
+    public CursorPage<CourseDto> courseListPage() {
+        return courseService.getList(-1L, new CursorRequest(null, 50, "title", "asc"));
+    }
+
+    @Benchmark
+    public CursorPage<UserDto> userListPage() {
+        return userService.getAllUsers(new CursorRequest(null, 50, "id", "asc"));
+    }
+
+    @Benchmark
+    public List<UserDto> usersOfPopularCourse() {
+        return courseService.getAllUsersByCourse(ids.popularCourseId());
+    }
+
+    @Benchmark
+    public List<CourseDto> coursesOfStudent() {
+        return enrollmentService.getCoursesByUser(ids.busyStudentId());
+    }
+
+    @Benchmark
+    public List<SubmissionDto> submissionsOfStudent() {
+        return submissionService.getByStudentId(ids.busyStudentId());
+    }
+
+    @Benchmark
+    public CourseTreeDto courseTree() {
+        return courseService.getTree(ids.popularCourseId());
+    }
+
+    @Benchmark
+    public CourseDetailDto courseDetail() {
+        return courseDetailService.getDetail(ids.popularCourseId());
+    }
+}
@@ -0,0 +1,8 @@
+package mephi;
+
+public enum GradeStatus {
+    GRADED,
+    NOT_FOUND,
+    INVALID,
+    CONFLICT,
+}
@@ -2,8 +2,10 @@ package mephi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class LearningPlatformApplication {
     public static void main(String[] args) {
         SpringApplication.run(LearningPlatformApplication.class, args);
@@ -0,0 +1,15 @@
+package mephi;
+
+public enum SearchDocumentType {
+    COURSE,
+    LESSON;
+
+    public static SearchDocumentType fromString(String value) {
+        for (SearchDocumentType type : values()) {
+            if (type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported search document type: " + value);
+    }
+}
@@ -0,0 +1,135 @@
+package mephi.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * Lets at most {@code permits} callers hold a connection at a time and queues the rest
+ * first-come, first-served on a fair semaphore. With one permit per pooled connection the pool
+ * itself never makes anyone wait, so thousands of virtual threads park here in arrival order
+ * instead of racing for the pool and failing after its connection timeout. A permit is returned
+ * when the connection is closed. Every admission reports how long it waited to the
+ * {@linkplain #setWaitListener wait listener}.
+ */
+public class AdmissionControlDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final int capacity;
+    private final long queueTimeoutNanos;
+    private volatile LongConsumer waitListener = nanos -> {
+    };
+
+    public AdmissionControlDataSource(DataSource target, int permits, Duration queueTimeout) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.capacity = permits;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        admit();
+        return admitted(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        admit();
+        return admitted(() -> super.getConnection(username, password));
+    }
+
+    /** Callers currently waiting for a connection. */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    public int getInUse() {
+        return capacity - permits.availablePermits();
+    }
+
+    /** Receives the nanoseconds each caller waited for its permit, including failed waits. */
+    public void setWaitListener(LongConsumer waitListener) {
+        this.waitListener = waitListener;
+    }
+
+    private void admit() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLTransientConnectionException("No connection became available within "
+                        + Duration.ofNanos(queueTimeoutNanos) + " (" + permits.getQueueLength() + " waiting)");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection", ex);
+        } finally {
+            waitListener.accept(System.nanoTime() - start);
+        }
+    }
+
+    private Connection admitted(ConnectionSource source) throws SQLException {
+        Connection connection;
+        try {
+            connection = source.get();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ReleaseOnClose(connection));
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private class ReleaseOnClose implements InvocationHandler {
+        private final Connection target;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnClose(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("close")) {
+                try {
+                    target.close();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                }
+                return null;
+            }
+            if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(target)) {
+                return target;
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package mephi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts the application's connection pool behind {@link AdmissionControlDataSource} when
+ * {@code datasource.admission.enabled} is set (by default it follows
+ * {@code spring.threads.virtual.enabled}). The number of permits is the pool size unless
+ * {@code datasource.admission.permits} says otherwise.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.admission.enabled", havingValue = "true")
+public class ConnectionAdmissionConfig {
+
+    @Bean
+    static BeanPostProcessor connectionAdmission(Environment environment) {
+        int configuredPermits = environment.getProperty("datasource.admission.permits", Integer.class, 0);
+        Duration queueTimeout = environment.getProperty("datasource.admission.queue-timeout", Duration.class,
+                Duration.ofMinutes(1));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof AdmissionControlDataSource) {
+                    return bean;
+                }
+                int permits = configuredPermits > 0 || !(bean instanceof HikariDataSource hikari)
+                        ? configuredPermits
+                        : hikari.getMaximumPoolSize();
+                if (permits <= 0) {
+                    throw new IllegalArgumentException("datasource.admission.permits must be set for " + beanName);
+                }
+                return new AdmissionControlDataSource(dataSource, permits, queueTimeout);
+            }
+        };
+    }
+}
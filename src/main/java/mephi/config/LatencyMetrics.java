@@ -0,0 +1,142 @@
+package mephi.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms per controller mapping and per Spring Data repository method, plus the number
+ * of SQL statements each request issued. Meters are created once per handler or repository method
+ * and cached by {@link Method}, so recording is a map lookup and a histogram increment without
+ * building tags. The per-request state is a small sample carried as a request attribute, which the
+ * statement inspector reaches through {@link RequestContextHolder}.
+ *
+ * <p>Recording can be switched off and on at runtime ({@link #setEnabled}, exposed as the
+ * {@code latency} actuator endpoint); already registered meters keep their values.
+ */
+@Component
+public class LatencyMetrics {
+    public static final String REQUESTS = "app.http.requests";
+    public static final String STATEMENTS = "app.http.sql.statements";
+    public static final String REPOSITORY = "app.repository.invocations";
+
+    private static final String SAMPLE_ATTRIBUTE = LatencyMetrics.class.getName() + ".sample";
+
+    private final MeterRegistry registry;
+    private final Map<Method, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+    // keyed by repository first: inherited methods such as findById are one Method for all repositories
+    private final Map<Class<?>, Map<Method, Timer>> repositoryMethods = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    public LatencyMetrics(MeterRegistry registry, @Value("${metrics.latency.enabled:true}") boolean enabled) {
+        this.registry = registry;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void requestStarted(HttpServletRequest request) {
+        if (!enabled || request.getAttribute(SAMPLE_ATTRIBUTE) != null) {
+            // an async dispatch keeps the sample of the request that started it
+            return;
+        }
+        request.setAttribute(SAMPLE_ATTRIBUTE, new Sample(System.nanoTime()));
+    }
+
+    void requestCompleted(HttpServletRequest request, Method handler) {
+        if (!(request.getAttribute(SAMPLE_ATTRIBUTE) instanceof Sample sample)) {
+            return;
+        }
+        request.removeAttribute(SAMPLE_ATTRIBUTE);
+        EndpointMeters meters = endpoints.get(handler);
+        if (meters == null) {
+            meters = endpoints.computeIfAbsent(handler, method -> endpointMeters(request, method));
+        }
+        meters.latency().record(System.nanoTime() - sample.startNanos, TimeUnit.NANOSECONDS);
+        meters.statements().record(sample.statements);
+    }
+
+    void statementPrepared() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(SAMPLE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Sample sample) {
+            sample.statements++;
+        }
+    }
+
+    void repositoryInvoked(Class<?> repository, Method method, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        Map<Method, Timer> timers = repositoryMethods.get(repository);
+        if (timers == null) {
+            timers = repositoryMethods.computeIfAbsent(repository, r -> new ConcurrentHashMap<>());
+        }
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, m -> Timer.builder(REPOSITORY)
+                    .description("Spring Data repository method latency")
+                    .tag("repository", repository.getSimpleName())
+                    .tag("method", m.getName())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private EndpointMeters endpointMeters(HttpServletRequest request, Method handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : request.getRequestURI();
+        String handlerName = handler.getDeclaringClass().getSimpleName() + "." + handler.getName();
+        Timer latency = Timer.builder(REQUESTS)
+                .description("Controller mapping latency")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .tag("handler", handlerName)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+        DistributionSummary statements = DistributionSummary.builder(STATEMENTS)
+                .description("SQL statements issued by one request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .tag("handler", handlerName)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100, 500)
+                .register(registry);
+        return new EndpointMeters(latency, statements);
+    }
+
+    private record EndpointMeters(Timer latency, DistributionSummary statements) {
+    }
+
+    /** Mutable state of the request being served. */
+    private static final class Sample {
+        private final long startNanos;
+        private int statements;
+
+        private Sample(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
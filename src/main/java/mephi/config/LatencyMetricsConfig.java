@@ -0,0 +1,120 @@
+package mephi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds {@link LatencyMetrics}: a handler interceptor times controller mappings, a Hibernate
+ * statement inspector counts the SQL statements of the current request and a repository
+ * invocation listener times Spring Data repository methods. Connection pool waits are covered by
+ * the HikariCP metrics of the actuator; when admission control is on, callers wait for a permit
+ * before they reach the pool, so that wait gets its own timer next to the queue gauges.
+ */
+@Configuration
+public class LatencyMetricsConfig implements WebMvcConfigurer {
+    private final LatencyMetrics metrics;
+
+    public LatencyMetricsConfig(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod) {
+                    metrics.requestStarted(request);
+                }
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                if (handler instanceof HandlerMethod handlerMethod) {
+                    metrics.requestCompleted(request, handlerMethod.getMethod());
+                }
+            }
+        });
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer statementCounting() {
+        StatementInspector inspector = sql -> {
+            metrics.statementPrepared();
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Bean
+    static BeanPostProcessor repositoryTiming(ObjectProvider<LatencyMetrics> latencyMetrics) {
+        // resolved on first use: post-processors are created before the meter registry exists
+        RepositoryMethodInvocationListener listener = new RepositoryMethodInvocationListener() {
+            private volatile LatencyMetrics metrics;
+
+            @Override
+            public void afterInvocation(RepositoryMethodInvocation invocation) {
+                LatencyMetrics current = metrics;
+                if (current == null) {
+                    current = latencyMetrics.getObject();
+                    metrics = current;
+                }
+                current.repositoryInvoked(invocation.getRepositoryInterface(), invocation.getMethod(),
+                        invocation.getDuration(TimeUnit.NANOSECONDS));
+            }
+        };
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(listener));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder admissionControlMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof AdmissionControlDataSource admission) {
+                Gauge.builder("db.admission.queue", admission, AdmissionControlDataSource::getQueueLength)
+                        .description("Threads waiting for a connection permit")
+                        .register(registry);
+                Gauge.builder("db.admission.in-use", admission, AdmissionControlDataSource::getInUse)
+                        .description("Connection permits in use")
+                        .register(registry);
+                Timer wait = Timer.builder("db.admission.wait")
+                        .description("Time spent waiting for a connection permit")
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofMinutes(1))
+                        .register(registry);
+                admission.setWaitListener(nanos -> wait.record(nanos, TimeUnit.NANOSECONDS));
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package mephi.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/latency} shows whether {@link LatencyMetrics} records,
+ * {@code POST /actuator/latency} with {@code {"enabled": false}} switches it off at runtime.
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyMetricsEndpoint {
+    private final LatencyMetrics latencyMetrics;
+
+    public LatencyMetricsEndpoint(LatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @ReadOperation
+    public Map<String, Boolean> state() {
+        return Map.of("enabled", latencyMetrics.isEnabled());
+    }
+
+    @WriteOperation
+    public Map<String, Boolean> setEnabled(boolean enabled) {
+        latencyMetrics.setEnabled(enabled);
+        return state();
+    }
+}
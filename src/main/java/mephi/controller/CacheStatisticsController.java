@@ -0,0 +1,25 @@
+package mephi.controller;
+
+import lombok.AllArgsConstructor;
+import mephi.dto.CacheRegionStatsDto;
+import mephi.service.CacheStatisticsService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/cache")
+@AllArgsConstructor
+public class CacheStatisticsController {
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @GetMapping("/statistics")
+    public List<CacheRegionStatsDto> getStatistics() {
+        return cacheStatisticsService.getRegionStatistics();
+    }
+
+    @DeleteMapping("/statistics")
+    public void clearStatistics() {
+        cacheStatisticsService.clear();
+    }
+}
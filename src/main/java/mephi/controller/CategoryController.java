@@ -2,8 +2,13 @@ package mephi.controller;
 
 import lombok.AllArgsConstructor;
 import mephi.dto.CategoryDto;
+import mephi.service.CatalogVersions;
+import mephi.service.CatalogVersions.Catalog;
 import mephi.service.CategoryService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -11,15 +16,20 @@ import java.util.List;
 @AllArgsConstructor
 public class CategoryController {
     private CategoryService categoryService;
+    private CatalogVersions catalogVersions;
 
     @GetMapping("/categories/all")
-    public List<CategoryDto> getAllCategories() {
-        return categoryService.getList();
+    public ResponseEntity<List<CategoryDto>> getAllCategories(WebRequest request) {
+        String etag = catalogVersions.etag(Catalog.CATEGORIES);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(categoryService.getList());
     }
 
     @GetMapping("/categories/{id}")
-    public CategoryDto getCategoryById(@PathVariable Long id) {
-        return categoryService.getById(id);
+    public ResponseEntity<CategoryDto> getCategoryById(@PathVariable Long id) {
+        return EntityTags.of(categoryService.getById(id));
     }
 
     @PostMapping("/categories/create")
@@ -28,8 +38,9 @@ public class CategoryController {
     }
 
     @PutMapping("/categories/{id}")
-    public CategoryDto updateCategory(@PathVariable Long id, @RequestBody CategoryDto categoryDto) {
-        return categoryService.updateCategory(id, categoryDto);
+    public ResponseEntity<CategoryDto> updateCategory(@PathVariable Long id, @RequestBody CategoryDto categoryDto,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(categoryService.updateCategory(id, categoryDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/categories/{id}")
@@ -1,30 +1,86 @@
 package mephi.controller;
 
 import lombok.AllArgsConstructor;
+import mephi.ExportFormat;
+import mephi.dto.CourseCatalogPageDto;
+import mephi.dto.CourseDetailDto;
 import mephi.dto.CourseDto;
+import mephi.dto.CourseProgressDto;
+import mephi.dto.CourseRecommendationDto;
+import mephi.dto.CourseRatingDto;
 import mephi.dto.CourseReviewDto;
+import mephi.dto.CourseTreeDto;
+import mephi.dto.ImportReportDto;
+import mephi.dto.LessonProgressDto;
+import mephi.dto.RatingRepairReportDto;
 import mephi.dto.UserDto;
 import mephi.entity.CourseReview;
+import mephi.service.CourseDetailService;
+import mephi.service.CourseRatingRepairJob;
+import mephi.service.CourseRatingService;
 import mephi.service.CourseReviewService;
+import mephi.request.CursorRequest;
+import mephi.service.CatalogVersions;
+import mephi.service.CatalogVersions.Catalog;
 import mephi.service.CourseService;
+import mephi.service.ImportService;
+import mephi.service.LessonProgressService;
+import mephi.service.RecommendationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @AllArgsConstructor
 public class CourseController {
     private final CourseService courseService;
+    private final CourseDetailService courseDetailService;
     private final CourseReviewService courseReviewService;
+    private final CourseRatingService courseRatingService;
+    private final CourseRatingRepairJob courseRatingRepairJob;
+    private final ImportService importService;
+    private final CatalogVersions catalogVersions;
+    private final LessonProgressService lessonProgressService;
+    private final RecommendationService recommendationService;
 
     @GetMapping("/courses/all")
-    public List<CourseDto> getAllCourses() {
-        return courseService.getList(-1L);
+    public ResponseEntity<List<CourseDto>> getAllCourses(CursorRequest page, WebRequest request) {
+        String etag = catalogVersions.etag(Catalog.COURSES);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return CursorResponses.of(courseService.getList(-1L, page), etag);
     }
 
     @GetMapping("/courses/list_by_category")
-    public List<CourseDto> getAllByCategory(@RequestParam("category_id") Long id) {
-        return courseService.getList(id);
+    public ResponseEntity<List<CourseDto>> getAllByCategory(@RequestParam("category_id") Long id, CursorRequest page) {
+        return CursorResponses.of(courseService.getList(id, page));
+    }
+
+    @GetMapping("/courses/catalog")
+    public CourseCatalogPageDto getCatalog(@RequestParam(value = "tags", required = false) Set<Long> tags,
+                                           @RequestParam(value = "match", defaultValue = "all") String match,
+                                           @RequestParam(value = "categoryId", required = false) Long categoryId,
+                                           @RequestParam(value = "teacherId", required = false) Long teacherId,
+                                           @RequestParam(value = "afterId", required = false) Long afterId,
+                                           @RequestParam(value = "size", required = false) Integer size) {
+        return courseService.getCatalog(tags, match, categoryId, teacherId, afterId, size);
+    }
+
+    @GetMapping("/courses/{id}/detail")
+    public CourseDetailDto getCourseDetail(@PathVariable Long id) {
+        return courseDetailService.getDetail(id);
+    }
+
+    @GetMapping("/courses/{id}/tree")
+    public CourseTreeDto getCourseTree(@PathVariable Long id) {
+        return courseService.getTree(id);
     }
 
     @GetMapping("/courses/users-for-course")
@@ -42,18 +98,69 @@ public class CourseController {
         return courseReviewService.createReview(crDto);
     }
 
+    @PutMapping("/courses/reviews/{id}")
+    public ResponseEntity<CourseReviewDto> updateReview(@PathVariable Long id, @RequestBody CourseReviewDto crDto,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(courseReviewService.updateReview(id, crDto, EntityTags.expectedVersion(ifMatch)));
+    }
+
+    @DeleteMapping("/courses/reviews/{id}")
+    public void deleteReview(@PathVariable Long id) {
+        courseReviewService.deleteReview(id);
+    }
+
+    @GetMapping("/courses/{id}/rating")
+    public CourseRatingDto getRating(@PathVariable Long id) {
+        return courseRatingService.getRating(id);
+    }
+
+    @GetMapping("/courses/{id}/progress")
+    public CourseProgressDto getCourseProgress(@PathVariable Long id) {
+        return lessonProgressService.getCourseProgress(id);
+    }
+
+    @GetMapping("/courses/{id}/progress/users/{userId}")
+    public LessonProgressDto getUserProgress(@PathVariable Long id, @PathVariable Long userId) {
+        return lessonProgressService.getProgress(id, userId);
+    }
+
+    @GetMapping("/courses/{id}/also-enrolled")
+    public List<CourseRecommendationDto> getAlsoEnrolled(@PathVariable Long id,
+                                                         @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return recommendationService.getAlsoEnrolled(id, limit);
+    }
+
+    @GetMapping("/courses/ratings")
+    public ResponseEntity<List<CourseRatingDto>> getRatings(CursorRequest page) {
+        return CursorResponses.of(courseRatingService.getCatalog(page));
+    }
+
+    @PostMapping("/courses/ratings/repair")
+    public RatingRepairReportDto repairRatings() {
+        return courseRatingRepairJob.run();
+    }
+
     @PostMapping("/courses/create")
     public CourseDto createCourse(@RequestBody CourseDto courseDto) {
         return courseService.createCourse(courseDto);
     }
 
+    @PostMapping("/courses/import")
+    public ImportReportDto importCourses(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                         @RequestParam(value = "skipChunks", defaultValue = "0") int skipChunks,
+                                         InputStream body) throws IOException {
+        return importService.importRows(body, ExportFormat.fromString(format), CourseDto.class, skipChunks,
+                courseService::importChunk);
+    }
+
     @DeleteMapping("/courses/{id}")
     public void deleteCourse(@PathVariable Long id) {
         courseService.deleteCourse(id);
     }
 
     @PutMapping("/courses/{id}")
-    public CourseDto updateCourse(@PathVariable Long id, @RequestBody CourseDto courseDto) {
-        return courseService.updateCourse(id, courseDto);
+    public ResponseEntity<CourseDto> updateCourse(@PathVariable Long id, @RequestBody CourseDto courseDto,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(courseService.updateCourse(id, courseDto, EntityTags.expectedVersion(ifMatch)));
     }
 }
@@ -0,0 +1,28 @@
+package mephi.controller;
+
+import mephi.dto.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+final class CursorResponses {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> of(CursorPage<T> page) {
+        return of(page, null);
+    }
+
+    static <T> ResponseEntity<List<T>> of(CursorPage<T> page, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+}
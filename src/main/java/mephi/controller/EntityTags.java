@@ -0,0 +1,39 @@
+package mephi.controller;
+
+import mephi.dto.Versioned;
+import mephi.exception.PreconditionFailedException;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Entity ETags: the quoted {@code @Version} of the entity, e.g. {@code "3"}. PUT endpoints take
+ * one of them in {@code If-Match}; {@code *} or no header skips the check.
+ */
+final class EntityTags {
+    private EntityTags() {
+    }
+
+    /** The version an {@code If-Match} header asks for, or {@code null} if it asks for none. */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // If-Match compares strongly: weak tags, lists and catalog ETags never match an entity version
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not name an entity version: " + ifMatch);
+    }
+
+    static <T> ResponseEntity<T> of(Versioned<T> versioned) {
+        return ResponseEntity.ok().eTag(tag(versioned.version())).body(versioned.body());
+    }
+
+    static String tag(long version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -1,13 +1,25 @@
 package mephi.controller;
 
 import lombok.AllArgsConstructor;
+import mephi.ExportFormat;
 import mephi.dto.AssignmentDto;
+import mephi.dto.GradeDto;
+import mephi.dto.GradeResultDto;
 import mephi.dto.LessonDto;
+import mephi.dto.LessonProgressDto;
 import mephi.dto.SubmissionDto;
+import mephi.dto.SubmissionIntakeStatsDto;
+import mephi.dto.SubmissionReceiptDto;
+import mephi.request.CursorRequest;
 import mephi.service.AssignmentService;
+import mephi.service.LessonProgressService;
 import mephi.service.LessonService;
+import mephi.service.SubmissionIntakeService;
 import mephi.service.SubmissionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,16 +30,18 @@ public class LessonController {
     private final LessonService lessonService;
     private final AssignmentService assignmentService;
     private final SubmissionService submissionService;
+    private final SubmissionIntakeService submissionIntakeService;
+    private final LessonProgressService lessonProgressService;
 
     // Lesson endpoints
     @GetMapping
-    public List<LessonDto> getAllLessons() {
-        return lessonService.getAll();
+    public ResponseEntity<List<LessonDto>> getAllLessons(CursorRequest page) {
+        return CursorResponses.of(lessonService.getAll(page));
     }
 
     @GetMapping("/{id}")
-    public LessonDto getLessonById(@PathVariable Long id) {
-        return lessonService.getById(id);
+    public ResponseEntity<LessonDto> getLessonById(@PathVariable Long id) {
+        return EntityTags.of(lessonService.getById(id));
     }
 
     @GetMapping("/module/{moduleId}")
@@ -41,8 +55,9 @@ public class LessonController {
     }
 
     @PutMapping("/{id}")
-    public LessonDto updateLesson(@PathVariable Long id, @RequestBody LessonDto lessonDto) {
-        return lessonService.update(id, lessonDto);
+    public ResponseEntity<LessonDto> updateLesson(@PathVariable Long id, @RequestBody LessonDto lessonDto,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(lessonService.update(id, lessonDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
@@ -50,6 +65,11 @@ public class LessonController {
         lessonService.delete(id);
     }
 
+    @PostMapping("/{id}/progress")
+    public ResponseEntity<LessonProgressDto> recordProgress(@PathVariable Long id, @RequestParam Long userId) {
+        return ResponseEntity.accepted().body(lessonProgressService.visit(id, userId));
+    }
+
     // Assignment endpoints
     @GetMapping("/{lessonId}/assignments")
     public List<AssignmentDto> getAssignmentsByLesson(@PathVariable Long lessonId) {
@@ -57,8 +77,8 @@ public class LessonController {
     }
 
     @GetMapping("/assignments/{id}")
-    public AssignmentDto getAssignmentById(@PathVariable Long id) {
-        return assignmentService.getById(id);
+    public ResponseEntity<AssignmentDto> getAssignmentById(@PathVariable Long id) {
+        return EntityTags.of(assignmentService.getById(id));
     }
 
     @PostMapping("/assignments")
@@ -67,8 +87,9 @@ public class LessonController {
     }
 
     @PutMapping("/assignments/{id}")
-    public AssignmentDto updateAssignment(@PathVariable Long id, @RequestBody AssignmentDto assignmentDto) {
-        return assignmentService.update(id, assignmentDto);
+    public ResponseEntity<AssignmentDto> updateAssignment(@PathVariable Long id, @RequestBody AssignmentDto assignmentDto,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(assignmentService.update(id, assignmentDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/assignments/{id}")
@@ -82,9 +103,20 @@ public class LessonController {
         return submissionService.getByAssignmentId(assignmentId);
     }
 
+    @GetMapping("/submissions")
+    public ResponseEntity<List<SubmissionDto>> getAllSubmissions(CursorRequest page) {
+        return CursorResponses.of(submissionService.getAll(page));
+    }
+
+    @GetMapping("/submissions/export")
+    public ResponseEntity<StreamingResponseBody> exportSubmissions(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromString(format);
+        return ExportResponses.of("submissions", exportFormat, out -> submissionService.export(exportFormat, out));
+    }
+
     @GetMapping("/submissions/{id}")
-    public SubmissionDto getSubmissionById(@PathVariable Long id) {
-        return submissionService.getById(id);
+    public ResponseEntity<SubmissionDto> getSubmissionById(@PathVariable Long id) {
+        return EntityTags.of(submissionService.getById(id));
     }
 
     @PostMapping("/submissions")
@@ -92,14 +124,31 @@ public class LessonController {
         return submissionService.create(submissionDto);
     }
 
+    @PostMapping("/submissions/intake")
+    public ResponseEntity<SubmissionReceiptDto> acceptSubmission(@RequestBody SubmissionDto submissionDto) {
+        return ResponseEntity.accepted().body(submissionIntakeService.accept(submissionDto));
+    }
+
+    @GetMapping("/submissions/intake/stats")
+    public SubmissionIntakeStatsDto getIntakeStats() {
+        return submissionIntakeService.getStats();
+    }
+
     @PutMapping("/submissions/{id}")
-    public SubmissionDto updateSubmission(@PathVariable Long id, @RequestBody SubmissionDto submissionDto) {
-        return submissionService.update(id, submissionDto);
+    public ResponseEntity<SubmissionDto> updateSubmission(@PathVariable Long id, @RequestBody SubmissionDto submissionDto,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(submissionService.update(id, submissionDto, EntityTags.expectedVersion(ifMatch)));
+    }
+
+    @PutMapping("/submissions/grades")
+    public List<GradeResultDto> gradeSubmissions(@RequestBody List<GradeDto> grades) {
+        return submissionService.gradeAll(grades);
     }
 
     @PutMapping("/submissions/{id}/grade")
-    public SubmissionDto gradeSubmission(@PathVariable Long id, @RequestParam Integer score, @RequestParam(required = false) String feedback) {
-        return submissionService.grade(id, score, feedback);
+    public ResponseEntity<SubmissionDto> gradeSubmission(@PathVariable Long id, @RequestParam Integer score, @RequestParam(required = false) String feedback,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(submissionService.grade(id, score, feedback, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/submissions/{id}")
@@ -3,6 +3,8 @@ package mephi.controller;
 import lombok.AllArgsConstructor;
 import mephi.dto.ModuleDto;
 import mephi.service.ModuleService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,8 +20,8 @@ public class ModuleController {
     }
 
     @GetMapping("/modules/{id}")
-    public ModuleDto getModuleById(@PathVariable Long id) {
-        return moduleService.getById(id);
+    public ResponseEntity<ModuleDto> getModuleById(@PathVariable Long id) {
+        return EntityTags.of(moduleService.getById(id));
     }
 
     @PostMapping("/modules/create")
@@ -28,8 +30,9 @@ public class ModuleController {
     }
 
     @PutMapping("/modules/{id}")
-    public ModuleDto updateModule(@PathVariable Long id, @RequestBody ModuleDto moduleDto) {
-        return moduleService.updateModule(id, moduleDto);
+    public ResponseEntity<ModuleDto> updateModule(@PathVariable Long id, @RequestBody ModuleDto moduleDto,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(moduleService.updateModule(id, moduleDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/modules/{id}")
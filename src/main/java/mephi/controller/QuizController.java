@@ -1,15 +1,26 @@
 package mephi.controller;
 
 import lombok.AllArgsConstructor;
+import mephi.ExportFormat;
 import mephi.dto.AnswerOptionDto;
+import mephi.dto.LeaderboardDto;
 import mephi.dto.QuestionDto;
+import mephi.dto.QuizAttemptDto;
 import mephi.dto.QuizDto;
 import mephi.dto.QuizSubmissionDto;
+import mephi.dto.StudentRankDto;
+import mephi.request.CursorRequest;
 import mephi.service.AnswerOptionService;
 import mephi.service.QuestionService;
+import mephi.service.QuizLeaderboard;
 import mephi.service.QuizService;
 import mephi.service.QuizSubmissionService;
+import mephi.service.QuizVersions;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,16 +32,23 @@ public class QuizController {
     private final QuestionService questionService;
     private final AnswerOptionService answerOptionService;
     private final QuizSubmissionService quizSubmissionService;
+    private final QuizLeaderboard quizLeaderboard;
+    private final QuizVersions quizVersions;
 
     // Quiz endpoints
     @GetMapping
-    public List<QuizDto> getAllQuizzes() {
-        return quizService.getAll();
+    public ResponseEntity<List<QuizDto>> getAllQuizzes(CursorRequest page) {
+        return CursorResponses.of(quizService.getAll(page));
     }
 
+    /** A matching If-None-Match is checked against the version kept in memory, before the quiz is read. */
     @GetMapping("/{id}")
-    public QuizDto getQuizById(@PathVariable Long id) {
-        return quizService.getById(id);
+    public ResponseEntity<QuizDto> getQuizById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(EntityTags.tag(quizVersions.version(id)))) {
+            return null;
+        }
+        return EntityTags.of(quizService.getById(id));
     }
 
     @GetMapping("/module/{moduleId}")
@@ -44,8 +62,9 @@ public class QuizController {
     }
 
     @PutMapping("/{id}")
-    public QuizDto updateQuiz(@PathVariable Long id, @RequestBody QuizDto quizDto) {
-        return quizService.update(id, quizDto);
+    public ResponseEntity<QuizDto> updateQuiz(@PathVariable Long id, @RequestBody QuizDto quizDto,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(quizService.update(id, quizDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
@@ -60,8 +79,8 @@ public class QuizController {
     }
 
     @GetMapping("/questions/{id}")
-    public QuestionDto getQuestionById(@PathVariable Long id) {
-        return questionService.getById(id);
+    public ResponseEntity<QuestionDto> getQuestionById(@PathVariable Long id) {
+        return EntityTags.of(questionService.getById(id));
     }
 
     @PostMapping("/questions")
@@ -70,8 +89,9 @@ public class QuizController {
     }
 
     @PutMapping("/questions/{id}")
-    public QuestionDto updateQuestion(@PathVariable Long id, @RequestBody QuestionDto questionDto) {
-        return questionService.update(id, questionDto);
+    public ResponseEntity<QuestionDto> updateQuestion(@PathVariable Long id, @RequestBody QuestionDto questionDto,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(questionService.update(id, questionDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/questions/{id}")
@@ -86,8 +106,8 @@ public class QuizController {
     }
 
     @GetMapping("/options/{id}")
-    public AnswerOptionDto getOptionById(@PathVariable Long id) {
-        return answerOptionService.getById(id);
+    public ResponseEntity<AnswerOptionDto> getOptionById(@PathVariable Long id) {
+        return EntityTags.of(answerOptionService.getById(id));
     }
 
     @PostMapping("/options")
@@ -96,8 +116,9 @@ public class QuizController {
     }
 
     @PutMapping("/options/{id}")
-    public AnswerOptionDto updateOption(@PathVariable Long id, @RequestBody AnswerOptionDto answerOptionDto) {
-        return answerOptionService.update(id, answerOptionDto);
+    public ResponseEntity<AnswerOptionDto> updateOption(@PathVariable Long id, @RequestBody AnswerOptionDto answerOptionDto,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(answerOptionService.update(id, answerOptionDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/options/{id}")
@@ -111,9 +132,20 @@ public class QuizController {
         return quizSubmissionService.getByQuizId(quizId);
     }
 
+    @GetMapping("/submissions")
+    public ResponseEntity<List<QuizSubmissionDto>> getAllSubmissions(CursorRequest page) {
+        return CursorResponses.of(quizSubmissionService.getAll(page));
+    }
+
+    @GetMapping("/submissions/export")
+    public ResponseEntity<StreamingResponseBody> exportSubmissions(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromString(format);
+        return ExportResponses.of("quiz-submissions", exportFormat, out -> quizSubmissionService.export(exportFormat, out));
+    }
+
     @GetMapping("/submissions/{id}")
-    public QuizSubmissionDto getSubmissionById(@PathVariable Long id) {
-        return quizSubmissionService.getById(id);
+    public ResponseEntity<QuizSubmissionDto> getSubmissionById(@PathVariable Long id) {
+        return EntityTags.of(quizSubmissionService.getById(id));
     }
 
     @GetMapping("/submissions/student/{studentId}")
@@ -121,14 +153,37 @@ public class QuizController {
         return quizSubmissionService.getByStudentId(studentId);
     }
 
+    @PostMapping("/{quizId}/attempts")
+    public QuizSubmissionDto submitAttempt(@PathVariable Long quizId, @RequestBody QuizAttemptDto attempt) {
+        return quizSubmissionService.submitAttempt(quizId, attempt);
+    }
+
+    // Leaderboard endpoints
+    @GetMapping("/{quizId}/leaderboard")
+    public LeaderboardDto getLeaderboard(@PathVariable Long quizId, @RequestParam(defaultValue = "10") int limit) {
+        return quizLeaderboard.top(quizId, limit);
+    }
+
+    @GetMapping("/{quizId}/leaderboard/students/{studentId}")
+    public StudentRankDto getStudentRank(@PathVariable Long quizId, @PathVariable Long studentId) {
+        return quizLeaderboard.rank(quizId, studentId);
+    }
+
+    @GetMapping("/{quizId}/leaderboard/students/{studentId}/around")
+    public LeaderboardDto getLeaderboardAround(@PathVariable Long quizId, @PathVariable Long studentId,
+                                               @RequestParam(defaultValue = "5") int radius) {
+        return quizLeaderboard.around(quizId, studentId, radius);
+    }
+
     @PostMapping("/submissions")
     public QuizSubmissionDto createSubmission(@RequestBody QuizSubmissionDto quizSubmissionDto) {
         return quizSubmissionService.create(quizSubmissionDto);
     }
 
     @PutMapping("/submissions/{id}")
-    public QuizSubmissionDto updateSubmission(@PathVariable Long id, @RequestBody QuizSubmissionDto quizSubmissionDto) {
-        return quizSubmissionService.update(id, quizSubmissionDto);
+    public ResponseEntity<QuizSubmissionDto> updateSubmission(@PathVariable Long id, @RequestBody QuizSubmissionDto quizSubmissionDto,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(quizSubmissionService.update(id, quizSubmissionDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/submissions/{id}")
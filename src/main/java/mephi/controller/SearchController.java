@@ -0,0 +1,34 @@
+package mephi.controller;
+
+import lombok.AllArgsConstructor;
+import mephi.SearchDocumentType;
+import mephi.dto.SearchHitDto;
+import mephi.dto.SearchIndexStatsDto;
+import mephi.service.SearchService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+@AllArgsConstructor
+public class SearchController {
+    private final SearchService searchService;
+
+    @GetMapping
+    public List<SearchHitDto> search(@RequestParam("q") String query,
+                                     @RequestParam(value = "type", required = false) String type,
+                                     @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return searchService.search(query, type == null ? null : SearchDocumentType.fromString(type), limit);
+    }
+
+    @GetMapping("/stats")
+    public SearchIndexStatsDto getStats() {
+        return searchService.getStats();
+    }
+
+    @PostMapping("/rebuild")
+    public SearchIndexStatsDto rebuild() {
+        return searchService.rebuild();
+    }
+}
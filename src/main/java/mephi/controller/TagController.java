@@ -2,8 +2,13 @@ package mephi.controller;
 
 import lombok.AllArgsConstructor;
 import mephi.dto.TagDto;
+import mephi.service.CatalogVersions;
+import mephi.service.CatalogVersions.Catalog;
 import mephi.service.TagService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -12,15 +17,20 @@ import java.util.List;
 @AllArgsConstructor
 public class TagController {
     private final TagService tagService;
+    private final CatalogVersions catalogVersions;
 
     @GetMapping
-    public List<TagDto> getAllTags() {
-        return tagService.getAll();
+    public ResponseEntity<List<TagDto>> getAllTags(WebRequest request) {
+        String etag = catalogVersions.etag(Catalog.TAGS);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(tagService.getAll());
     }
 
     @GetMapping("/{id}")
-    public TagDto getTagById(@PathVariable Long id) {
-        return tagService.getById(id);
+    public ResponseEntity<TagDto> getTagById(@PathVariable Long id) {
+        return EntityTags.of(tagService.getById(id));
     }
 
     @GetMapping("/name/{name}")
@@ -34,12 +44,25 @@ public class TagController {
     }
 
     @PutMapping("/{id}")
-    public TagDto updateTag(@PathVariable Long id, @RequestBody TagDto tagDto) {
-        return tagService.update(id, tagDto);
+    public ResponseEntity<TagDto> updateTag(@PathVariable Long id, @RequestBody TagDto tagDto,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(tagService.update(id, tagDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
     public void deleteTag(@PathVariable Long id) {
         tagService.delete(id);
     }
+
+    @PutMapping("/{id}/courses/{courseId}")
+    public ResponseEntity<Void> attachCourse(@PathVariable Long id, @PathVariable Long courseId,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long version = tagService.attachCourse(id, courseId, EntityTags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.tag(version)).build();
+    }
+
+    @DeleteMapping("/{id}/courses/{courseId}")
+    public void detachCourse(@PathVariable Long id, @PathVariable Long courseId) {
+        tagService.detachCourse(id, courseId);
+    }
 }
@@ -1,14 +1,22 @@
 package mephi.controller;
 
 import lombok.AllArgsConstructor;
+import mephi.ExportFormat;
 import mephi.dto.*;
 import mephi.entity.User;
+import mephi.request.CursorRequest;
 import mephi.service.CourseReviewService;
 import mephi.service.EnrollmentService;
+import mephi.service.ImportService;
+import mephi.service.RecommendationService;
 import mephi.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -17,15 +25,17 @@ public class UserController {
     private final UserService userService;
     private final EnrollmentService enrollService;
     private final CourseReviewService courseReviewService;
+    private final ImportService importService;
+    private final RecommendationService recommendationService;
 
     @RequestMapping("/user")
-    public UserDto getUser(@RequestParam("id") Long id) {
-        return userService.getUser(id);
+    public ResponseEntity<UserDto> getUser(@RequestParam("id") Long id) {
+        return EntityTags.of(userService.getUser(id));
     }
 
     @RequestMapping("/users")
-    public List<UserDto> getAll() {
-        return userService.getAllUsers();
+    public ResponseEntity<List<UserDto>> getAll(CursorRequest page) {
+        return CursorResponses.of(userService.getAllUsers(page));
     }
 
     @RequestMapping("/user/create")
@@ -33,11 +43,25 @@ public class UserController {
         return userService.createUser(userDto);
     }
 
+    @PostMapping("/users/import")
+    public ImportReportDto importUsers(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                       @RequestParam(value = "skipChunks", defaultValue = "0") int skipChunks,
+                                       InputStream body) throws IOException {
+        return importService.importRows(body, ExportFormat.fromString(format), UserDto.class, skipChunks,
+                userService::importChunk);
+    }
+
     @RequestMapping("/user/courses-list")
     public List<CourseDto> getAllCourses(@RequestParam("userId") Long userId) {
         return enrollService.getCoursesByUser(userId);
     }
 
+    @GetMapping("/user/recommended-courses")
+    public List<CourseRecommendationDto> getRecommendedCourses(@RequestParam("userId") Long userId,
+                                                               @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return recommendationService.getRecommended(userId, limit);
+    }
+
     @GetMapping("/user/reviews-for-user")
     public List<CourseReviewDto> getReviews(@RequestParam("userId") Long userId) {
         return courseReviewService.getAllReviewByUser(userId);
@@ -48,9 +72,18 @@ public class UserController {
         return enrollService.createEnrollment(userId, courseId);
     }
 
+    @PostMapping("/enrollments/import")
+    public ImportReportDto importEnrollments(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                             @RequestParam(value = "skipChunks", defaultValue = "0") int skipChunks,
+                                             InputStream body) throws IOException {
+        return importService.importRows(body, ExportFormat.fromString(format), EnrollmentDto.class, skipChunks,
+                enrollService::importChunk);
+    }
+
     @PutMapping("/user/{id}")
-    public UserDto updateUser(@PathVariable Long id, @RequestBody UserDto userDto) {
-        return userService.updateUser(id, userDto);
+    public ResponseEntity<UserDto> updateUser(@PathVariable Long id, @RequestBody UserDto userDto,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return EntityTags.of(userService.updateUser(id, userDto, EntityTags.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/user/{id}")
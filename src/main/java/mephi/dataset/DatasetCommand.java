@@ -0,0 +1,38 @@
+package mephi.dataset;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line entry point: with the {@code dataset} profile the application fills its database
+ * and exits instead of serving requests, e.g.
+ * {@code ./gradlew bootRun --args='--spring.profiles.active=dataset --dataset.scale=0.1'}.
+ */
+@Component
+@Profile("dataset")
+@RequiredArgsConstructor
+public class DatasetCommand implements ApplicationRunner {
+    private final DatasetGenerator datasetGenerator;
+    private final ApplicationContext applicationContext;
+
+    @Value("${dataset.seed:42}")
+    private long seed;
+
+    @Value("${dataset.scale:1.0}")
+    private double scale;
+
+    @Value("${dataset.parallelism:8}")
+    private int parallelism;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        datasetGenerator.generate(seed, scale, parallelism);
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+}
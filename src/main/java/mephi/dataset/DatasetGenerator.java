@@ -0,0 +1,482 @@
+package mephi.dataset;
+
+import lombok.extern.slf4j.Slf4j;
+import mephi.EnrollStatus;
+import mephi.Role;
+import mephi.dto.DatasetReportDto;
+import mephi.entity.Question;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Synthetic dataset for scale testing: a consistent graph over every entity, sized by a scale
+ * factor (1.0 is about production size: 500k users, 20k courses, 100k modules, 200k lessons,
+ * 2M enrollments, 3M submissions) and fully determined by a seed.
+ * <p>
+ * Rows are written with batched JDBC inserts, bypassing JPA. Ids are dense and computed, so
+ * every foreign key is a function of the row's own id and the seed: a table is split into id
+ * ranges that are generated and inserted in parallel, each range in its own transaction.
+ * Tables are loaded level by level so parents are committed before their children. Students
+ * only submit to assignments and quizzes of courses they are enrolled in, and course rating
+ * aggregates are computed from the generated reviews. Afterwards every id sequence is moved past
+ * the generated ids so the application can keep inserting.
+ * <p>
+ * Needs an empty schema. On PostgreSQL add {@code reWriteBatchedInserts=true} to the JDBC URL
+ * so each batch is sent as multi-row inserts.
+ */
+@Slf4j
+@Component
+public class DatasetGenerator {
+    static final long USERS = 500_000;
+    static final long COURSES = 20_000;
+    static final int CATEGORIES = 50;
+    static final int TAGS = 200;
+    static final int USERS_PER_TEACHER = 50;
+    static final int MODULES_PER_COURSE = 5;
+    static final int LESSONS_PER_MODULE = 2;
+    static final int LESSONS_PER_COURSE = MODULES_PER_COURSE * LESSONS_PER_MODULE;
+    static final int QUESTIONS_PER_QUIZ = 5;
+    static final int OPTIONS_PER_QUESTION = 4;
+    static final int TAGS_PER_COURSE = 3;
+    static final int ENROLLMENTS_PER_USER = 4;
+    static final int SUBMISSIONS_PER_USER = 6;
+    static final int QUIZ_SUBMISSIONS_PER_USER = 2;
+    /** One user in this many reviews their first course. */
+    static final int REVIEWER_EVERY = 3;
+    /** Matches the {@code allocationSize} of every entity's id sequence. */
+    private static final int ALLOCATION_SIZE = 50;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final int batchSize;
+
+    public DatasetGenerator(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                            @Value("${dataset.chunk-size:20000}") int chunkSize,
+                            @Value("${dataset.batch-size:1000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    public DatasetReportDto generate(long seed, double scale, int parallelism) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale must be positive: " + scale);
+        }
+        Long existingUsers = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+        if (existingUsers != null && existingUsers > 0) {
+            throw new IllegalStateException("Dataset generator needs an empty database, found " + existingUsers + " users");
+        }
+
+        Shape shape = new Shape(seed, scale);
+        long start = System.currentTimeMillis();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("dataset-", 0).factory());
+        try {
+            load(executor, rows, users(shape), categories(), tags());
+            load(executor, rows, profiles(shape), courses(shape));
+            load(executor, rows, modules(shape), courseTags(shape), enrollments(shape), reviews(shape));
+            load(executor, rows, lessons(shape), quizzes(shape));
+            load(executor, rows, assignments(shape), questions(shape));
+            load(executor, rows, submissions(shape), quizSubmissions(shape), answerOptions(shape));
+        } finally {
+            executor.shutdown();
+        }
+        rows.put("course_ratings", (long) jdbcTemplate.update("insert into course_ratings " +
+                "(course_id, review_count, rating_sum, stars1, stars2, stars3, stars4, stars5) " +
+                "select course_id, count(*), sum(rating), " +
+                "sum(case when rating = 1 then 1 else 0 end), sum(case when rating = 2 then 1 else 0 end), " +
+                "sum(case when rating = 3 then 1 else 0 end), sum(case when rating = 4 then 1 else 0 end), " +
+                "sum(case when rating = 5 then 1 else 0 end) from course_review group by course_id"));
+        restartSequences();
+
+        long millis = System.currentTimeMillis() - start;
+        log.info("Generated dataset (seed {}, scale {}) in {} ms: {}", seed, scale, millis, rows);
+        return new DatasetReportDto(seed, scale, rows, millis);
+    }
+
+    private void load(ExecutorService executor, Map<String, Long> rows, Table... tables) {
+        List<CompletableFuture<Long>> chunks = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (Table table : tables) {
+            for (long from = 1; from <= table.rows(); from += chunkSize) {
+                long first = from;
+                long last = Math.min(table.rows(), from + chunkSize - 1);
+                chunks.add(CompletableFuture.supplyAsync(() -> insert(table, first, last), executor));
+                names.add(table.name());
+            }
+            rows.put(table.name(), 0L);
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            rows.merge(names.get(i), chunks.get(i).join(), Long::sum);
+        }
+    }
+
+    /** Inserts rows {@code first..last} of the table in one transaction; returns the number written. */
+    private long insert(Table table, long first, long last) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long written = 0;
+            try (PreparedStatement statement = connection.prepareStatement(table.sql())) {
+                int batched = 0;
+                for (long id = first; id <= last; id++) {
+                    if (!table.writer().write(statement, id)) {
+                        continue;
+                    }
+                    statement.addBatch();
+                    written++;
+                    if (++batched == batchSize) {
+                        statement.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    statement.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            }
+            return written;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not load " + table.name() + " rows " + first + ".." + last, ex);
+        }
+    }
+
+    private void restartSequences() {
+        Map<String, String> sequences = new LinkedHashMap<>();
+        sequences.put("users_seq", "users");
+        sequences.put("profile_seq", "profile");
+        sequences.put("category_seq", "category");
+        sequences.put("tags_seq", "tags");
+        sequences.put("courses_seq", "courses");
+        sequences.put("modules_seq", "modules");
+        sequences.put("lessons_seq", "lessons");
+        sequences.put("assignments_seq", "assignments");
+        sequences.put("quizzes_seq", "quizzes");
+        sequences.put("questions_seq", "questions");
+        sequences.put("answer_options_seq", "answer_options");
+        sequences.put("enrollment_seq", "enrollment");
+        sequences.put("submissions_seq", "submissions");
+        sequences.put("quiz_submissions_seq", "quiz_submissions");
+        sequences.put("course_review_seq", "course_review");
+        sequences.forEach((sequence, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+            // a pooled generator hands out the ALLOCATION_SIZE ids up to and including the value it reads
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + ALLOCATION_SIZE));
+        });
+    }
+
+    // ---- tables; row i of a table has id i ----
+
+    private static Table users(Shape shape) {
+        return new Table("users", "insert into users (id, name, email, role) values (?, ?, ?, ?)",
+                shape.users, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, "User " + id);
+            statement.setString(3, "user" + id + "@example.com");
+            statement.setString(4, (id <= shape.teachers ? Role.TEACHER : Role.STUDENT).name());
+            return true;
+        });
+    }
+
+    private static Table profiles(Shape shape) {
+        return new Table("profile", "insert into profile (id, bio, avatar_url, user_id) values (?, ?, ?, ?)",
+                shape.users, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, "Bio of user " + id);
+            statement.setString(3, "https://cdn.example.com/avatars/" + id + ".png");
+            statement.setLong(4, id);
+            return true;
+        });
+    }
+
+    private static Table categories() {
+        return new Table("category", "insert into category (id, name) values (?, ?)",
+                CATEGORIES, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, "Category " + id);
+            return true;
+        });
+    }
+
+    private static Table tags() {
+        return new Table("tags", "insert into tags (id, name) values (?, ?)",
+                TAGS, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, "tag-" + id);
+            return true;
+        });
+    }
+
+    private static Table courses(Shape shape) {
+        return new Table("courses",
+                "insert into courses (id, title, description, duration, category_id, teacher_id, lesson_slots) " +
+                        "values (?, ?, ?, ?, ?, ?, ?)",
+                shape.courses, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, shape.words(id, 1, 3) + " " + id);
+            statement.setString(3, shape.words(id, 2, 40));
+            statement.setInt(4, 5 + shape.uniform(id, 3, 120));
+            statement.setLong(5, 1 + shape.uniform(id, 4, CATEGORIES));
+            statement.setLong(6, 1 + (id - 1) % shape.teachers);
+            statement.setInt(7, LESSONS_PER_COURSE);
+            return true;
+        });
+    }
+
+    private static Table modules(Shape shape) {
+        return new Table("modules",
+                "insert into modules (id, title, order_index, description, course_id) values (?, ?, ?, ?, ?)",
+                shape.courses * MODULES_PER_COURSE, (statement, id) -> {
+            int index = (int) ((id - 1) % MODULES_PER_COURSE);
+            statement.setLong(1, id);
+            statement.setString(2, "Module " + (index + 1));
+            statement.setInt(3, index + 1);
+            statement.setString(4, shape.words(id, 5, 12));
+            statement.setLong(5, (id - 1) / MODULES_PER_COURSE + 1);
+            return true;
+        });
+    }
+
+    private static Table lessons(Shape shape) {
+        return new Table("lessons",
+                "insert into lessons (id, title, content, video_url, order_index, module_id, progress_slot) " +
+                        "values (?, ?, ?, ?, ?, ?, ?)",
+                shape.courses * LESSONS_PER_COURSE, (statement, id) -> {
+            int index = (int) ((id - 1) % LESSONS_PER_MODULE);
+            statement.setLong(1, id);
+            statement.setString(2, shape.words(id, 6, 4));
+            statement.setString(3, shape.words(id, 7, 120));
+            statement.setString(4, "https://video.example.com/" + id);
+            statement.setInt(5, index + 1);
+            statement.setLong(6, (id - 1) / LESSONS_PER_MODULE + 1);
+            // lessons of a course are consecutive ids, in tree order
+            statement.setInt(7, (int) ((id - 1) % LESSONS_PER_COURSE));
+            return true;
+        });
+    }
+
+    private static Table assignments(Shape shape) {
+        return new Table("assignments",
+                "insert into assignments (id, title, description, due_date, max_score, lesson_id) values (?, ?, ?, ?, ?, ?)",
+                shape.courses * LESSONS_PER_COURSE, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, "Assignment " + id);
+            statement.setString(3, shape.words(id, 8, 20));
+            statement.setTimestamp(4, Timestamp.valueOf(EPOCH.plusDays(shape.uniform(id, 9, 365))));
+            statement.setInt(5, 100);
+            statement.setLong(6, id);
+            return true;
+        });
+    }
+
+    private static Table quizzes(Shape shape) {
+        return new Table("quizzes", "insert into quizzes (id, title, time_limit, module_id) values (?, ?, ?, ?)",
+                shape.courses * MODULES_PER_COURSE, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, "Quiz " + id);
+            statement.setInt(3, 10 + 5 * shape.uniform(id, 10, 6));
+            statement.setLong(4, id);
+            return true;
+        });
+    }
+
+    private static Table questions(Shape shape) {
+        return new Table("questions", "insert into questions (id, text, type, quiz_id) values (?, ?, ?, ?)",
+                shape.courses * MODULES_PER_COURSE * QUESTIONS_PER_QUIZ, (statement, id) -> {
+            statement.setLong(1, id);
+            statement.setString(2, shape.words(id, 11, 10) + "?");
+            statement.setString(3, Question.QuestionType.SINGLE_CHOICE.name());
+            statement.setLong(4, (id - 1) / QUESTIONS_PER_QUIZ + 1);
+            return true;
+        });
+    }
+
+    private static Table answerOptions(Shape shape) {
+        return new Table("answer_options", "insert into answer_options (id, text, is_correct, question_id) values (?, ?, ?, ?)",
+                shape.courses * MODULES_PER_COURSE * QUESTIONS_PER_QUIZ * OPTIONS_PER_QUESTION, (statement, id) -> {
+            long question = (id - 1) / OPTIONS_PER_QUESTION + 1;
+            statement.setLong(1, id);
+            statement.setString(2, shape.words(id, 12, 4));
+            statement.setBoolean(3, (id - 1) % OPTIONS_PER_QUESTION == shape.uniform(question, 13, OPTIONS_PER_QUESTION));
+            statement.setLong(4, question);
+            return true;
+        });
+    }
+
+    private static Table courseTags(Shape shape) {
+        int perCourse = Math.min(TAGS_PER_COURSE, TAGS);
+        return new Table("course_tags", "insert into course_tags (tag_id, course_id) values (?, ?)",
+                shape.courses * perCourse, (statement, id) -> {
+            long course = (id - 1) / perCourse + 1;
+            int index = (int) ((id - 1) % perCourse);
+            int base = shape.uniform(course, 14, TAGS);
+            statement.setLong(1, 1 + (base + (long) index * (TAGS / perCourse)) % TAGS);
+            statement.setLong(2, course);
+            return true;
+        });
+    }
+
+    private static Table enrollments(Shape shape) {
+        return new Table("enrollment", "insert into enrollment (id, user_id, course_id, enroll_date, status) values (?, ?, ?, ?, ?)",
+                shape.users * shape.enrollmentsPerUser, (statement, id) -> {
+            long user = (id - 1) / shape.enrollmentsPerUser + 1;
+            int index = (int) ((id - 1) % shape.enrollmentsPerUser);
+            statement.setLong(1, id);
+            statement.setLong(2, user);
+            statement.setLong(3, shape.courseOf(user, index));
+            statement.setObject(4, LocalDate.from(EPOCH).plusDays(shape.uniform(id, 15, 365)));
+            statement.setInt(5, (shape.uniform(id, 16, 4) == 0 ? EnrollStatus.Completed : EnrollStatus.Active).ordinal());
+            return true;
+        });
+    }
+
+    private static Table submissions(Shape shape) {
+        return new Table("submissions",
+                "insert into submissions (id, assignment_id, student_id, submitted_at, content, score, feedback) " +
+                        "values (?, ?, ?, ?, ?, ?, ?)",
+                shape.users * SUBMISSIONS_PER_USER, (statement, id) -> {
+            long user = (id - 1) / SUBMISSIONS_PER_USER + 1;
+            long course = shape.courseOf(user, shape.uniform(id, 17, shape.enrollmentsPerUser));
+            boolean graded = shape.uniform(id, 18, 2) == 0;
+            statement.setLong(1, id);
+            statement.setLong(2, (course - 1) * LESSONS_PER_COURSE + shape.uniform(id, 19, LESSONS_PER_COURSE) + 1);
+            statement.setLong(3, user);
+            statement.setTimestamp(4, Timestamp.valueOf(EPOCH.plusMinutes(shape.uniform(id, 20, 525_600))));
+            statement.setString(5, shape.words(id, 21, 30));
+            if (graded) {
+                statement.setInt(6, shape.uniform(id, 22, 101));
+                statement.setString(7, shape.words(id, 23, 8));
+            } else {
+                statement.setNull(6, Types.INTEGER);
+                statement.setNull(7, Types.VARCHAR);
+            }
+            return true;
+        });
+    }
+
+    private static Table quizSubmissions(Shape shape) {
+        return new Table("quiz_submissions",
+                "insert into quiz_submissions (id, quiz_id, student_id, score, taken_at) values (?, ?, ?, ?, ?)",
+                shape.users * QUIZ_SUBMISSIONS_PER_USER, (statement, id) -> {
+            long user = (id - 1) / QUIZ_SUBMISSIONS_PER_USER + 1;
+            long course = shape.courseOf(user, shape.uniform(id, 24, shape.enrollmentsPerUser));
+            statement.setLong(1, id);
+            statement.setLong(2, (course - 1) * MODULES_PER_COURSE + shape.uniform(id, 25, MODULES_PER_COURSE) + 1);
+            statement.setLong(3, user);
+            statement.setDouble(4, shape.uniform(id, 26, QUESTIONS_PER_QUIZ + 1) * 100.0 / QUESTIONS_PER_QUIZ);
+            statement.setTimestamp(5, Timestamp.valueOf(EPOCH.plusMinutes(shape.uniform(id, 27, 525_600))));
+            return true;
+        });
+    }
+
+    /** Sparse: review id = id of the reviewing user, who reviews their first course. */
+    private static Table reviews(Shape shape) {
+        return new Table("course_review",
+                "insert into course_review (id, course_id, user_id, rating, review) values (?, ?, ?, ?, ?)",
+                shape.users, (statement, id) -> {
+            if (shape.uniform(id, 28, REVIEWER_EVERY) != 0) {
+                return false;
+            }
+            int roll = shape.uniform(id, 29, 100);
+            statement.setLong(1, id);
+            statement.setLong(2, shape.courseOf(id, 0));
+            statement.setLong(3, id);
+            statement.setInt(4, roll < 5 ? 1 : roll < 10 ? 2 : roll < 25 ? 3 : roll < 60 ? 4 : 5);
+            statement.setString(5, shape.words(id, 30, 15));
+            return true;
+        });
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        /** Binds row {@code id}; returns {@code false} to skip it. */
+        boolean write(PreparedStatement statement, long id) throws SQLException;
+    }
+
+    private record Table(String name, String sql, long rows, RowWriter writer) {
+    }
+
+    /** Table sizes for a scale, and the seeded functions every foreign key is derived from. */
+    static final class Shape {
+        private static final String[] WORDS = ("java spring data query index lesson course module student teacher " +
+                "review quiz answer option practice theory stream thread memory cache batch model graph network " +
+                "design pattern test deploy cloud service api client server").split(" ");
+
+        final long seed;
+        final long users;
+        final long teachers;
+        final long courses;
+        final int enrollmentsPerUser;
+
+        Shape(long seed, double scale) {
+            this.seed = seed;
+            this.users = Math.max(2, Math.round(USERS * scale));
+            this.teachers = Math.max(1, users / USERS_PER_TEACHER);
+            this.courses = Math.max(1, Math.round(COURSES * scale));
+            this.enrollmentsPerUser = (int) Math.min(ENROLLMENTS_PER_USER, courses);
+        }
+
+        /**
+         * The {@code index}-th course of a user. The first one is skewed towards low course ids so
+         * some courses are far more popular than others; the rest are spread evenly from there,
+         * which keeps one user's courses distinct.
+         */
+        long courseOf(long user, int index) {
+            double unit = (hash(user, 31) >>> 11) * 0x1.0p-53;
+            long base = (long) (courses * unit * unit);
+            long step = courses / enrollmentsPerUser;
+            return (base + index * step) % courses + 1;
+        }
+
+        int uniform(long id, int salt, int bound) {
+            return (int) ((hash(id, salt) >>> 1) % bound);
+        }
+
+        String words(long id, int salt, int count) {
+            StringBuilder text = new StringBuilder(count * 8);
+            long bits = hash(id, salt);
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    text.append(' ');
+                }
+                text.append(WORDS[(int) ((bits >>> 1) % WORDS.length)]);
+                bits = mix(bits + i);
+            }
+            return text.toString();
+        }
+
+        private long hash(long id, int salt) {
+            return mix(seed * 0x9E3779B97F4A7C15L + id * 0xBF58476D1CE4E5B9L + salt);
+        }
+
+        /** SplitMix64 finalizer. */
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseCatalogPageDto {
+    private long total;
+    private List<CourseDto> courses;
+    /** Pass as {@code afterId} to get the next page; {@code null} on the last page. */
+    private Long nextAfterId;
+    private List<TagFacetDto> facets;
+}
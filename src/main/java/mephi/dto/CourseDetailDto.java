@@ -0,0 +1,26 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything a course landing page shows. Parts that could not be read in time are
+ * {@code null} and named in {@code missing}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseDetailDto {
+    private CourseDto course;
+    private UserDto teacher;
+    private CategoryDto category;
+    private List<ModuleDto> modules;
+    private CourseRatingDto rating;
+    private List<TagDto> tags;
+    private Long enrollmentCount;
+    private List<String> missing = new ArrayList<>();
+}
@@ -14,7 +14,7 @@ public class CourseDto {
     private Long id;
     private String title;
     private String description;
-    private int duration;
+    private Integer duration;
     private Long categoryId;
     private Long teacherId;
 }
@@ -0,0 +1,18 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseProgressDto {
+    private Long courseId;
+    private int totalLessons;
+    private int enrollments;
+    /** Mean completion of the enrollments, 0..100. */
+    private double averageCompletion;
+    /** Enrollments with every lesson of the course done. */
+    private int completedEnrollments;
+}
@@ -0,0 +1,18 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseRatingDto {
+    private Long courseId;
+    private String title;
+    private long reviewCount;
+    private long ratingSum;
+    private double average;
+    /** Number of reviews per star, index 0 = 1 star. */
+    private long[] histogram;
+}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CourseReviewDto {
+    private Long id;
     private Long userId;
     private Long courseId;
     private int rating;
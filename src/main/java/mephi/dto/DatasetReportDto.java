@@ -0,0 +1,18 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetReportDto {
+    private long seed;
+    private double scale;
+    /** Rows inserted per table, in load order. */
+    private Map<String, Long> rows;
+    private long millis;
+}
@@ -0,0 +1,16 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One item of a bulk grading request; {@code version} is optional and, when set, must match the stored one. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeDto {
+    private Long submissionId;
+    private Integer score;
+    private String feedback;
+    private Long version;
+}
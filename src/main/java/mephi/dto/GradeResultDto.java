@@ -0,0 +1,17 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mephi.GradeStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeResultDto {
+    private Long submissionId;
+    private GradeStatus status;
+    private String message;
+    /** Version after grading; {@code null} unless graded. */
+    private Long version;
+}
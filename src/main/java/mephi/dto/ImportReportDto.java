@@ -0,0 +1,24 @@
+package mephi.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code chunksCommitted} is the checkpoint: re-sending the same
+ * input with {@code skipChunks=chunksCommitted} resumes right after the last committed chunk.
+ */
+@Data
+@NoArgsConstructor
+public class ImportReportDto {
+    private int chunkSize;
+    private int chunksCommitted;
+    private long rowsRead;
+    private long rowsSkipped;
+    private long rowsImported;
+    private long rowsFailed;
+    private boolean completed;
+    private List<ImportErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardDto {
+    private Long quizId;
+    /** Students with a graded attempt, including any beyond the kept top entries. */
+    private long participants;
+    private List<LeaderboardEntryDto> entries;
+}
@@ -0,0 +1,23 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonProgressDto {
+    private Long enrollmentId;
+    private Long userId;
+    private Long courseId;
+    private int completedLessons;
+    private int totalLessons;
+    /** 0..100 */
+    private double completion;
+    /** Lesson to resume from: the last one the student opened, if it still belongs to the course. */
+    private Long lastLessonId;
+    private LocalDateTime lastActivityAt;
+}
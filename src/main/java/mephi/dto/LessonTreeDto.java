@@ -0,0 +1,16 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonTreeDto {
+    private LessonDto lesson;
+    private List<AssignmentDto> assignments = new ArrayList<>();
+}
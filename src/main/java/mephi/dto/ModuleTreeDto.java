@@ -0,0 +1,17 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModuleTreeDto {
+    private ModuleDto module;
+    private QuizDto quiz;
+    private List<LessonTreeDto> lessons = new ArrayList<>();
+}
@@ -0,0 +1,18 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizAttemptDto {
+    private Long studentId;
+    // question id -> selected answer option ids
+    private Map<Long, List<Long>> answers = new HashMap<>();
+}
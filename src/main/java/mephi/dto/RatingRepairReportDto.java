@@ -0,0 +1,14 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingRepairReportDto {
+    private int partitions;
+    private long coursesChecked;
+    private long coursesRepaired;
+}
@@ -0,0 +1,17 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mephi.SearchDocumentType;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDto {
+    private SearchDocumentType type;
+    private Long id;
+    private Long courseId;
+    private String title;
+    private double score;
+}
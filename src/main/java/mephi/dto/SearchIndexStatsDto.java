@@ -0,0 +1,15 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchIndexStatsDto {
+    private long courses;
+    private long lessons;
+    private long terms;
+    private long buildMillis;
+}
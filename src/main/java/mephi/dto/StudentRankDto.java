@@ -0,0 +1,21 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentRankDto {
+    private Long quizId;
+    private Long studentId;
+    private int rank;
+    private long participants;
+    /** Share of participants ranked at or below this student, 0..100. */
+    private double percentile;
+    private Double score;
+    private LocalDateTime takenAt;
+}
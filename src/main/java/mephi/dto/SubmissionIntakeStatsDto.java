@@ -0,0 +1,17 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionIntakeStatsDto {
+    private int queueDepth;
+    private int queueCapacity;
+    private long accepted;
+    private long stored;
+    private long rejected;
+    private long batches;
+}
@@ -0,0 +1,17 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionReceiptDto {
+    /** Id the submission will be stored under. */
+    private Long id;
+    private LocalDateTime receivedAt;
+    private int queueDepth;
+}
@@ -0,0 +1,14 @@
+package mephi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagFacetDto {
+    private Long tagId;
+    private String name;
+    private long count;
+}
@@ -16,4 +16,9 @@ public class UserDto {
     private String email;
     private Role role;
     private ProfileDto profile;
+
+    /** Flat constructor for JPQL {@code select new}; {@code profileId} is null for users without a profile. */
+    public UserDto(Long id, String name, String email, Role role, Long profileId, String bio, String avatarUrl) {
+        this(id, name, email, role, profileId == null ? null : new ProfileDto(bio, avatarUrl));
+    }
 }
@@ -0,0 +1,5 @@
+package mephi.dto;
+
+/** A DTO together with the version of the entity it was read from, the source of its ETag. */
+public record Versioned<T>(T body, long version) {
+}
@@ -19,9 +19,14 @@ import java.util.Set;
 @Setter
 public class Course {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "courses_seq")
+    @SequenceGenerator(name = "courses_seq", sequenceName = "courses_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @Column(nullable = false)
     private String title;
 
@@ -30,6 +35,13 @@ public class Course {
 
     private Integer duration;
 
+    /**
+     * Progress bits handed out to the course's lessons so far. Only ever incremented, by a bulk
+     * update, so a bit is never given to a second lesson.
+     */
+    @Column(name = "lesson_slots", insertable = false, updatable = false)
+    private Integer lessonSlots;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", referencedColumnName = "id")
     private Category category;
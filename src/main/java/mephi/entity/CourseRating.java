@@ -0,0 +1,76 @@
+package mephi.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+/**
+ * Denormalized rating aggregate of one course, kept in step with its {@link CourseReview}s.
+ * There is deliberately no foreign key to {@code courses}: the row is written under a row lock
+ * on every review change and must not get in the way of cascading course deletes.
+ */
+@Entity
+@Table(name = "course_ratings")
+@NoArgsConstructor
+@Getter
+@Setter
+public class CourseRating {
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 5;
+
+    @Id
+    private Long courseId;
+
+    private long reviewCount;
+    private long ratingSum;
+    private long stars1;
+    private long stars2;
+    private long stars3;
+    private long stars4;
+    private long stars5;
+
+    public static boolean isValid(int rating) {
+        return rating >= MIN_RATING && rating <= MAX_RATING;
+    }
+
+    public CourseRating(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    /** Adds ({@code delta > 0}) or removes ({@code delta < 0}) reviews with the given rating. */
+    public void apply(int rating, long delta) {
+        reviewCount += delta;
+        ratingSum += rating * delta;
+        switch (rating) {
+            case 1 -> stars1 += delta;
+            case 2 -> stars2 += delta;
+            case 3 -> stars3 += delta;
+            case 4 -> stars4 += delta;
+            case 5 -> stars5 += delta;
+            default -> throw new IllegalArgumentException("Rating must be between 1 and 5: " + rating);
+        }
+    }
+
+    public long[] histogram() {
+        return new long[]{stars1, stars2, stars3, stars4, stars5};
+    }
+
+    public boolean sameAs(CourseRating other) {
+        return reviewCount == other.reviewCount
+                && ratingSum == other.ratingSum
+                && Arrays.equals(histogram(), other.histogram());
+    }
+
+    public void copyFrom(CourseRating other) {
+        reviewCount = other.reviewCount;
+        ratingSum = other.ratingSum;
+        stars1 = other.stars1;
+        stars2 = other.stars2;
+        stars3 = other.stars3;
+        stars4 = other.stars4;
+        stars5 = other.stars5;
+    }
+}
@@ -13,8 +13,13 @@ import lombok.Setter;
 @Setter
 public class CourseReview {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_review_seq")
+    @SequenceGenerator(name = "course_review_seq", sequenceName = "course_review_seq", allocationSize = 50)
     private Long id;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
     @ManyToOne(optional = false)
     @JoinColumn(name = "courseId", referencedColumnName = "id")
     private Course course;
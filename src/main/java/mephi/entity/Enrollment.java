@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Enrollment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "enrollment_seq")
+    @SequenceGenerator(name = "enrollment_seq", sequenceName = "enrollment_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -32,4 +33,10 @@ public class Enrollment {
     private Course course;
     private LocalDate enrollDate;
     private EnrollStatus status;
+
+    /** {@link java.util.BitSet} of the lessons done, indexed by {@link Lesson#getProgressSlot()}. */
+    @Column(name = "progress")
+    private byte[] progress;
+    private Long lastLessonId;
+    private LocalDateTime lastActivityAt;
 }
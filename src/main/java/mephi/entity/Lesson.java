@@ -17,9 +17,14 @@ import java.util.List;
 @Setter
 public class Lesson {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lessons_seq")
+    @SequenceGenerator(name = "lessons_seq", sequenceName = "lessons_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @Column(nullable = false)
     private String title;
 
@@ -30,6 +35,10 @@ public class Lesson {
 
     private Integer orderIndex;
 
+    /** Bit of this lesson in the progress bitset of its course's enrollments. */
+    @Column(name = "progress_slot")
+    private Integer progressSlot;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "module_id", referencedColumnName = "id")
     private Module module;
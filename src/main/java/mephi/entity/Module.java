@@ -17,9 +17,14 @@ import java.util.List;
 @Setter
 public class Module {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "modules_seq")
+    @SequenceGenerator(name = "modules_seq", sequenceName = "modules_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @Column(nullable = false)
     private String title;
 
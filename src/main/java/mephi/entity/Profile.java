@@ -14,7 +14,8 @@ import lombok.Setter;
 @Setter
 public class Profile {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "profile_seq")
+    @SequenceGenerator(name = "profile_seq", sequenceName = "profile_seq", allocationSize = 50)
     private Long id;
     private String bio;
     private String avatar_url;
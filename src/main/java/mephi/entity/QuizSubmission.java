@@ -16,9 +16,14 @@ import java.time.LocalDateTime;
 @Setter
 public class QuizSubmission {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quiz_submissions_seq")
+    @SequenceGenerator(name = "quiz_submissions_seq", sequenceName = "quiz_submissions_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "quiz_id", referencedColumnName = "id", nullable = false)
     private Quiz quiz;
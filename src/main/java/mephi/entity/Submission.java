@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 @Setter
 public class Submission {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submissions_seq")
+    @SequenceGenerator(name = "submissions_seq", sequenceName = "submissions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,4 +37,9 @@ public class Submission {
 
     @Column(columnDefinition = "TEXT")
     private String feedback;
+
+    /** Bumped by every update, including bulk grading that writes without loading the entity. */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
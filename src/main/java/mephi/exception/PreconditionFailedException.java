@@ -0,0 +1,8 @@
+package mephi.exception;
+
+/** The entity no longer has the version the client sent in {@code If-Match}; it should re-read and retry. */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
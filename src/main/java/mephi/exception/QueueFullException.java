@@ -0,0 +1,8 @@
+package mephi.exception;
+
+/** A bounded intake queue has no room left; the client should retry later. */
+public class QueueFullException extends RuntimeException {
+    public QueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package mephi.exception;
+
+/** A required read could not get a connection or finish in time; the client should retry later. */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
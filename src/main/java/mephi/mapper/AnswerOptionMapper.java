@@ -9,6 +9,7 @@ import org.mapstruct.Mapping;
 public interface AnswerOptionMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "question", ignore = true)
+    @Mapping(target = "version", ignore = true)
     AnswerOption toEntity(AnswerOptionDto answerOptionDto);
 
     @Mapping(target = "questionId", source = "question.id")
@@ -10,6 +10,7 @@ public interface AssignmentMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "lesson", ignore = true)
     @Mapping(target = "submissions", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Assignment toEntity(AssignmentDto assignmentDto);
 
     @Mapping(target = "lessonId", source = "lesson.id")
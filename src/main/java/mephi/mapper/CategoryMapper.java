@@ -9,6 +9,7 @@ import org.mapstruct.Mapping;
 public interface CategoryMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "courses", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Category toEntity(CategoryDto categoryDto);
     CategoryDto toDto(Category category);
 }
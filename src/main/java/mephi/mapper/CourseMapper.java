@@ -14,6 +14,8 @@ public interface CourseMapper {
     @Mapping(target = "enrollments", ignore = true)
     @Mapping(target = "reviews", ignore = true)
     @Mapping(target = "tags", ignore = true)
+    @Mapping(target = "lessonSlots", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Course toEntity(CourseDto courseDto);
 
     @Mapping(target = "categoryId", source = "category.id")
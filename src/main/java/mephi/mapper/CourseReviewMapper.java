@@ -10,6 +10,7 @@ public interface CourseReviewMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "course", ignore = true)
     @Mapping(target = "user", ignore = true)
+    @Mapping(target = "version", ignore = true)
     CourseReview toEntity(CourseReviewDto courseReviewDto);
 
     @Mapping(target = "courseId", source = "course.id")
@@ -0,0 +1,11 @@
+package mephi.mapper;
+
+import mephi.dto.CourseTreeDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.control.DeepClone;
+
+/** Deep copies of cached course trees: a caller changing its copy does not change the cache. */
+@Mapper(componentModel = "spring", mappingControl = DeepClone.class)
+public interface CourseTreeMapper {
+    CourseTreeDto copy(CourseTreeDto tree);
+}
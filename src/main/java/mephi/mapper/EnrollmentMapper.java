@@ -10,6 +10,9 @@ public interface EnrollmentMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "course", ignore = true)
+    @Mapping(target = "progress", ignore = true)
+    @Mapping(target = "lastLessonId", ignore = true)
+    @Mapping(target = "lastActivityAt", ignore = true)
     Enrollment toEntity(EnrollmentDto eDto);
 
     @Mapping(target = "userId", source = "user.id")
@@ -10,6 +10,8 @@ public interface LessonMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "module", ignore = true)
     @Mapping(target = "assignments", ignore = true)
+    @Mapping(target = "progressSlot", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Lesson toEntity(LessonDto lessonDto);
 
     @Mapping(target = "moduleId", source = "module.id")
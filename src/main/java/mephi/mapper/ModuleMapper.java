@@ -11,6 +11,7 @@ public interface ModuleMapper {
     @Mapping(target = "course", ignore = true)
     @Mapping(target = "lessons", ignore = true)
     @Mapping(target = "quiz", ignore = true)
+    @Mapping(target = "version", ignore = true)
     mephi.entity.Module toEntity(ModuleDto moduleDto);
 
     @Mapping(target = "courseId", source = "course.id")
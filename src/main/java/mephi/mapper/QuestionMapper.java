@@ -10,6 +10,7 @@ public interface QuestionMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "quiz", ignore = true)
     @Mapping(target = "options", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Question toEntity(QuestionDto questionDto);
 
     @Mapping(target = "quizId", source = "quiz.id")
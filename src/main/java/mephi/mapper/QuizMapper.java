@@ -11,6 +11,7 @@ public interface QuizMapper {
     @Mapping(target = "module", ignore = true)
     @Mapping(target = "questions", ignore = true)
     @Mapping(target = "quizSubmissions", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Quiz toEntity(QuizDto quizDto);
 
     @Mapping(target = "moduleId", source = "module.id")
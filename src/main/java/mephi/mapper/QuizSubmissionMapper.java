@@ -10,6 +10,7 @@ public interface QuizSubmissionMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "quiz", ignore = true)
     @Mapping(target = "student", ignore = true)
+    @Mapping(target = "version", ignore = true)
     QuizSubmission toEntity(QuizSubmissionDto quizSubmissionDto);
 
     @Mapping(target = "quizId", source = "quiz.id")
@@ -10,6 +10,7 @@ public interface SubmissionMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "assignment", ignore = true)
     @Mapping(target = "student", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Submission toEntity(SubmissionDto submissionDto);
 
     @Mapping(target = "assignmentId", source = "assignment.id")
@@ -9,6 +9,7 @@ import org.mapstruct.Mapping;
 public interface TagMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "courses", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Tag toEntity(TagDto tagDto);
 
     TagDto toDto(Tag tag);
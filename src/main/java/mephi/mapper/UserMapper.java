@@ -13,6 +13,7 @@ public interface UserMapper {
     @Mapping(target = "submissions", ignore = true)
     @Mapping(target = "quizSubmissions", ignore = true)
     @Mapping(target = "reviews", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toEntity(UserDto userDto);
 
     UserDto toDto(User user);
@@ -2,11 +2,16 @@ package mephi.repository;
 
 import mephi.entity.AnswerOption;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AnswerOptionRepository extends JpaRepository<AnswerOption, Long> {
     List<AnswerOption> findByQuestionId(Long questionId);
+
+    @Query("select o.question.quiz.id from AnswerOption o where o.id = :id")
+    Optional<Long> findQuizIdById(Long id);
 }
@@ -2,11 +2,19 @@ package mephi.repository;
 
 import mephi.entity.Assignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     List<Assignment> findByLessonId(Long lessonId);
+
+    @Query("select a from Assignment a where a.lesson.module.course.id = :courseId order by a.id")
+    List<Assignment> findTreeByCourseId(Long courseId);
+
+    @Query("select a.lesson.module.course.id from Assignment a where a.id = :id")
+    Optional<Long> findCourseIdById(Long id);
 }
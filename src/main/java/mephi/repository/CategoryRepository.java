@@ -2,7 +2,14 @@ package mephi.repository;
 
 import mephi.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {}
+public interface CategoryRepository extends JpaRepository<Category, Long> {
+    @Query("select c.id from Category c where c.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+}
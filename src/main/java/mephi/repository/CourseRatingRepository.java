@@ -0,0 +1,52 @@
+package mephi.repository;
+
+import jakarta.persistence.LockModeType;
+import mephi.entity.CourseRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CourseRatingRepository extends JpaRepository<CourseRating, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from CourseRating r where r.courseId = :courseId")
+    Optional<CourseRating> findForUpdate(Long courseId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from CourseRating r where r.courseId between :fromId and :toId")
+    List<CourseRating> findRangeForUpdate(Long fromId, Long toId);
+
+    @Query("select c.id as courseId, c.title as title, r.reviewCount as reviewCount, r.ratingSum as ratingSum, " +
+            "r.stars1 as stars1, r.stars2 as stars2, r.stars3 as stars3, r.stars4 as stars4, r.stars5 as stars5 " +
+            "from Course c left join CourseRating r on r.courseId = c.id " +
+            "where c.id > :afterId order by c.id")
+    List<CatalogRow> findCatalog(Long afterId, Pageable page);
+
+    @Query("select r.courseId from CourseRating r where r.courseId not in (select c.id from Course c)")
+    List<Long> findOrphanIds();
+
+    interface CatalogRow {
+        Long getCourseId();
+
+        String getTitle();
+
+        Long getReviewCount();
+
+        Long getRatingSum();
+
+        Long getStars1();
+
+        Long getStars2();
+
+        Long getStars3();
+
+        Long getStars4();
+
+        Long getStars5();
+    }
+}
@@ -1,13 +1,88 @@
 package mephi.repository;
 
+import mephi.Role;
+import mephi.dto.CourseDto;
 import mephi.entity.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
     List<Course> findByCategoryId(Long id);
     List<Course> findByTeacherId(Long teacherId);
+
+    @Query("select c.id from Course c where c.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select min(c.id) from Course c")
+    Long findMinId();
+
+    @Query("select max(c.id) from Course c")
+    Long findMaxId();
+
+    @Query("select c.id as id, c.title as title, c.description as description " +
+            "from Course c where c.id between :fromId and :toId")
+    List<SearchRow> findSearchRows(Long fromId, Long toId);
+
+    @Query("select c.id as courseId, c.category.id as categoryId, c.teacher.id as teacherId from Course c")
+    List<FacetRow> findFacetRows();
+
+    @Query("select c.id as courseId, c.category.id as categoryId, c.teacher.id as teacherId from Course c " +
+            "where c.id in :ids")
+    List<FacetRow> findFacetRowsByIds(Collection<Long> ids);
+
+    @Query("select new mephi.dto.CourseDto(c.id, c.title, c.description, c.duration, c.category.id, c.teacher.id) " +
+            "from Course c where c.id in :ids order by c.id")
+    List<CourseDto> findDtosByIds(Collection<Long> ids);
+
+    /** The course with its category and its teacher's profile, in one row. */
+    @Query("select c.id as id, c.title as title, c.description as description, c.duration as duration, " +
+            "g.id as categoryId, g.name as categoryName, " +
+            "u.id as teacherId, u.name as teacherName, u.email as teacherEmail, u.role as teacherRole, " +
+            "p.id as profileId, p.bio as bio, p.avatar_url as avatarUrl " +
+            "from Course c left join c.category g left join c.teacher u left join u.profile p where c.id = :id")
+    Optional<DetailHead> findDetailHeadById(Long id);
+
+    /** Takes the row lock, so concurrent lesson writes of one course get distinct progress bits. */
+    @Modifying
+    @Query("update Course c set c.lessonSlots = coalesce(c.lessonSlots, 0) + :count where c.id = :id")
+    int addLessonSlots(Long id, int count);
+
+    @Query("select c.lessonSlots from Course c where c.id = :id")
+    Integer findLessonSlotsById(Long id);
+
+    interface SearchRow {
+        Long getId();
+        String getTitle();
+        String getDescription();
+    }
+
+    interface FacetRow {
+        Long getCourseId();
+        Long getCategoryId();
+        Long getTeacherId();
+    }
+
+    interface DetailHead {
+        Long getId();
+        String getTitle();
+        String getDescription();
+        Integer getDuration();
+        Long getCategoryId();
+        String getCategoryName();
+        Long getTeacherId();
+        String getTeacherName();
+        String getTeacherEmail();
+        Role getTeacherRole();
+        Long getProfileId();
+        String getBio();
+        String getAvatarUrl();
+    }
 }
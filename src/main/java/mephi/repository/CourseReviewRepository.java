@@ -1,13 +1,33 @@
 package mephi.repository;
 
 import mephi.entity.CourseReview;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface CourseReviewRepository extends JpaRepository<CourseReview, Long> {
+    // course and user are eager, and so is the user's profile (inverse one-to-one): load them in the
+    // same query instead of one query per row
+    @EntityGraph(attributePaths = {"course", "user", "user.profile"})
     List<CourseReview> findAllByUserId(Long userId);
+
+    @EntityGraph(attributePaths = {"course", "user", "user.profile"})
     List<CourseReview> findAllByCourseId(Long courseId);
+
+    @Query("select r.course.id as courseId, r.rating as rating, count(r) as reviews from CourseReview r " +
+            "where r.course.id between :fromId and :toId and r.rating between 1 and 5 " +
+            "group by r.course.id, r.rating")
+    List<RatingCount> countRatings(Long fromId, Long toId);
+
+    interface RatingCount {
+        Long getCourseId();
+
+        Integer getRating();
+
+        Long getReviews();
+    }
 }
@@ -1,11 +1,15 @@
 package mephi.repository;
 
+import mephi.dto.CourseDto;
+import mephi.dto.UserDto;
 import mephi.entity.Course;
 import mephi.entity.Enrollment;
 import mephi.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
@@ -14,4 +18,47 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
 
     @Query("select e.user from Enrollment e where e.course.id = :courseId")
     List<User> findUserByCourseId(Long courseId);
+
+    @Query("select new mephi.dto.CourseDto(c.id, c.title, c.description, c.duration, c.category.id, c.teacher.id) " +
+            "from Enrollment e join e.course c where e.user.id = :userId order by c.id")
+    List<CourseDto> findCourseDtosByUserId(Long userId);
+
+    @Query("select new mephi.dto.UserDto(u.id, u.name, u.email, u.role, p.id, p.bio, p.avatar_url) " +
+            "from Enrollment e join e.user u left join u.profile p where e.course.id = :courseId order by u.id")
+    List<UserDto> findUserDtosByCourseId(Long courseId);
+
+    long countByCourseId(Long courseId);
+
+    @Query("select e.course.id from Enrollment e where e.user.id = :userId")
+    List<Long> findCourseIdsByUserId(Long userId);
+
+    @Query("select e.id as id, e.user.id as userId, e.progress as progress, e.lastLessonId as lastLessonId, " +
+            "e.lastActivityAt as lastActivityAt from Enrollment e where e.course.id = :courseId")
+    List<ProgressRow> findProgressByCourseId(Long courseId);
+
+    @Query("select e.user.id as userId, e.course.id as courseId from Enrollment e " +
+            "where e.user.id in :userIds and e.course.id in :courseIds")
+    List<EnrollmentKey> findKeys(Collection<Long> userIds, Collection<Long> courseIds);
+
+    @Query("select e.user.id as userId, e.course.id as courseId from Enrollment e " +
+            "where e.user.id between :fromId and :toId order by e.user.id")
+    List<EnrollmentKey> findKeysByUserIdBetween(Long fromId, Long toId);
+
+    interface ProgressRow {
+        Long getId();
+
+        Long getUserId();
+
+        byte[] getProgress();
+
+        Long getLastLessonId();
+
+        LocalDateTime getLastActivityAt();
+    }
+
+    interface EnrollmentKey {
+        Long getUserId();
+
+        Long getCourseId();
+    }
 }
@@ -0,0 +1,176 @@
+package mephi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.AllArgsConstructor;
+import mephi.dto.CursorPage;
+import mephi.request.CursorRequest;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Keyset (seek) pagination over any entity with a {@code Long id}.
+ * Pages are read as {@code WHERE (key, id) > (?, ?) ORDER BY key, id LIMIT ?},
+ * so the cost of a page does not grow with its position in the table.
+ * The sort key must be a non-null column; {@code id} breaks ties.
+ */
+@Repository
+@AllArgsConstructor
+public class KeysetQuery {
+    private static final String ID = "id";
+    private static final String SEPARATOR = "\n";
+
+    private final EntityManager entityManager;
+
+    public <T> CursorPage<T> fetch(Class<T> type, CursorRequest request, Set<String> sortKeys) {
+        return fetch(type, request, sortKeys, Map.of());
+    }
+
+    public <T> CursorPage<T> fetch(Class<T> type, CursorRequest request, Set<String> sortKeys, Map<String, Object> filters) {
+        return fetch(type, type, (cb, root) -> root, null, request, sortKeys, filters);
+    }
+
+    /**
+     * Loads the page with the named entity graph as a load graph, so the associations it lists are
+     * fetched by the page query itself instead of one statement per row.
+     */
+    public <T> CursorPage<T> fetch(Class<T> type, String entityGraph, CursorRequest request, Set<String> sortKeys) {
+        return fetch(type, type, (cb, root) -> root, entityGraph, request, sortKeys, Map.of());
+    }
+
+    /**
+     * Same as {@link #fetch(Class, CursorRequest, Set, Map)}, but selects only the given columns
+     * straight into {@code dtoType} through its constructor, so no entity is hydrated or tracked.
+     * The DTO must expose {@code id} and every sort key as bean properties.
+     */
+    public <T, D> CursorPage<D> fetch(Class<T> type, Class<D> dtoType, List<String> columns,
+                                      CursorRequest request, Set<String> sortKeys, Map<String, Object> filters) {
+        return fetch(type, dtoType, (cb, root) -> cb.construct(dtoType, columns.stream()
+                .map(column -> resolve(root, column))
+                .toArray(Selection[]::new)), null, request, sortKeys, filters);
+    }
+
+    /**
+     * For reads that {@link #fetch} cannot express: the id a page in ascending id order starts
+     * after, {@code null} for the first page. The caller reads {@code WHERE id > ? ORDER BY id}
+     * and hands out {@link #nextAfterId} as the next cursor.
+     */
+    public static Long afterId(CursorRequest request) {
+        Cursor cursor = cursor(request);
+        if (!ID.equals(cursor.sort()) || !cursor.direction().isAscending()) {
+            throw new IllegalArgumentException("Only ascending id order is supported: " + cursor.sort()
+                    + " " + cursor.direction());
+        }
+        return cursor.lastId();
+    }
+
+    /** Cursor of the page after the one ending with {@code lastId}, see {@link #afterId}. */
+    public static String nextAfterId(Long lastId) {
+        return new Cursor(ID, Sort.Direction.ASC, String.valueOf(lastId), lastId).encode();
+    }
+
+    private <T, R> CursorPage<R> fetch(Class<T> type, Class<R> resultType,
+                                       BiFunction<CriteriaBuilder, Root<T>, Selection<? extends R>> selection,
+                                       String entityGraph, CursorRequest request, Set<String> sortKeys, Map<String, Object> filters) {
+        Cursor cursor = cursor(request);
+        if (!sortKeys.contains(cursor.sort())) {
+            throw new IllegalArgumentException("Unsupported sort property: " + cursor.sort());
+        }
+        boolean ascending = cursor.direction().isAscending();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(resultType);
+        Root<T> root = query.from(type);
+        Path<Long> id = root.get(ID);
+        Path<Comparable<Object>> key = root.get(cursor.sort());
+
+        List<Predicate> predicates = new ArrayList<>();
+        filters.forEach((path, value) -> predicates.add(cb.equal(resolve(root, path), value)));
+
+        if (cursor.lastId() != null) {
+            Predicate afterId = ascending ? cb.greaterThan(id, cursor.lastId()) : cb.lessThan(id, cursor.lastId());
+            if (ID.equals(cursor.sort())) {
+                predicates.add(afterId);
+            } else {
+                @SuppressWarnings("unchecked")
+                Comparable<Object> lastKey = (Comparable<Object>) DefaultConversionService.getSharedInstance()
+                        .convert(cursor.lastKey(), key.getJavaType());
+                Predicate afterKey = ascending ? cb.greaterThan(key, lastKey) : cb.lessThan(key, lastKey);
+                predicates.add(cb.or(afterKey, cb.and(cb.equal(key, lastKey), afterId)));
+            }
+        }
+
+        query.select(selection.apply(cb, root)).where(predicates.toArray(Predicate[]::new));
+        if (ID.equals(cursor.sort())) {
+            query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+        } else {
+            query.orderBy(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(id) : cb.desc(id));
+        }
+
+        int limit = request.limit();
+        TypedQuery<R> typedQuery = entityManager.createQuery(query)
+                .setMaxResults(limit + 1);
+        if (entityGraph != null) {
+            typedQuery.setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, entityManager.getEntityGraph(entityGraph));
+        }
+        List<R> rows = typedQuery.getResultList();
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+
+        List<R> page = new ArrayList<>(rows.subList(0, limit));
+        var last = PropertyAccessorFactory.forBeanPropertyAccess(page.get(limit - 1));
+        Cursor next = new Cursor(cursor.sort(), cursor.direction(),
+                String.valueOf(last.getPropertyValue(cursor.sort())),
+                (Long) last.getPropertyValue(ID));
+        return new CursorPage<>(page, next.encode());
+    }
+
+    private static Cursor cursor(CursorRequest request) {
+        return request.getCursor() != null && !request.getCursor().isBlank()
+                ? Cursor.decode(request.getCursor())
+                : new Cursor(request.getSort(), Sort.Direction.fromString(request.getDirection()), null, null);
+    }
+
+    private static Path<Object> resolve(Root<?> root, String path) {
+        Path<Object> result = null;
+        for (String part : path.split("\\.")) {
+            result = result == null ? root.get(part) : result.get(part);
+        }
+        return result;
+    }
+
+    private record Cursor(String sort, Sort.Direction direction, String lastKey, Long lastId) {
+        String encode() {
+            String raw = sort + SEPARATOR + direction + SEPARATOR + lastId + SEPARATOR + lastKey;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split(SEPARATOR, 4);
+                return new Cursor(parts[0], Sort.Direction.fromString(parts[1]), parts[3], Long.valueOf(parts[2]));
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Invalid page cursor", ex);
+            }
+        }
+    }
+}
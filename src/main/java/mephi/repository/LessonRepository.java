@@ -2,11 +2,53 @@ package mephi.repository;
 
 import mephi.entity.Lesson;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
     List<Lesson> findByModuleId(Long moduleId);
+
+    @Query("select l from Lesson l where l.module.course.id = :courseId order by l.orderIndex, l.id")
+    List<Lesson> findTreeByCourseId(Long courseId);
+
+    @Query("select l.module.course.id from Lesson l where l.id = :id")
+    Optional<Long> findCourseIdById(Long id);
+
+    @Query("select l.id from Lesson l where l.module.id = :moduleId")
+    List<Long> findIdsByModuleId(Long moduleId);
+
+    @Query("select l.id as lessonId, l.progressSlot as slot from Lesson l " +
+            "where l.module.course.id = :courseId and l.progressSlot is not null")
+    List<SlotRow> findSlotsByCourseId(Long courseId);
+
+    /** Lessons created before progress tracking, in course tree order. */
+    @Query("select l from Lesson l join fetch l.module m where l.progressSlot is null " +
+            "order by m.course.id, m.orderIndex, m.id, l.orderIndex, l.id")
+    List<Lesson> findWithoutProgressSlot();
+
+    @Query("select min(l.id) from Lesson l")
+    Long findMinId();
+
+    @Query("select max(l.id) from Lesson l")
+    Long findMaxId();
+
+    @Query("select l.id as id, l.title as title, l.content as content, l.module.course.id as courseId " +
+            "from Lesson l where l.id between :fromId and :toId")
+    List<SearchRow> findSearchRows(Long fromId, Long toId);
+
+    interface SlotRow {
+        Long getLessonId();
+        Integer getSlot();
+    }
+
+    interface SearchRow {
+        Long getId();
+        String getTitle();
+        String getContent();
+        Long getCourseId();
+    }
 }
@@ -1,11 +1,22 @@
 package mephi.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ModuleRepository extends JpaRepository<mephi.entity.Module, Long> {
+    // the quiz is an inverse one-to-one, loaded per module unless fetched with the modules
+    @EntityGraph(attributePaths = "quiz")
     public List<mephi.entity.Module> findByCourseId(Long id);
+
+    @Query("select m from Module m left join fetch m.quiz where m.course.id = :courseId order by m.orderIndex, m.id")
+    List<mephi.entity.Module> findTreeByCourseId(Long courseId);
+
+    @Query("select m.course.id from Module m where m.id = :id")
+    Optional<Long> findCourseIdById(Long id);
 }
@@ -2,11 +2,19 @@ package mephi.repository;
 
 import mephi.entity.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findByQuizId(Long quizId);
+
+    @Query("select distinct q from Question q left join fetch q.options where q.quiz.id = :quizId")
+    List<Question> findByQuizIdWithOptions(Long quizId);
+
+    @Query("select q.quiz.id from Question q where q.id = :id")
+    Optional<Long> findQuizIdById(Long id);
 }
@@ -2,11 +2,23 @@ package mephi.repository;
 
 import mephi.entity.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
     Optional<Quiz> findByModuleId(Long moduleId);
+
+    @Query("select q.version from Quiz q where q.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select q.module.course.id from Quiz q where q.id = :id")
+    Optional<Long> findCourseIdById(Long id);
+
+    @Query("select q.id from Quiz q where q.module.course.id in :courseIds")
+    List<Long> findIdsByCourseIds(Collection<Long> courseIds);
 }
@@ -1,13 +1,53 @@
 package mephi.repository;
 
+import jakarta.persistence.QueryHint;
 import mephi.entity.QuizSubmission;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface QuizSubmissionRepository extends JpaRepository<QuizSubmission, Long> {
     List<QuizSubmission> findByQuizId(Long quizId);
     List<QuizSubmission> findByStudentId(Long studentId);
+
+    /** The student's best graded attempt: highest score, earliest of equal scores. */
+    Optional<QuizSubmission> findFirstByQuizIdAndStudentIdAndScoreNotNullOrderByScoreDescTakenAtAsc(Long quizId,
+                                                                                                  Long studentId);
+
+    /** Graded attempts grouped by quiz and student, each student's best attempt first. */
+    @Query("select s.quiz.id as quizId, s.student.id as studentId, s.score as score, s.takenAt as takenAt " +
+            "from QuizSubmission s where s.score is not null " +
+            "order by s.quiz.id, s.student.id, s.score desc, s.takenAt")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<AttemptRow> streamRankedAttempts();
+
+    @Query("select s.quiz.id as quizId, s.student.id as studentId, s.score as score, s.takenAt as takenAt " +
+            "from QuizSubmission s where s.quiz.id = :quizId and s.score is not null " +
+            "order by s.student.id, s.score desc, s.takenAt")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<AttemptRow> streamRankedAttemptsByQuizId(Long quizId);
+
+    @Query("select count(distinct s.student.id) from QuizSubmission s where s.quiz.id = :quizId and s.score is not null")
+    long countRankedStudentsByQuizId(Long quizId);
+
+    @Query("select distinct s.quiz.id from QuizSubmission s where s.student.id = :studentId")
+    List<Long> findQuizIdsByStudentId(Long studentId);
+
+    interface AttemptRow {
+        Long getQuizId();
+
+        Long getStudentId();
+
+        Double getScore();
+
+        LocalDateTime getTakenAt();
+    }
 }
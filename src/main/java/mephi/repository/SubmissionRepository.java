@@ -1,13 +1,36 @@
 package mephi.repository;
 
+import mephi.dto.SubmissionDto;
 import mephi.entity.Submission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     List<Submission> findByAssignmentId(Long assignmentId);
     List<Submission> findByStudentId(Long studentId);
+
+    @Query("select new mephi.dto.SubmissionDto(s.id, s.assignment.id, s.student.id, s.submittedAt, s.content, " +
+            "s.score, s.feedback) from Submission s where s.student.id = :studentId order by s.id")
+    List<SubmissionDto> findDtosByStudentId(Long studentId);
+
+    @Query("select s.id from Submission s where s.id in :ids")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select s.id as id, s.version as version, a.maxScore as maxScore " +
+            "from Submission s join s.assignment a where s.id in :ids")
+    List<GradeTarget> findGradeTargets(Collection<Long> ids);
+
+    interface GradeTarget {
+        Long getId();
+
+        Long getVersion();
+
+        Integer getMaxScore();
+    }
 }
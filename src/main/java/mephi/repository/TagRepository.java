@@ -1,12 +1,37 @@
 package mephi.repository;
 
+import jakarta.persistence.QueryHint;
+import mephi.dto.TagDto;
 import mephi.entity.Tag;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Tag> findByName(String name);
+
+    @Query("select t.id as tagId, c.id as courseId from Tag t join t.courses c")
+    List<CourseLink> findCourseLinks();
+
+    @Query("select t.id as tagId, c.id as courseId from Tag t join t.courses c where c.id in :courseIds")
+    List<CourseLink> findCourseLinksByCourseIds(Collection<Long> courseIds);
+
+    @Query("select c.id from Tag t join t.courses c where t.id = :tagId")
+    List<Long> findCourseIdsByTagId(Long tagId);
+
+    @Query("select new mephi.dto.TagDto(t.id, t.name) from Tag t join t.courses c where c.id = :courseId order by t.name")
+    List<TagDto> findDtosByCourseId(Long courseId);
+
+    interface CourseLink {
+        Long getTagId();
+        Long getCourseId();
+    }
 }
@@ -0,0 +1,25 @@
+package mephi.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs a cache invalidation now and once more when the surrounding transaction completes,
+ * so a value rebuilt concurrently from not-yet-committed data never outlives the write.
+ */
+final class AfterCompletion {
+    private AfterCompletion() {
+    }
+
+    static void invalidate(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
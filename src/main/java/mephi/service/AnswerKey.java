@@ -0,0 +1,118 @@
+package mephi.service;
+
+import mephi.entity.AnswerOption;
+import mephi.entity.Question;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable answer key of one quiz, compiled from its questions and options.
+ * Each question keeps its option ids sorted and a bitset of the correct positions,
+ * so grading an attempt is a handful of binary searches and bit operations.
+ * <p>
+ * Scoring: a {@code SINGLE_CHOICE} question earns 1 point only when exactly the correct
+ * option is selected. A {@code MULTIPLE_CHOICE} question earns
+ * {@code max(0, (right - wrong) / correct)}, so guessing every option earns nothing.
+ * The quiz score is the percentage of points over all questions, between 0 and {@link #MAX_SCORE}.
+ */
+public final class AnswerKey {
+    public static final double MAX_SCORE = 100.0;
+
+    private final long[] questionIds;
+    private final QuestionKey[] questions;
+
+    private AnswerKey(long[] questionIds, QuestionKey[] questions) {
+        this.questionIds = questionIds;
+        this.questions = questions;
+    }
+
+    public static AnswerKey compile(List<Question> questions) {
+        Question[] sorted = questions.stream()
+                .sorted(Comparator.comparing(Question::getId))
+                .toArray(Question[]::new);
+        long[] questionIds = new long[sorted.length];
+        QuestionKey[] keys = new QuestionKey[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            questionIds[i] = sorted[i].getId();
+            keys[i] = QuestionKey.compile(sorted[i]);
+        }
+        return new AnswerKey(questionIds, keys);
+    }
+
+    public int questionCount() {
+        return questions.length;
+    }
+
+    public double grade(Map<Long, List<Long>> answers) {
+        if (questions.length == 0) {
+            return 0.0;
+        }
+        double points = 0.0;
+        for (var answer : answers.entrySet()) {
+            int index = answer.getKey() == null ? -1 : Arrays.binarySearch(questionIds, answer.getKey());
+            if (index >= 0 && answer.getValue() != null) {
+                points += questions[index].grade(answer.getValue());
+            }
+        }
+        return points * MAX_SCORE / questions.length;
+    }
+
+    private static final class QuestionKey {
+        private final Question.QuestionType type;
+        private final long[] optionIds;
+        private final BitSet correct;
+        private final int correctCount;
+
+        private QuestionKey(Question.QuestionType type, long[] optionIds, BitSet correct) {
+            this.type = type;
+            this.optionIds = optionIds;
+            this.correct = correct;
+            this.correctCount = correct.cardinality();
+        }
+
+        static QuestionKey compile(Question question) {
+            AnswerOption[] options = question.getOptions().stream()
+                    .sorted(Comparator.comparing(AnswerOption::getId))
+                    .toArray(AnswerOption[]::new);
+            long[] optionIds = new long[options.length];
+            BitSet correct = new BitSet(options.length);
+            for (int i = 0; i < options.length; i++) {
+                optionIds[i] = options[i].getId();
+                if (Boolean.TRUE.equals(options[i].getIsCorrect())) {
+                    correct.set(i);
+                }
+            }
+            return new QuestionKey(question.getType(), optionIds, correct);
+        }
+
+        double grade(List<Long> selectedIds) {
+            BitSet selected = new BitSet(optionIds.length);
+            int unknown = 0;
+            for (Long optionId : selectedIds) {
+                int position = optionId == null ? -1 : Arrays.binarySearch(optionIds, optionId);
+                if (position >= 0) {
+                    selected.set(position);
+                } else {
+                    unknown++;
+                }
+            }
+
+            int chosen = selected.cardinality();
+            selected.and(correct);
+            int right = selected.cardinality();
+            int wrong = chosen - right + unknown;
+
+            if (type == Question.QuestionType.MULTIPLE_CHOICE) {
+                if (correctCount == 0) {
+                    return chosen + unknown == 0 ? 1.0 : 0.0;
+                }
+                return Math.max(0.0, (double) (right - wrong) / correctCount);
+            }
+            return right == 1 && wrong == 0 ? 1.0 : 0.0;
+        }
+    }
+}
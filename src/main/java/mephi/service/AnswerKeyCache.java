@@ -0,0 +1,45 @@
+package mephi.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import mephi.entity.Question;
+import mephi.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Compiled {@link AnswerKey} per quiz. A key is built on first use and reused until
+ * a question or option of that quiz changes. At most {@code quiz.answer-key.cache.max-quizzes}
+ * keys are kept, the least recently used evicted first; quizzes without questions, unknown ids
+ * included, are never cached.
+ */
+@Component
+public class AnswerKeyCache {
+    private final QuestionRepository questionRepository;
+    private final LoadingCache<Long, AnswerKey> keys;
+
+    public AnswerKeyCache(QuestionRepository questionRepository,
+                          @Value("${quiz.answer-key.cache.max-quizzes:1000}") int maxQuizzes) {
+        this.questionRepository = questionRepository;
+        this.keys = new LoadingCache<>(maxQuizzes, this::load);
+    }
+
+    /** The key of a quiz with at least one question; {@link EntityNotFoundException} otherwise. */
+    public AnswerKey get(Long quizId) {
+        return keys.get(quizId);
+    }
+
+    public void invalidate(Long quizId) {
+        AfterCompletion.invalidate(() -> keys.invalidate(quizId));
+    }
+
+    private AnswerKey load(Long quizId) {
+        List<Question> questions = questionRepository.findByQuizIdWithOptions(quizId);
+        if (questions.isEmpty()) {
+            // a failed load is not cached
+            throw new EntityNotFoundException("No questions found for quiz id: " + quizId);
+        }
+        return AnswerKey.compile(questions);
+    }
+}
@@ -1,15 +1,16 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import mephi.dto.AnswerOptionDto;
+import mephi.dto.Versioned;
 import mephi.entity.AnswerOption;
 import mephi.entity.Question;
 import mephi.mapper.AnswerOptionMapper;
 import mephi.repository.AnswerOptionRepository;
 import mephi.repository.QuestionRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,6 +22,8 @@ public class AnswerOptionService {
     private final AnswerOptionRepository answerOptionRepository;
     private final QuestionRepository questionRepository;
     private final AnswerOptionMapper answerOptionMapper;
+    private final AnswerKeyCache answerKeyCache;
+    private final QuizVersions quizVersions;
 
     public List<AnswerOptionDto> getAll() {
         return answerOptionRepository.findAll().stream()
@@ -28,10 +31,10 @@ public class AnswerOptionService {
                 .collect(Collectors.toList());
     }
 
-    public AnswerOptionDto getById(Long id) {
+    public Versioned<AnswerOptionDto> getById(Long id) {
         AnswerOption answerOption = answerOptionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("AnswerOption not found with id: " + id));
-        return answerOptionMapper.toDto(answerOption);
+        return new Versioned<>(answerOptionMapper.toDto(answerOption), answerOption.getVersion());
     }
 
     public List<AnswerOptionDto> getByQuestionId(Long questionId) {
@@ -46,14 +49,19 @@ public class AnswerOptionService {
         Question question = questionRepository.findById(answerOptionDto.getQuestionId())
                 .orElseThrow(() -> new EntityNotFoundException("Question not found with id: " + answerOptionDto.getQuestionId()));
         answerOption.setQuestion(question);
+        question.getOptions().add(answerOption);
         AnswerOption saved = answerOptionRepository.save(answerOption);
+        answerKeyCache.invalidate(question.getQuiz().getId());
+        quizVersions.changed(question.getQuiz().getId());
         return answerOptionMapper.toDto(saved);
     }
 
-    public AnswerOptionDto update(Long id, AnswerOptionDto answerOptionDto) {
+    public Versioned<AnswerOptionDto> update(Long id, AnswerOptionDto answerOptionDto, Long expectedVersion) {
         AnswerOption answerOption = answerOptionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("AnswerOption not found with id: " + id));
+        Versions.check("AnswerOption", id, expectedVersion, answerOption.getVersion());
 
+        Long previousQuizId = answerOption.getQuestion().getQuiz().getId();
         answerOption.setText(answerOptionDto.getText());
         answerOption.setIsCorrect(answerOptionDto.getIsCorrect());
 
@@ -63,14 +71,19 @@ public class AnswerOptionService {
             answerOption.setQuestion(question);
         }
 
-        AnswerOption updated = answerOptionRepository.save(answerOption);
-        return answerOptionMapper.toDto(updated);
+        AnswerOption updated = answerOptionRepository.saveAndFlush(answerOption);
+        answerKeyCache.invalidate(previousQuizId);
+        answerKeyCache.invalidate(updated.getQuestion().getQuiz().getId());
+        quizVersions.changed(previousQuizId);
+        quizVersions.changed(updated.getQuestion().getQuiz().getId());
+        return new Versioned<>(answerOptionMapper.toDto(updated), updated.getVersion());
     }
 
     public void delete(Long id) {
-        if (!answerOptionRepository.existsById(id)) {
-            throw new EntityNotFoundException("AnswerOption not found with id: " + id);
-        }
+        Long quizId = answerOptionRepository.findQuizIdById(id)
+                .orElseThrow(() -> new EntityNotFoundException("AnswerOption not found with id: " + id));
         answerOptionRepository.deleteById(id);
+        answerKeyCache.invalidate(quizId);
+        quizVersions.changed(quizId);
     }
 }
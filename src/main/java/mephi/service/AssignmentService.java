@@ -1,15 +1,16 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import mephi.dto.AssignmentDto;
+import mephi.dto.Versioned;
 import mephi.entity.Assignment;
 import mephi.entity.Lesson;
 import mephi.mapper.AssignmentMapper;
 import mephi.repository.AssignmentRepository;
 import mephi.repository.LessonRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,6 +22,7 @@ public class AssignmentService {
     private final AssignmentRepository assignmentRepository;
     private final LessonRepository lessonRepository;
     private final AssignmentMapper assignmentMapper;
+    private final CourseTreeService courseTreeService;
 
     public List<AssignmentDto> getAll() {
         return assignmentRepository.findAll().stream()
@@ -28,10 +30,10 @@ public class AssignmentService {
                 .collect(Collectors.toList());
     }
 
-    public AssignmentDto getById(Long id) {
+    public Versioned<AssignmentDto> getById(Long id) {
         Assignment assignment = assignmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Assignment not found with id: " + id));
-        return assignmentMapper.toDto(assignment);
+        return new Versioned<>(assignmentMapper.toDto(assignment), assignment.getVersion());
     }
 
     public List<AssignmentDto> getByLessonId(Long lessonId) {
@@ -47,13 +49,16 @@ public class AssignmentService {
                 .orElseThrow(() -> new EntityNotFoundException("Lesson not found with id: " + assignmentDto.getLessonId()));
         assignment.setLesson(lesson);
         Assignment saved = assignmentRepository.save(assignment);
+        courseTreeService.invalidate(lesson.getModule().getCourse().getId());
         return assignmentMapper.toDto(saved);
     }
 
-    public AssignmentDto update(Long id, AssignmentDto assignmentDto) {
+    public Versioned<AssignmentDto> update(Long id, AssignmentDto assignmentDto, Long expectedVersion) {
         Assignment assignment = assignmentRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Assignment not found with id: " + id));
+        Versions.check("Assignment", id, expectedVersion, assignment.getVersion());
 
+        Long previousCourseId = assignment.getLesson().getModule().getCourse().getId();
         assignment.setTitle(assignmentDto.getTitle());
         assignment.setDescription(assignmentDto.getDescription());
         assignment.setDueDate(assignmentDto.getDueDate());
@@ -65,14 +70,17 @@ public class AssignmentService {
             assignment.setLesson(lesson);
         }
 
-        Assignment updated = assignmentRepository.save(assignment);
-        return assignmentMapper.toDto(updated);
+        Assignment updated = assignmentRepository.saveAndFlush(assignment);
+        courseTreeService.invalidate(previousCourseId);
+        courseTreeService.invalidate(updated.getLesson().getModule().getCourse().getId());
+        return new Versioned<>(assignmentMapper.toDto(updated), updated.getVersion());
     }
 
     public void delete(Long id) {
         if (!assignmentRepository.existsById(id)) {
             throw new EntityNotFoundException("Assignment not found with id: " + id);
         }
+        assignmentRepository.findCourseIdById(id).ifPresent(courseTreeService::invalidate);
         assignmentRepository.deleteById(id);
     }
 }
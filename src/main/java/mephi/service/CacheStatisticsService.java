@@ -0,0 +1,73 @@
+package mephi.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import mephi.dto.CacheRegionStatsDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hit/miss/put counts per second-level cache region come from Hibernate statistics;
+ * eviction counts come from the JCache statistics MBeans the cache provider registers.
+ */
+@Service
+@RequiredArgsConstructor
+public class CacheStatisticsService {
+    private static final String JCACHE_STATISTICS = "javax.cache:type=CacheStatistics,*";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public List<CacheRegionStatsDto> getRegionStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Long> evictions = loadEvictionCounts();
+
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        List<CacheRegionStatsDto> result = new ArrayList<>();
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            result.add(new CacheRegionStatsDto(
+                    region,
+                    regionStatistics.getHitCount(),
+                    regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(),
+                    evictions.getOrDefault(region, 0L),
+                    regionStatistics.getElementCountInMemory()));
+        }
+        return result;
+    }
+
+    public void clear() {
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear();
+    }
+
+    private static Map<String, Long> loadEvictionCounts() {
+        Map<String, Long> evictions = new HashMap<>();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : server.queryNames(new ObjectName(JCACHE_STATISTICS), null)) {
+                Object count = server.getAttribute(name, "CacheEvictions");
+                if (count instanceof Number number) {
+                    evictions.put(name.getKeyProperty("Cache"), number.longValue());
+                }
+            }
+        } catch (Exception ex) {
+            // statistics MBeans are optional; report zero evictions without them
+        }
+        return evictions;
+    }
+}
@@ -0,0 +1,42 @@
+package mephi.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters of the catalogs clients poll, the source of their ETags. Services call
+ * {@link #changed} on every write that alters what a catalog endpoint returns; the counter is
+ * bumped right away and again when the transaction completes, so a response read before the
+ * commit never carries the version of the committed data. Controllers take the ETag before they
+ * read, and answer {@code If-None-Match} without touching the database.
+ *
+ * <p>The ETag also carries the start time of this instance, so counters that restart at zero
+ * never match an ETag handed out before a restart.
+ */
+@Component
+public class CatalogVersions {
+
+    public enum Catalog {
+        COURSES("courses"),
+        CATEGORIES("categories"),
+        TAGS("tags");
+
+        private final String prefix;
+
+        Catalog(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Catalog.values().length);
+
+    public String etag(Catalog catalog) {
+        return "\"" + catalog.prefix + "-" + epoch + "-" + versions.get(catalog.ordinal()) + "\"";
+    }
+
+    void changed(Catalog catalog) {
+        AfterCompletion.invalidate(() -> versions.incrementAndGet(catalog.ordinal()));
+    }
+}
@@ -1,13 +1,15 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import mephi.dto.CategoryDto;
+import mephi.dto.Versioned;
 import mephi.entity.Category;
 import mephi.mapper.CategoryMapper;
 import mephi.repository.CategoryRepository;
+import mephi.service.CatalogVersions.Catalog;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.ArrayList;
@@ -19,6 +21,7 @@ import java.util.List;
 public class CategoryService {
     private CategoryRepository categoryRepository;
     private CategoryMapper categoryMapper;
+    private CatalogVersions catalogVersions;
 
     public List<CategoryDto> getList() {
         var categories = categoryRepository.findAll();
@@ -30,26 +33,29 @@ public class CategoryService {
         return categoryDtoList;
     }
 
-    public CategoryDto getById(Long id) {
+    public Versioned<CategoryDto> getById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Category not found with id: " + id));
-        return categoryMapper.toDto(category);
+        return new Versioned<>(categoryMapper.toDto(category), category.getVersion());
     }
 
     public CategoryDto createCategory(@RequestBody CategoryDto categoryDto) {
         Category category = categoryMapper.toEntity(categoryDto);
         Category saved = categoryRepository.save(category);
+        catalogVersions.changed(Catalog.CATEGORIES);
         return categoryMapper.toDto(saved);
     }
 
-    public CategoryDto updateCategory(Long id, CategoryDto categoryDto) {
+    public Versioned<CategoryDto> updateCategory(Long id, CategoryDto categoryDto, Long expectedVersion) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Category not found with id: " + id));
+        Versions.check("Category", id, expectedVersion, category.getVersion());
 
         category.setName(categoryDto.getName());
 
-        Category updated = categoryRepository.save(category);
-        return categoryMapper.toDto(updated);
+        Category updated = categoryRepository.saveAndFlush(category);
+        catalogVersions.changed(Catalog.CATEGORIES);
+        return new Versioned<>(categoryMapper.toDto(updated), updated.getVersion());
     }
 
     public void deleteCategory(Long id) {
@@ -57,5 +63,6 @@ public class CategoryService {
             throw new EntityNotFoundException("Category not found with id: " + id);
         }
         categoryRepository.deleteById(id);
+        catalogVersions.changed(Catalog.CATEGORIES);
     }
 }
@@ -0,0 +1,332 @@
+package mephi.service;
+
+import mephi.dto.CourseRecommendationDto;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Students also enrolled in" counts: for every course a sparse row with, per other course, the
+ * number of students enrolled in both, keyed by {@code int} course id without boxing. The top
+ * {@code topK} of every row are kept ranked (count, then lower course id), so related courses
+ * are an array copy and a user's suggestions add up the ranked lists of their courses.
+ * <p>
+ * Students with more than {@code maxCoursesPerUser} courses are kept as users but add no counts:
+ * their pairs grow quadratically and say little about any one course. Deleted courses are only
+ * hidden, and deleted users only lose their suggestions; their counts go with the next rebuild.
+ * <p>
+ * Thread-safe: lookups share a read lock, changes take the write lock.
+ */
+public class CoEnrollmentModel {
+    private static final int[] NONE = new int[0];
+
+    private final int topK;
+    private final int maxCoursesPerUser;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, IntCounts> rows = new HashMap<>();
+    private final Map<Integer, Ranked> ranked = new HashMap<>();
+    private final Map<Long, int[]> userCourses = new HashMap<>();
+    private final RoaringBitmap removed = new RoaringBitmap();
+    private long enrollments;
+
+    public CoEnrollmentModel(int topK, int maxCoursesPerUser) {
+        this.topK = topK;
+        this.maxCoursesPerUser = maxCoursesPerUser;
+    }
+
+    /** Courses of one row, best first, with their counts. */
+    private record Ranked(int[] courses, int[] counts) {
+    }
+
+    public int userCount() {
+        lock.readLock().lock();
+        try {
+            return userCourses.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long enrollmentCount() {
+        lock.readLock().lock();
+        try {
+            return enrollments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Adds a user that is not in the model yet with all of their courses; counts are ranked by {@link #rankAll}. */
+    public void addUser(long userId, int[] courses) {
+        lock.writeLock().lock();
+        try {
+            userCourses.put(userId, courses);
+            enrollments += courses.length;
+            if (courses.length > maxCoursesPerUser) {
+                return;
+            }
+            for (int course : courses) {
+                IntCounts row = row(course);
+                for (int other : courses) {
+                    if (other != course) {
+                        row.add(other, 1);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Takes over the users and counts of a model built from other users; {@code other} is unusable afterwards. */
+    public void merge(CoEnrollmentModel other) {
+        lock.writeLock().lock();
+        try {
+            userCourses.putAll(other.userCourses);
+            enrollments += other.enrollments;
+            other.rows.forEach((course, row) -> {
+                IntCounts mine = rows.putIfAbsent(course, row);
+                if (mine != null) {
+                    row.forEach(mine::add);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rankAll() {
+        lock.writeLock().lock();
+        try {
+            rows.keySet().forEach(this::rank);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** One new enrollment; a repeated one is ignored. */
+    public void enroll(long userId, int course) {
+        lock.writeLock().lock();
+        try {
+            int[] courses = userCourses.getOrDefault(userId, NONE);
+            if (contains(courses, course)) {
+                return;
+            }
+            int[] updated = Arrays.copyOf(courses, courses.length + 1);
+            updated[courses.length] = course;
+            userCourses.put(userId, updated);
+            enrollments++;
+            if (updated.length > maxCoursesPerUser) {
+                return;
+            }
+            IntCounts row = row(course);
+            for (int other : courses) {
+                row.add(other, 1);
+                row(other).add(course, 1);
+                rank(other);
+            }
+            rank(course);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeCourse(int course) {
+        lock.writeLock().lock();
+        try {
+            if (!removed.checkedAdd(course)) {
+                return;
+            }
+            ranked.remove(course);
+            // rows are symmetric: the courses in this row are the ones that may rank it
+            IntCounts row = rows.remove(course);
+            if (row != null) {
+                row.forEach((other, count) -> rank(other));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            userCourses.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Courses most often taken together with the course, at most {@code topK}. */
+    public List<CourseRecommendationDto> related(int course, int limit) {
+        lock.readLock().lock();
+        try {
+            Ranked top = ranked.get(course);
+            if (top == null) {
+                return List.of();
+            }
+            int size = Math.min(limit, top.courses.length);
+            List<CourseRecommendationDto> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(new CourseRecommendationDto((long) top.courses[i], top.counts[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Courses the user is not enrolled in, scored by how often they are taken together with the
+     * user's courses, summed over the ranked lists of those courses.
+     */
+    public List<CourseRecommendationDto> suggest(long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] own = userCourses.getOrDefault(userId, NONE);
+            IntCounts scores = new IntCounts();
+            for (int course : own) {
+                Ranked top = ranked.get(course);
+                if (top == null) {
+                    continue;
+                }
+                for (int i = 0; i < top.courses.length; i++) {
+                    if (!contains(own, top.courses[i])) {
+                        scores.add(top.courses[i], top.counts[i]);
+                    }
+                }
+            }
+            Ranked best = best(scores, limit);
+            List<CourseRecommendationDto> result = new ArrayList<>(best.courses.length);
+            for (int i = 0; i < best.courses.length; i++) {
+                result.add(new CourseRecommendationDto((long) best.courses[i], best.counts[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private IntCounts row(int course) {
+        return rows.computeIfAbsent(course, key -> new IntCounts());
+    }
+
+    private void rank(int course) {
+        IntCounts row = rows.get(course);
+        if (row == null || removed.contains(course)) {
+            return;
+        }
+        Ranked top = best(row, topK);
+        if (top.courses.length == 0) {
+            ranked.remove(course);
+        } else {
+            ranked.put(course, top);
+        }
+    }
+
+    /** The {@code limit} highest counts, ties to the lower course id, skipping removed courses. */
+    private Ranked best(IntCounts counts, int limit) {
+        // count in the high half, inverted course id in the low half: descending order is the ranking
+        long[] entries = new long[counts.size()];
+        int[] size = {0};
+        counts.forEach((course, count) -> {
+            if (!removed.contains(course)) {
+                entries[size[0]++] = ((long) count << 32) | (Integer.MAX_VALUE - course);
+            }
+        });
+        Arrays.sort(entries, 0, size[0]);
+        int length = Math.min(limit, size[0]);
+        int[] courses = new int[length];
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            long entry = entries[size[0] - 1 - i];
+            courses[i] = Integer.MAX_VALUE - (int) entry;
+            values[i] = (int) (entry >>> 32);
+        }
+        return new Ranked(courses, values);
+    }
+
+    private static boolean contains(int[] courses, int course) {
+        for (int value : courses) {
+            if (value == course) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code int} to {@code int} counts with open addressing; keys must be positive. */
+    static final class IntCounts {
+        private int[] keys = new int[8];
+        private int[] counts = new int[8];
+        private int size;
+
+        interface Entry {
+            void accept(int key, int count);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(int key, int delta) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    counts[i] += delta;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            counts[i] = delta;
+            size++;
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return counts[i];
+                }
+            }
+            return 0;
+        }
+
+        void forEach(Entry entry) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    entry.accept(keys[i], counts[i]);
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    add(oldKeys[i], oldCounts[i]);
+                }
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package mephi.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import mephi.dto.CategoryDto;
+import mephi.dto.CourseDetailDto;
+import mephi.dto.CourseDto;
+import mephi.dto.CourseRatingDto;
+import mephi.dto.ModuleDto;
+import mephi.dto.TagDto;
+import mephi.dto.UserDto;
+import mephi.exception.ServiceUnavailableException;
+import mephi.repository.CourseRepository;
+import mephi.repository.CourseRepository.DetailHead;
+import mephi.repository.EnrollmentRepository;
+import mephi.repository.TagRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Course landing page in one call. The course with its teacher and category is one read; the
+ * modules, rating, tags and enrollment count are independent of it and of each other. Each of
+ * the five runs on its own virtual thread in its own short read-only transaction, so the page
+ * costs as much as its slowest part.
+ * <p>
+ * Every part has {@code course.detail.branch-timeout} to finish, including the wait for one of
+ * the {@code course.detail.max-parallel-reads} read slots shared by all pages, which keep the
+ * pages from draining the connection pool. The course itself is required: if it is missing the
+ * page is a 404, if it could not be read in time a 503. Any other part that fails or runs late
+ * is left out and named in {@code missing}, so a slow reviews query degrades the page instead
+ * of blocking it. Parts still running when the page is returned are cancelled, and their
+ * transaction times out on its own.
+ */
+@Slf4j
+@Service
+public class CourseDetailService {
+    private final CourseRepository courseRepository;
+    private final TagRepository tagRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final ModuleService moduleService;
+    private final CourseRatingService courseRatingService;
+    private final TransactionTemplate readTransaction;
+    private final Duration branchTimeout;
+    private final Semaphore reads;
+    private final ExecutorService branches =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("course-detail-", 0).factory());
+
+    public CourseDetailService(CourseRepository courseRepository, TagRepository tagRepository,
+                               EnrollmentRepository enrollmentRepository, ModuleService moduleService,
+                               CourseRatingService courseRatingService, PlatformTransactionManager transactionManager,
+                               @Value("${course.detail.branch-timeout:500ms}") Duration branchTimeout,
+                               @Value("${course.detail.max-parallel-reads:10}") int maxParallelReads) {
+        this.courseRepository = courseRepository;
+        this.tagRepository = tagRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.moduleService = moduleService;
+        this.courseRatingService = courseRatingService;
+        this.branchTimeout = branchTimeout;
+        this.reads = new Semaphore(maxParallelReads);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        // whole seconds only; a branch abandoned at branchTimeout still gets its statement cancelled
+        this.readTransaction.setTimeout((int) Math.max(1, (branchTimeout.toMillis() + 999) / 1000));
+    }
+
+    public CourseDetailDto getDetail(Long id) {
+        List<Future<?>> started = new ArrayList<>();
+        long deadline = System.nanoTime() + branchTimeout.toNanos();
+        try {
+            Future<Optional<DetailHead>> course = fork(started, deadline, () -> courseRepository.findDetailHeadById(id));
+            Future<List<ModuleDto>> modules = fork(started, deadline, () -> moduleService.getByCourseId(id));
+            Future<CourseRatingDto> rating = fork(started, deadline, () -> courseRatingService.getRating(id));
+            Future<List<TagDto>> tags = fork(started, deadline, () -> tagRepository.findDtosByCourseId(id));
+            Future<Long> enrollments = fork(started, deadline, () -> enrollmentRepository.countByCourseId(id));
+
+            DetailHead head = join("course", course, deadline)
+                    .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + id));
+            CourseDetailDto detail = new CourseDetailDto();
+            detail.setCourse(new CourseDto(head.getId(), head.getTitle(), head.getDescription(), head.getDuration(),
+                    head.getCategoryId(), head.getTeacherId()));
+            if (head.getTeacherId() != null) {
+                detail.setTeacher(new UserDto(head.getTeacherId(), head.getTeacherName(), head.getTeacherEmail(),
+                        head.getTeacherRole(), head.getProfileId(), head.getBio(), head.getAvatarUrl()));
+            }
+            if (head.getCategoryId() != null) {
+                detail.setCategory(new CategoryDto(head.getCategoryId(), head.getCategoryName()));
+            }
+            collect(detail, "modules", modules, deadline, detail::setModules);
+            collect(detail, "rating", rating, deadline, detail::setRating);
+            collect(detail, "tags", tags, deadline, detail::setTags);
+            collect(detail, "enrollmentCount", enrollments, deadline, detail::setEnrollmentCount);
+            return detail;
+        } finally {
+            started.forEach(branch -> branch.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        branches.shutdownNow();
+    }
+
+    private <T> Future<T> fork(List<Future<?>> started, long deadline, Supplier<T> read) {
+        Future<T> branch = branches.submit(() -> {
+            if (!reads.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw new ServiceUnavailableException("No free read slot for the course detail");
+            }
+            try {
+                return readTransaction.execute(status -> read.get());
+            } finally {
+                reads.release();
+            }
+        });
+        started.add(branch);
+        return branch;
+    }
+
+    /** The required part: its failure is the page's failure, and running late makes the page unavailable. */
+    private static <T> T join(String name, Future<T> branch, long deadline) {
+        try {
+            return branch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Could not read course " + name, ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new ServiceUnavailableException("Reading course " + name + " timed out");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while reading course " + name);
+        }
+    }
+
+    private <T> void collect(CourseDetailDto detail, String name, Future<T> branch, long deadline,
+                             Consumer<T> setter) {
+        try {
+            setter.accept(branch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (ExecutionException ex) {
+            log.warn("Course detail part '{}' failed: {}", name, ex.getCause().toString());
+            detail.getMissing().add(name);
+        } catch (TimeoutException ex) {
+            log.warn("Course detail part '{}' did not finish within {}", name, branchTimeout);
+            detail.getMissing().add(name);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            detail.getMissing().add(name);
+        }
+    }
+}
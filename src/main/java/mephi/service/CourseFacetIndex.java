@@ -0,0 +1,267 @@
+package mephi.service;
+
+import mephi.dto.CourseCatalogPageDto;
+import mephi.dto.CourseDto;
+import mephi.dto.TagFacetDto;
+import mephi.entity.Tag;
+import mephi.repository.CourseRepository;
+import mephi.repository.TagRepository;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Course catalog facets: one compressed (Roaring) bitmap of course ids per tag, category and
+ * teacher. Filters combine bitmaps with AND/OR and facet counts are intersection cardinalities,
+ * so a catalog query costs one primary-key lookup for the courses of the returned page and no
+ * joins at all.
+ * <p>
+ * Built when the application starts. Writes that change a course's category, teacher or tags,
+ * or a tag itself, re-read the affected rows once their transaction commits, so the index never
+ * shows uncommitted or rolled-back data. Reloads read and apply under one lock: each of them
+ * starts after its own commit, so whichever runs last has read the latest committed rows.
+ * Course ids are stored as {@code int}s.
+ */
+@Service
+public class CourseFacetIndex {
+    private final CourseRepository courseRepository;
+    private final TagRepository tagRepository;
+    private final TransactionTemplate readTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Held from the read of a reload until it is applied; filters only need {@code lock}. */
+    private final Lock reloadLock = new ReentrantLock();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> byTag = new HashMap<>();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<Long, RoaringBitmap> byTeacher = new HashMap<>();
+    private final Map<Long, String> tagNames = new HashMap<>();
+
+    public CourseFacetIndex(CourseRepository courseRepository, TagRepository tagRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.courseRepository = courseRepository;
+        this.tagRepository = tagRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        // after commit the finished transaction's resources are still bound; read past them
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        reloadLock.lock();
+        try {
+            readTransaction.executeWithoutResult(status -> load());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            byTag.clear();
+            byCategory.clear();
+            byTeacher.clear();
+            tagNames.clear();
+            for (Tag tag : tagRepository.findAll()) {
+                tagNames.put(tag.getId(), tag.getName());
+                byTag.put(tag.getId(), new RoaringBitmap());
+            }
+            courseRepository.findFacetRows().forEach(this::addCourse);
+            tagRepository.findCourseLinks().forEach(this::addLink);
+            all.runOptimize();
+            byTag.values().forEach(RoaringBitmap::runOptimize);
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            byTeacher.values().forEach(RoaringBitmap::runOptimize);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One page of courses matching all given filters, in id order, with the number of matching
+     * courses that carry each tag not already in the filter.
+     *
+     * @param tagIds   tags to filter by; empty for no tag filter
+     * @param matchAll {@code true} if a course needs every tag, {@code false} if any of them will do
+     */
+    public CourseCatalogPageDto filter(Set<Long> tagIds, boolean matchAll, Long categoryId, Long teacherId,
+                                       Long afterId, int limit) {
+        long total;
+        List<Long> pageIds = new ArrayList<>(limit);
+        boolean more;
+        List<TagFacetDto> facets = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = all.clone();
+            if (!tagIds.isEmpty()) {
+                RoaringBitmap[] tagged = tagIds.stream()
+                        .map(tagId -> byTag.getOrDefault(tagId, new RoaringBitmap()))
+                        .toArray(RoaringBitmap[]::new);
+                matches.and(matchAll ? FastAggregation.and(tagged) : FastAggregation.or(tagged));
+            }
+            if (categoryId != null) {
+                matches.and(byCategory.getOrDefault(categoryId, new RoaringBitmap()));
+            }
+            if (teacherId != null) {
+                matches.and(byTeacher.getOrDefault(teacherId, new RoaringBitmap()));
+            }
+            total = matches.getLongCardinality();
+
+            PeekableIntIterator ids = matches.getIntIterator();
+            if (afterId != null) {
+                ids.advanceIfNeeded(bit(afterId) + 1);
+            }
+            while (ids.hasNext() && pageIds.size() < limit) {
+                pageIds.add((long) ids.next());
+            }
+            more = ids.hasNext();
+
+            for (Map.Entry<Long, RoaringBitmap> tag : byTag.entrySet()) {
+                if (tagIds.contains(tag.getKey())) {
+                    continue;
+                }
+                int count = RoaringBitmap.andCardinality(matches, tag.getValue());
+                if (count > 0) {
+                    facets.add(new TagFacetDto(tag.getKey(), tagNames.get(tag.getKey()), count));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        facets.sort(Comparator.comparingLong(TagFacetDto::getCount).reversed()
+                .thenComparing(TagFacetDto::getTagId));
+
+        List<CourseDto> courses = pageIds.isEmpty() ? List.of() : courseRepository.findDtosByIds(pageIds);
+        Long nextAfterId = more ? pageIds.get(pageIds.size() - 1) : null;
+        return new CourseCatalogPageDto(total, courses, nextAfterId, facets);
+    }
+
+    /** Re-reads category, teacher and tags of the courses; courses that no longer exist are dropped. */
+    public void refreshCourses(Collection<Long> courseIds) {
+        if (courseIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(courseIds);
+        refresh(() -> reloadCourses(ids));
+    }
+
+    /** Re-reads the tag's name and courses; a tag that no longer exists is dropped. */
+    public void refreshTag(Long tagId) {
+        refresh(() -> reloadTag(tagId));
+    }
+
+    private void refresh(Runnable reload) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reloadLocked(reload);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reloadLocked(reload);
+            }
+        });
+    }
+
+    private void reloadLocked(Runnable reload) {
+        reloadLock.lock();
+        try {
+            readTransaction.executeWithoutResult(status -> reload.run());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void reloadCourses(List<Long> courseIds) {
+        List<CourseRepository.FacetRow> rows = courseRepository.findFacetRowsByIds(courseIds);
+        List<TagRepository.CourseLink> links = tagRepository.findCourseLinksByCourseIds(courseIds);
+        RoaringBitmap reloaded = new RoaringBitmap();
+        courseIds.forEach(courseId -> reloaded.add(bit(courseId)));
+        lock.writeLock().lock();
+        try {
+            all.andNot(reloaded);
+            removeAll(byTag, reloaded, false);
+            removeAll(byCategory, reloaded, true);
+            removeAll(byTeacher, reloaded, true);
+            rows.forEach(this::addCourse);
+            links.forEach(this::addLink);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reloadTag(Long tagId) {
+        Optional<Tag> tag = tagRepository.findById(tagId);
+        List<Long> courseIds = tag.isPresent() ? tagRepository.findCourseIdsByTagId(tagId) : List.of();
+        RoaringBitmap courses = new RoaringBitmap();
+        courseIds.forEach(courseId -> courses.add(bit(courseId)));
+        lock.writeLock().lock();
+        try {
+            if (tag.isEmpty()) {
+                byTag.remove(tagId);
+                tagNames.remove(tagId);
+            } else {
+                byTag.put(tagId, courses);
+                tagNames.put(tagId, tag.get().getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addCourse(CourseRepository.FacetRow row) {
+        int bit = bit(row.getCourseId());
+        all.add(bit);
+        if (row.getCategoryId() != null) {
+            byCategory.computeIfAbsent(row.getCategoryId(), key -> new RoaringBitmap()).add(bit);
+        }
+        if (row.getTeacherId() != null) {
+            byTeacher.computeIfAbsent(row.getTeacherId(), key -> new RoaringBitmap()).add(bit);
+        }
+    }
+
+    private void addLink(TagRepository.CourseLink link) {
+        byTag.computeIfAbsent(link.getTagId(), key -> new RoaringBitmap()).add(bit(link.getCourseId()));
+    }
+
+    /** Tags stay even when empty, so they still show up once courses are attached. */
+    private static void removeAll(Map<Long, RoaringBitmap> bitmaps, RoaringBitmap removed, boolean dropEmpty) {
+        Iterator<RoaringBitmap> values = bitmaps.values().iterator();
+        while (values.hasNext()) {
+            RoaringBitmap bitmap = values.next();
+            bitmap.andNot(removed);
+            if (dropEmpty && bitmap.isEmpty()) {
+                values.remove();
+            }
+        }
+    }
+
+    private static int bit(Long courseId) {
+        return Math.toIntExact(courseId);
+    }
+}
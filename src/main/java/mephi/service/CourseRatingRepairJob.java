@@ -0,0 +1,62 @@
+package mephi.service;
+
+import lombok.RequiredArgsConstructor;
+import mephi.dto.RatingRepairReportDto;
+import mephi.repository.CourseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Consistency check for course rating aggregates: splits the course id range into partitions
+ * and recomputes them from scratch in parallel, one transaction per partition.
+ */
+@Component
+@RequiredArgsConstructor
+public class CourseRatingRepairJob {
+    private final CourseRatingService courseRatingService;
+    private final CourseRepository courseRepository;
+
+    @Value("${rating.repair.partition-size:1000}")
+    private long partitionSize;
+
+    @Value("${rating.repair.parallelism:4}")
+    private int parallelism;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public RatingRepairReportDto run() {
+        long orphans = courseRatingService.deleteOrphans();
+        Long minId = courseRepository.findMinId();
+        Long maxId = courseRepository.findMaxId();
+        if (minId == null) {
+            return new RatingRepairReportDto(0, orphans, orphans);
+        }
+
+        ExecutorService executor = Workers.newPool("rating-repair", parallelism, virtualThreads);
+        try {
+            List<CompletableFuture<RatingRepairReportDto>> partitions = new ArrayList<>();
+            for (long fromId = minId; fromId <= maxId; fromId += partitionSize) {
+                long from = fromId;
+                long to = Math.min(maxId, fromId + partitionSize - 1);
+                partitions.add(CompletableFuture.supplyAsync(() -> courseRatingService.repairRange(from, to), executor));
+            }
+
+            RatingRepairReportDto report = new RatingRepairReportDto(0, orphans, orphans);
+            for (CompletableFuture<RatingRepairReportDto> partition : partitions) {
+                RatingRepairReportDto result = partition.join();
+                report.setPartitions(report.getPartitions() + result.getPartitions());
+                report.setCoursesChecked(report.getCoursesChecked() + result.getCoursesChecked());
+                report.setCoursesRepaired(report.getCoursesRepaired() + result.getCoursesRepaired());
+            }
+            return report;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package mephi.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import mephi.dto.CourseRatingDto;
+import mephi.dto.CursorPage;
+import mephi.dto.RatingRepairReportDto;
+import mephi.entity.Course;
+import mephi.entity.CourseRating;
+import mephi.repository.CourseRatingRepository;
+import mephi.repository.CourseRepository;
+import mephi.repository.CourseReviewRepository;
+import mephi.repository.KeysetQuery;
+import mephi.request.CursorRequest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the per-course {@link CourseRating} aggregate in step with review writes.
+ * Every change locks the aggregate row, so concurrent reviews of one course are applied one
+ * after another and never lose an increment. A course without an aggregate row yet (a new one,
+ * or one reviewed before aggregates existed) gets the row inserted with "on conflict do nothing"
+ * first, so concurrent first reviews never collide on the key, and recomputed from its reviews.
+ * That insert goes through JDBC: a native DML query run by Hibernate would count as a write to
+ * every table and empty all second-level cache regions on every review.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class CourseRatingService {
+    /** A concurrent creator waits for the first one's commit and then inserts nothing. */
+    private static final String INSERT_IF_ABSENT_SQL = "insert into course_ratings " +
+            "(course_id, review_count, rating_sum, stars1, stars2, stars3, stars4, stars5) " +
+            "values (?, 0, 0, 0, 0, 0, 0, 0) on conflict do nothing";
+
+    private final CourseRatingRepository courseRatingRepository;
+    private final CourseReviewRepository courseReviewRepository;
+    private final CourseRepository courseRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void reviewAdded(Long courseId, int rating) {
+        update(courseId, null, rating);
+    }
+
+    public void reviewChanged(Long courseId, int oldRating, int newRating) {
+        if (oldRating != newRating) {
+            update(courseId, oldRating, newRating);
+        }
+    }
+
+    public void reviewRemoved(Long courseId, int rating) {
+        update(courseId, rating, null);
+    }
+
+    public CourseRatingDto getRating(Long courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + courseId));
+        CourseRating rating = courseRatingRepository.findById(courseId)
+                .orElseGet(() -> new CourseRating(courseId));
+        return toDto(course.getTitle(), rating);
+    }
+
+    /** One page of courses in id order with their ratings, read in one statement. */
+    public CursorPage<CourseRatingDto> getCatalog(CursorRequest page) {
+        int limit = page.limit();
+        // ids start at 1, so the first page reads after 0: an "is null or" condition would keep
+        // PostgreSQL from using the primary key index
+        Long afterId = KeysetQuery.afterId(page);
+        List<CourseRatingRepository.CatalogRow> rows = courseRatingRepository.findCatalog(
+                afterId == null ? 0L : afterId, PageRequest.ofSize(limit + 1));
+        List<CourseRatingDto> result = new ArrayList<>(Math.min(rows.size(), limit));
+        for (CourseRatingRepository.CatalogRow row : rows.subList(0, Math.min(rows.size(), limit))) {
+            long[] histogram = {
+                    valueOf(row.getStars1()), valueOf(row.getStars2()), valueOf(row.getStars3()),
+                    valueOf(row.getStars4()), valueOf(row.getStars5())
+            };
+            long count = valueOf(row.getReviewCount());
+            long sum = valueOf(row.getRatingSum());
+            result.add(new CourseRatingDto(row.getCourseId(), row.getTitle(), count, sum, average(sum, count), histogram));
+        }
+        String nextCursor = rows.size() > limit ? KeysetQuery.nextAfterId(result.get(limit - 1).getCourseId()) : null;
+        return new CursorPage<>(result, nextCursor);
+    }
+
+    /**
+     * Recomputes the aggregates of courses with ids in {@code [fromId, toId]} from their reviews
+     * and overwrites the ones that drifted. The aggregate rows of the range stay locked until the
+     * transaction ends, so review writes in the range wait for the repair instead of racing it.
+     */
+    public RatingRepairReportDto repairRange(Long fromId, Long toId) {
+        Map<Long, CourseRating> actual = new HashMap<>();
+        for (CourseRating rating : courseRatingRepository.findRangeForUpdate(fromId, toId)) {
+            actual.put(rating.getCourseId(), rating);
+        }
+        Map<Long, CourseRating> expected = new HashMap<>();
+        for (CourseReviewRepository.RatingCount count : courseReviewRepository.countRatings(fromId, toId)) {
+            expected.computeIfAbsent(count.getCourseId(), CourseRating::new)
+                    .apply(count.getRating(), count.getReviews());
+        }
+
+        Set<Long> courseIds = new HashSet<>(actual.keySet());
+        courseIds.addAll(expected.keySet());
+        long repaired = 0;
+        for (Long courseId : courseIds) {
+            CourseRating want = expected.getOrDefault(courseId, new CourseRating(courseId));
+            CourseRating have = actual.get(courseId);
+            if (have == null) {
+                courseRatingRepository.save(want);
+                repaired++;
+            } else if (!have.sameAs(want)) {
+                have.copyFrom(want);
+                repaired++;
+            }
+        }
+        return new RatingRepairReportDto(1, courseIds.size(), repaired);
+    }
+
+    /** Drops aggregates of courses that no longer exist; returns how many were dropped. */
+    public long deleteOrphans() {
+        List<Long> orphans = courseRatingRepository.findOrphanIds();
+        courseRatingRepository.deleteAllByIdInBatch(orphans);
+        return orphans.size();
+    }
+
+    public void deleteByCourse(Long courseId) {
+        courseRatingRepository.deleteById(courseId);
+    }
+
+    private void update(Long courseId, Integer removed, Integer added) {
+        // JDBC does not flush the session, so the review change is flushed first
+        courseReviewRepository.flush();
+        boolean created = jdbcTemplate.update(INSERT_IF_ABSENT_SQL, courseId) > 0;
+        CourseRating rating = courseRatingRepository.findForUpdate(courseId).orElseThrow();
+        if (created) {
+            for (CourseReviewRepository.RatingCount count : courseReviewRepository.countRatings(courseId, courseId)) {
+                rating.apply(count.getRating(), count.getReviews());
+            }
+            return;
+        }
+        if (removed != null && CourseRating.isValid(removed)) {
+            rating.apply(removed, -1);
+        }
+        if (added != null && CourseRating.isValid(added)) {
+            rating.apply(added, 1);
+        }
+    }
+
+    private static CourseRatingDto toDto(String title, CourseRating rating) {
+        return new CourseRatingDto(rating.getCourseId(), title, rating.getReviewCount(), rating.getRatingSum(),
+                average(rating.getRatingSum(), rating.getReviewCount()), rating.histogram());
+    }
+
+    private static double average(long sum, long count) {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0L : value;
+    }
+}
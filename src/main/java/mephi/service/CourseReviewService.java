@@ -1,8 +1,11 @@
 package mephi.service;
 
+import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import mephi.dto.CourseReviewDto;
+import mephi.dto.Versioned;
 import mephi.entity.Course;
+import mephi.entity.CourseRating;
 import mephi.entity.CourseReview;
 import mephi.entity.User;
 import mephi.mapper.CourseReviewMapper;
@@ -10,19 +13,23 @@ import mephi.repository.CourseRepository;
 import mephi.repository.CourseReviewRepository;
 import mephi.repository.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
 @AllArgsConstructor
+@Transactional
 public class CourseReviewService {
     private CourseReviewRepository crRep;
     private CourseRepository courseRepository;
     private UserRepository userRepository;
+    private CourseRatingService courseRatingService;
     private CourseReviewMapper crMapper;
 
     public CourseReviewDto createReview(CourseReviewDto crDto) {
+        checkRating(crDto.getRating());
         CourseReview courseReview = crMapper.toEntity(crDto);
         Course course = courseRepository.findById(crDto.getCourseId())
                 .orElseThrow();
@@ -31,9 +38,30 @@ public class CourseReviewService {
         courseReview.setCourse(course);
         courseReview.setUser(user);
         CourseReview saved = crRep.save(courseReview);
+        courseRatingService.reviewAdded(course.getId(), saved.getRating());
         return crMapper.toDto(saved);
     }
 
+    public Versioned<CourseReviewDto> updateReview(Long id, CourseReviewDto crDto, Long expectedVersion) {
+        checkRating(crDto.getRating());
+        CourseReview courseReview = crRep.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Review not found with id: " + id));
+        Versions.check("Review", id, expectedVersion, courseReview.getVersion());
+        int oldRating = courseReview.getRating();
+        courseReview.setRating(crDto.getRating());
+        courseReview.setReview(crDto.getReview());
+        crRep.saveAndFlush(courseReview);
+        courseRatingService.reviewChanged(courseReview.getCourse().getId(), oldRating, courseReview.getRating());
+        return new Versioned<>(crMapper.toDto(courseReview), courseReview.getVersion());
+    }
+
+    public void deleteReview(Long id) {
+        CourseReview courseReview = crRep.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Review not found with id: " + id));
+        crRep.delete(courseReview);
+        courseRatingService.reviewRemoved(courseReview.getCourse().getId(), courseReview.getRating());
+    }
+
     public List<CourseReviewDto> getAllReviewByUser(Long userId) {
         var reviews = crRep.findAllByUserId(userId);
         List<CourseReviewDto> resultList = new ArrayList<>();
@@ -51,4 +79,18 @@ public class CourseReviewService {
         }
         return resultList;
     }
+
+    /** Takes the reviews of a user who is about to be deleted out of the course aggregates. */
+    public void removeReviewsOfUser(Long userId) {
+        for (CourseReview courseReview : crRep.findAllByUserId(userId)) {
+            courseRatingService.reviewRemoved(courseReview.getCourse().getId(), courseReview.getRating());
+        }
+    }
+
+    private static void checkRating(int rating) {
+        if (!CourseRating.isValid(rating)) {
+            throw new IllegalArgumentException("Rating must be between " + CourseRating.MIN_RATING
+                    + " and " + CourseRating.MAX_RATING);
+        }
+    }
 }
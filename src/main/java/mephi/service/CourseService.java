@@ -1,52 +1,65 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import mephi.dto.CourseCatalogPageDto;
 import mephi.dto.CourseDto;
+import mephi.dto.CourseTreeDto;
+import mephi.dto.CursorPage;
+import mephi.dto.ImportErrorDto;
 import mephi.dto.UserDto;
+import mephi.dto.Versioned;
 import mephi.entity.Category;
 import mephi.entity.Course;
 import mephi.entity.User;
 import mephi.mapper.CourseMapper;
-import mephi.mapper.UserMapper;
 import mephi.repository.CategoryRepository;
 import mephi.repository.CourseRepository;
 import mephi.repository.EnrollmentRepository;
+import mephi.repository.KeysetQuery;
+import mephi.repository.QuizRepository;
 import mephi.repository.UserRepository;
+import mephi.request.CursorRequest;
+import mephi.service.CatalogVersions.Catalog;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 @Transactional
 public class CourseService {
+    private static final Set<String> SORT_KEYS = Set.of("id", "title");
+    private static final List<String> DTO_COLUMNS =
+            List.of("id", "title", "description", "duration", "category.id", "teacher.id");
+
     private CourseRepository courseRepository;
     private CategoryRepository categoryRepository;
     private UserRepository userRepository;
     private EnrollmentRepository enrollRepository;
+    private QuizRepository quizRepository;
+    private KeysetQuery keysetQuery;
+    private CourseTreeService courseTreeService;
+    private CourseRatingService courseRatingService;
+    private SearchService searchService;
+    private CourseFacetIndex courseFacetIndex;
     private CourseMapper courseMapper;
-    private UserMapper userMapper;
-
-    private List<Course> findByCategoryId(Long id) {
-        return courseRepository.findByCategoryId(id);
-    }
-
-    public List<CourseDto> getList(Long id) {
-        List<Course> findedCourses;
-        if (id < 0) {
-            findedCourses = courseRepository.findAll();
-        } else {
-            findedCourses = findByCategoryId(id);
-        }
-
-        List<CourseDto> coursesDto = new ArrayList<CourseDto>();
-        for (var course : findedCourses) {
-            coursesDto.add(courseMapper.toDto(course));
-        }
-        return coursesDto;
+    private CatalogVersions catalogVersions;
+    private QuizLeaderboard quizLeaderboard;
+    private QuizVersions quizVersions;
+    private LessonProgressService lessonProgressService;
+    private RecommendationService recommendationService;
+
+    @Transactional(readOnly = true)
+    public CursorPage<CourseDto> getList(Long id, CursorRequest page) {
+        Map<String, Object> filters = id < 0 ? Map.of() : Map.of("category.id", id);
+        return keysetQuery.fetch(Course.class, CourseDto.class, DTO_COLUMNS, page, SORT_KEYS, filters);
     }
 
     public CourseDto createCourse(CourseDto courseDto) {
@@ -60,12 +73,55 @@ public class CourseService {
         course.setTeacher(teacher);
 
         Course savedCourse = courseRepository.save(course);
+        catalogVersions.changed(Catalog.COURSES);
+        searchService.courseSaved(savedCourse);
+        courseFacetIndex.refreshCourses(List.of(savedCourse.getId()));
         return courseMapper.toDto(savedCourse);
     }
 
-    public CourseDto updateCourse(Long id, CourseDto courseDto) {
+    /**
+     * Inserts one chunk of a bulk import. Categories and teachers of the whole chunk are
+     * checked with one query each; rows that reference missing ones are reported, not inserted.
+     */
+    public List<ImportErrorDto> importChunk(List<ImportRow<CourseDto>> rows) {
+        Set<Long> categoryIds = rows.stream()
+                .map(row -> row.getValue().getCategoryId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> teacherIds = rows.stream()
+                .map(row -> row.getValue().getTeacherId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> categories = categoryIds.isEmpty() ? Set.of() : categoryRepository.findExistingIds(categoryIds);
+        Set<Long> teachers = teacherIds.isEmpty() ? Set.of() : userRepository.findExistingIds(teacherIds);
+
+        List<ImportErrorDto> errors = new ArrayList<>();
+        List<Course> courses = new ArrayList<>(rows.size());
+        for (ImportRow<CourseDto> row : rows) {
+            CourseDto courseDto = row.getValue();
+            if (courseDto.getTitle() == null || courseDto.getCategoryId() == null || courseDto.getTeacherId() == null) {
+                errors.add(new ImportErrorDto(row.getRow(), "title, categoryId and teacherId are required"));
+            } else if (!categories.contains(courseDto.getCategoryId())) {
+                errors.add(new ImportErrorDto(row.getRow(), "Category not found with id: " + courseDto.getCategoryId()));
+            } else if (!teachers.contains(courseDto.getTeacherId())) {
+                errors.add(new ImportErrorDto(row.getRow(), "Teacher not found with id: " + courseDto.getTeacherId()));
+            } else {
+                Course course = courseMapper.toEntity(courseDto);
+                course.setCategory(categoryRepository.getReferenceById(courseDto.getCategoryId()));
+                course.setTeacher(userRepository.getReferenceById(courseDto.getTeacherId()));
+                courses.add(course);
+            }
+        }
+        courseRepository.saveAll(courses).forEach(searchService::courseSaved);
+        catalogVersions.changed(Catalog.COURSES);
+        courseFacetIndex.refreshCourses(courses.stream().map(Course::getId).toList());
+        return errors;
+    }
+
+    public Versioned<CourseDto> updateCourse(Long id, CourseDto courseDto, Long expectedVersion) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + id));
+        Versions.check("Course", id, expectedVersion, course.getVersion());
 
         course.setTitle(courseDto.getTitle());
         course.setDescription(courseDto.getDescription());
@@ -83,23 +139,58 @@ public class CourseService {
             course.setTeacher(teacher);
         }
 
-        Course updated = courseRepository.save(course);
-        return courseMapper.toDto(updated);
+        Course updated = courseRepository.saveAndFlush(course);
+        catalogVersions.changed(Catalog.COURSES);
+        courseTreeService.invalidate(id);
+        searchService.courseSaved(updated);
+        courseFacetIndex.refreshCourses(List.of(id));
+        return new Versioned<>(courseMapper.toDto(updated), updated.getVersion());
     }
 
     public void deleteCourse(Long id) {
-        if (!courseRepository.existsById(id)) {
-            throw new EntityNotFoundException("Course not found with id: " + id);
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + id));
+        // Tag owns course_tags
+        course.getTags().forEach(tag -> tag.getCourses().remove(course));
+        List<Long> quizIds = quizRepository.findIdsByCourseIds(List.of(id));
+        courseRepository.delete(course);
+        courseRatingService.deleteByCourse(id);
+        catalogVersions.changed(Catalog.COURSES);
+        courseTreeService.invalidate(id);
+        searchService.courseRemoved(id);
+        courseFacetIndex.refreshCourses(List.of(id));
+        // modules and their quizzes go with the course
+        quizIds.forEach(quizVersions::changed);
+        quizIds.forEach(quizLeaderboard::refreshQuiz);
+        lessonProgressService.courseChanged(id);
+        recommendationService.courseRemoved(id);
+    }
+
+    /**
+     * Courses matching any combination of tags, category and teacher, answered from the
+     * {@link CourseFacetIndex} bitmaps; {@code match} is {@code all} or {@code any} of the tags.
+     */
+    @Transactional(readOnly = true)
+    public CourseCatalogPageDto getCatalog(Set<Long> tagIds, String match, Long categoryId, Long teacherId,
+                                           Long afterId, Integer size) {
+        boolean matchAll;
+        if ("all".equalsIgnoreCase(match)) {
+            matchAll = true;
+        } else if ("any".equalsIgnoreCase(match)) {
+            matchAll = false;
+        } else {
+            throw new IllegalArgumentException("match must be 'all' or 'any', got: " + match);
         }
-        courseRepository.deleteById(id);
+        int limit = new CursorRequest(null, size, "id", "asc").limit();
+        return courseFacetIndex.filter(tagIds == null ? Set.of() : tagIds, matchAll, categoryId, teacherId, afterId, limit);
+    }
+
+    public CourseTreeDto getTree(Long id) {
+        return courseTreeService.getTree(id);
     }
 
+    @Transactional(readOnly = true)
     public List<UserDto> getAllUsersByCourse(Long courseId) {
-        var users = enrollRepository.findUserByCourseId(courseId);
-        List<UserDto> ressultList = new ArrayList<>();
-        for (var item : users) {
-            ressultList.add(userMapper.toDto(item));
-        }
-        return ressultList;
+        return enrollRepository.findUserDtosByCourseId(courseId);
     }
 }
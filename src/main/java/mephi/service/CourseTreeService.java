@@ -0,0 +1,107 @@
+package mephi.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import mephi.dto.CourseTreeDto;
+import mephi.dto.LessonTreeDto;
+import mephi.dto.ModuleTreeDto;
+import mephi.entity.Assignment;
+import mephi.entity.Course;
+import mephi.entity.Lesson;
+import mephi.entity.Module;
+import mephi.mapper.AssignmentMapper;
+import mephi.mapper.CourseMapper;
+import mephi.mapper.CourseTreeMapper;
+import mephi.mapper.LessonMapper;
+import mephi.mapper.ModuleMapper;
+import mephi.mapper.QuizMapper;
+import mephi.repository.AssignmentRepository;
+import mephi.repository.CourseRepository;
+import mephi.repository.LessonRepository;
+import mephi.repository.ModuleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Course → Module → Lesson → Assignment (+ Quiz) tree of one course.
+ * The tree is read with one statement per level, no matter how many nodes it has,
+ * and cached per course until a course, module, lesson, assignment or quiz write evicts it.
+ * At most {@code course.tree.cache.max-courses} trees are kept, the least recently read
+ * evicted first; every caller gets its own copy of the cached tree.
+ */
+@Service
+@Transactional
+public class CourseTreeService {
+    private final CourseRepository courseRepository;
+    private final ModuleRepository moduleRepository;
+    private final LessonRepository lessonRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final CourseMapper courseMapper;
+    private final ModuleMapper moduleMapper;
+    private final LessonMapper lessonMapper;
+    private final AssignmentMapper assignmentMapper;
+    private final QuizMapper quizMapper;
+    private final CourseTreeMapper courseTreeMapper;
+    private final LoadingCache<Long, CourseTreeDto> trees;
+
+    public CourseTreeService(CourseRepository courseRepository, ModuleRepository moduleRepository,
+                             LessonRepository lessonRepository, AssignmentRepository assignmentRepository,
+                             CourseMapper courseMapper, ModuleMapper moduleMapper, LessonMapper lessonMapper,
+                             AssignmentMapper assignmentMapper, QuizMapper quizMapper,
+                             CourseTreeMapper courseTreeMapper,
+                             @Value("${course.tree.cache.max-courses:1000}") int maxCourses) {
+        this.courseRepository = courseRepository;
+        this.moduleRepository = moduleRepository;
+        this.lessonRepository = lessonRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.courseMapper = courseMapper;
+        this.moduleMapper = moduleMapper;
+        this.lessonMapper = lessonMapper;
+        this.assignmentMapper = assignmentMapper;
+        this.quizMapper = quizMapper;
+        this.courseTreeMapper = courseTreeMapper;
+        this.trees = new LoadingCache<>(maxCourses, this::loadTree);
+    }
+
+    public CourseTreeDto getTree(Long courseId) {
+        return courseTreeMapper.copy(trees.get(courseId));
+    }
+
+    public void invalidate(Long courseId) {
+        AfterCompletion.invalidate(() -> trees.invalidate(courseId));
+    }
+
+    private CourseTreeDto loadTree(Long courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + courseId));
+        CourseTreeDto tree = new CourseTreeDto();
+        tree.setCourse(courseMapper.toDto(course));
+
+        Map<Long, ModuleTreeDto> modules = new HashMap<>();
+        for (Module module : moduleRepository.findTreeByCourseId(courseId)) {
+            ModuleTreeDto node = new ModuleTreeDto();
+            node.setModule(moduleMapper.toDto(module));
+            if (module.getQuiz() != null) {
+                node.setQuiz(quizMapper.toDto(module.getQuiz()));
+            }
+            modules.put(module.getId(), node);
+            tree.getModules().add(node);
+        }
+
+        Map<Long, LessonTreeDto> lessons = new HashMap<>();
+        for (Lesson lesson : lessonRepository.findTreeByCourseId(courseId)) {
+            LessonTreeDto node = new LessonTreeDto();
+            node.setLesson(lessonMapper.toDto(lesson));
+            lessons.put(lesson.getId(), node);
+            modules.get(lesson.getModule().getId()).getLessons().add(node);
+        }
+
+        for (Assignment assignment : assignmentRepository.findTreeByCourseId(courseId)) {
+            lessons.get(assignment.getLesson().getId()).getAssignments().add(assignmentMapper.toDto(assignment));
+        }
+        return tree;
+    }
+}
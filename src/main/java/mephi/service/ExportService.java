@@ -0,0 +1,121 @@
+package mephi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import mephi.ExportFormat;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a whole table to an output stream row by row.
+ * Rows are read through a forward-only cursor, mapped to DTOs and written immediately;
+ * the persistence context is cleared every {@code fetchSize} rows so heap use stays flat.
+ * An {@link IOException} from the client side (e.g. an aborted download) ends the cursor
+ * and the transaction right away.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ExportService {
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${export.fetch-size:500}")
+    private int fetchSize;
+
+    public <E, D> void export(Class<E> entityType, Function<E, D> mapper, Class<D> dtoType,
+                              ExportFormat format, OutputStream out, String... columns) throws IOException {
+        String entityName = entityManager.getMetamodel().entity(entityType).getName();
+        try (Stream<E> rows = entityManager.createQuery("select e from " + entityName + " e order by e.id", entityType)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            Iterator<D> dtos = rows.map(new ClearingMapper<>(mapper)).iterator();
+            if (format == ExportFormat.CSV) {
+                writeCsv(dtos, out, columns);
+            } else {
+                writeNdjson(dtos, dtoType, out);
+            }
+        }
+    }
+
+    private <D> void writeNdjson(Iterator<D> dtos, Class<D> dtoType, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(dtoType)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(out))) {
+            generator.setRootValueSeparator(null);
+            while (dtos.hasNext()) {
+                writer.writeValue(generator, dtos.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private <D> void writeCsv(Iterator<D> dtos, OutputStream out, String... columns) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(StreamUtils.nonClosing(out), StandardCharsets.UTF_8))) {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+            while (dtos.hasNext()) {
+                BeanWrapper row = PropertyAccessorFactory.forBeanPropertyAccess(dtos.next());
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeCsvValue(writer, row.getPropertyValue(columns[i]));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private class ClearingMapper<E, D> implements Function<E, D> {
+        private final Function<E, D> mapper;
+        private int count;
+
+        ClearingMapper(Function<E, D> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public D apply(E entity) {
+            D dto = mapper.apply(entity);
+            if (++count % fetchSize == 0) {
+                entityManager.clear();
+            }
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package mephi.service;
+
+import lombok.Value;
+
+/**
+ * One parsed input row of a bulk import and its 1-based position in the input.
+ */
+@Value
+public class ImportRow<T> {
+    long row;
+    T value;
+}
@@ -0,0 +1,242 @@
+package mephi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import mephi.ExportFormat;
+import mephi.dto.ImportErrorDto;
+import mephi.dto.ImportReportDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads a bulk import (NDJSON or CSV with a header line) row by row and hands it to a writer
+ * in chunks of {@code chunkSize} rows. The writer is expected to be a transactional service
+ * method, so every chunk commits on its own and reports per-row errors instead of failing.
+ * If a chunk rolls back, the import stops; {@link ImportReportDto#getChunksCommitted()} tells
+ * the client where to resume with {@code skipChunks}.
+ * <p>
+ * This service is deliberately not transactional: a surrounding transaction would turn the
+ * whole import back into one unit of work.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportService {
+    private final ObjectMapper objectMapper;
+
+    @Value("${import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public <T> ImportReportDto importRows(InputStream in, ExportFormat format, Class<T> rowType, int skipChunks,
+                                          Function<List<ImportRow<T>>, List<ImportErrorDto>> writer) throws IOException {
+        if (skipChunks < 0) {
+            throw new IllegalArgumentException("skipChunks must not be negative");
+        }
+        ImportReportDto report = new ImportReportDto();
+        report.setChunkSize(chunkSize);
+        report.setChunksCommitted(skipChunks);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowReader<T> rows = format == ExportFormat.CSV
+                ? new CsvRowReader<>(reader, rowType)
+                : new NdjsonRowReader<>(reader, rowType);
+        long skipRows = (long) skipChunks * chunkSize;
+
+        List<ImportRow<T>> chunk = new ArrayList<>(chunkSize);
+        List<ImportErrorDto> malformed = new ArrayList<>();
+        long rowNumber = 0;
+        while (rows.advance()) {
+            rowNumber++;
+            if (rowNumber <= skipRows) {
+                continue;
+            }
+            try {
+                chunk.add(new ImportRow<>(rowNumber, rows.convert()));
+            } catch (Exception ex) {
+                malformed.add(new ImportErrorDto(rowNumber, "Malformed row: " + ex.getMessage()));
+            }
+            if (rowNumber % chunkSize == 0) {
+                if (!writeChunk(chunk, malformed, writer, report, rowNumber)) {
+                    // a chunk past the skipped ones was read, so all of them were
+                    report.setRowsSkipped(skipRows);
+                    return report;
+                }
+                chunk.clear();
+                malformed.clear();
+            }
+        }
+        report.setRowsRead(rowNumber);
+        report.setRowsSkipped(Math.min(rowNumber, skipRows));
+        if ((!chunk.isEmpty() || !malformed.isEmpty()) && !writeChunk(chunk, malformed, writer, report, rowNumber)) {
+            return report;
+        }
+        report.setCompleted(true);
+        return report;
+    }
+
+    private <T> boolean writeChunk(List<ImportRow<T>> chunk, List<ImportErrorDto> malformed,
+                                   Function<List<ImportRow<T>>, List<ImportErrorDto>> writer,
+                                   ImportReportDto report, long rowNumber) {
+        report.setRowsRead(rowNumber);
+        int chunkIndex = (int) ((rowNumber - 1) / chunkSize);
+        List<ImportErrorDto> rejected;
+        try {
+            rejected = chunk.isEmpty() ? List.of() : writer.apply(chunk);
+        } catch (RuntimeException ex) {
+            addError(report, new ImportErrorDto((long) chunkIndex * chunkSize + 1,
+                    "Chunk " + chunkIndex + " rolled back: " + ex.getMessage()));
+            return false;
+        }
+        report.setRowsImported(report.getRowsImported() + chunk.size() - rejected.size());
+        report.setRowsFailed(report.getRowsFailed() + malformed.size() + rejected.size());
+        List<ImportErrorDto> errors = new ArrayList<>(malformed);
+        errors.addAll(rejected);
+        errors.sort(Comparator.comparingLong(ImportErrorDto::getRow));
+        errors.forEach(error -> addError(report, error));
+        report.setChunksCommitted(chunkIndex + 1);
+        return true;
+    }
+
+    private void addError(ImportReportDto report, ImportErrorDto error) {
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(error);
+        }
+    }
+
+    private abstract static class RowReader<T> {
+        final BufferedReader reader;
+        final Class<T> rowType;
+
+        RowReader(BufferedReader reader, Class<T> rowType) {
+            this.reader = reader;
+            this.rowType = rowType;
+        }
+
+        /** Moves to the next record; {@code false} at the end of the input. */
+        abstract boolean advance() throws IOException;
+
+        /** Converts the current record; throws if it is malformed. */
+        abstract T convert() throws IOException;
+    }
+
+    private class NdjsonRowReader<T> extends RowReader<T> {
+        private String line;
+
+        NdjsonRowReader(BufferedReader reader, Class<T> rowType) {
+            super(reader, rowType);
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isBlank());
+            return line != null;
+        }
+
+        @Override
+        T convert() throws IOException {
+            return objectMapper.readValue(line, rowType);
+        }
+    }
+
+    private class CsvRowReader<T> extends RowReader<T> {
+        private List<String> header;
+        private List<String> record;
+
+        CsvRowReader(BufferedReader reader, Class<T> rowType) {
+            super(reader, rowType);
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (header == null) {
+                header = nextRecord();
+                if (header == null) {
+                    return false;
+                }
+            }
+            record = nextRecord();
+            return record != null;
+        }
+
+        @Override
+        T convert() {
+            if (record.size() > header.size()) {
+                throw new IllegalArgumentException("expected " + header.size() + " fields, got " + record.size());
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < record.size(); i++) {
+                if (!record.get(i).isEmpty()) {
+                    values.put(header.get(i), record.get(i));
+                }
+            }
+            return objectMapper.convertValue(values, rowType);
+        }
+
+        private List<String> nextRecord() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+            return fields;
+        }
+
+        /** RFC 4180 record: quoted fields may contain commas, doubled quotes and line breaks. */
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
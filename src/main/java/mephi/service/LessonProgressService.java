@@ -0,0 +1,385 @@
+package mephi.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import mephi.dto.CourseProgressDto;
+import mephi.dto.LessonProgressDto;
+import mephi.entity.Lesson;
+import mephi.repository.CourseRepository;
+import mephi.repository.EnrollmentRepository;
+import mephi.repository.EnrollmentRepository.ProgressRow;
+import mephi.repository.LessonRepository;
+import mephi.repository.LessonRepository.SlotRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Lesson progress of enrollments. Every lesson owns one bit of its course (its
+ * {@code progressSlot}, handed out once and never reused); an enrollment stores the bits of the
+ * lessons its student opened as a small {@code progress} bitset, plus the last lesson opened.
+ * <p>
+ * Reads are answered from memory: per course, the enrollments' bitsets with their count of
+ * done lessons and the course totals, loaded on first use and dropped when lessons or
+ * enrollments of the course change, or when more than {@code progress.cache.max-courses}
+ * courses are held (least recently used first). A visit updates that state right away and is coalesced per
+ * enrollment; a flusher thread writes the coalesced visits every {@code progress.flush-interval},
+ * or sooner once {@code progress.batch-size} enrollments wait, in batches of that size. Bits are
+ * only ever set, so the flush ORs them into the stored bitset under a row lock and instances never
+ * overwrite each other's progress. Visits not yet flushed are lost if the process dies.
+ */
+@Slf4j
+@Service
+public class LessonProgressService {
+    private static final String LOCK_SQL =
+            "select id, progress, last_lesson_id, last_activity_at from enrollment where id in (%s) for update";
+    private static final String UPDATE_SQL =
+            "update enrollment set progress = ?, last_lesson_id = ?, last_activity_at = ? where id = ?";
+
+    private final LessonRepository lessonRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseRepository courseRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration flushInterval;
+    private final int batchSize;
+
+    private final LoadingCache<Long, Long> lessonCourses;
+    private final LoadingCache<Long, CourseProgress> courses;
+    private final Map<Long, Visits> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Visits> flushing = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    private volatile Thread flusher;
+
+    public LessonProgressService(LessonRepository lessonRepository, EnrollmentRepository enrollmentRepository,
+                                 CourseRepository courseRepository, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${progress.flush-interval:1s}") Duration flushInterval,
+                                 @Value("${progress.batch-size:500}") int batchSize,
+                                 @Value("${progress.cache.max-courses:1000}") int maxCourses,
+                                 @Value("${progress.cache.max-lessons:100000}") int maxLessons) {
+        this.lessonRepository = lessonRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.courseRepository = courseRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.lessonCourses = new LoadingCache<>(maxLessons, id -> lessonRepository.findCourseIdById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Lesson not found with id: " + id)));
+        this.courses = new LoadingCache<>(maxCourses, this::load);
+    }
+
+    /** Gives lessons created before progress tracking their bits, in course tree order, then starts the flusher. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, List<Lesson>> byCourse = lessonRepository.findWithoutProgressSlot().stream()
+                    .collect(Collectors.groupingBy(lesson -> lesson.getModule().getCourse().getId(),
+                            LinkedHashMap::new, Collectors.toList()));
+            byCourse.forEach(this::assignSlots);
+            if (!byCourse.isEmpty()) {
+                log.info("Assigned progress bits to the lessons of {} courses", byCourse.size());
+            }
+        });
+        flusher = Thread.ofPlatform().name("lesson-progress-flusher").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread thread = flusher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        flush();
+    }
+
+    /**
+     * Gives the lessons, in list order, the next bits of the course. Must run in the transaction
+     * that saves them.
+     */
+    public void assignSlots(Long courseId, List<Lesson> lessons) {
+        if (lessons.isEmpty()) {
+            return;
+        }
+        courseRepository.addLessonSlots(courseId, lessons.size());
+        int slot = courseRepository.findLessonSlotsById(courseId) - lessons.size();
+        for (Lesson lesson : lessons) {
+            lesson.setProgressSlot(slot++);
+        }
+        courseChanged(courseId);
+    }
+
+    /** Lessons or enrollments of the course changed: its progress is re-read on next use. */
+    public void courseChanged(Long courseId) {
+        AfterCompletion.invalidate(() -> courses.invalidate(courseId));
+    }
+
+    /** The lesson moved to another course or was deleted. */
+    public void lessonChanged(Long lessonId) {
+        AfterCompletion.invalidate(() -> lessonCourses.invalidate(lessonId));
+    }
+
+    /** Records that the student opened the lesson; written to the database with the next flush. */
+    public LessonProgressDto visit(Long lessonId, Long userId) {
+        Long courseId = lessonCourses.get(lessonId);
+        CourseProgress course = courses.get(courseId);
+        LessonProgressDto progress;
+        Visits visits;
+        synchronized (course) {
+            Integer slot = course.slots.get(lessonId);
+            if (slot == null) {
+                // moved to another course since it was looked up
+                lessonCourses.invalidate(lessonId);
+                throw new EntityNotFoundException("Lesson " + lessonId + " not found in course " + courseId);
+            }
+            EnrollmentProgress enrollment = enrolled(course, courseId, userId);
+            visits = Visits.of(slot, lessonId, LocalDateTime.now());
+            course.apply(enrollment, visits);
+            pending.merge(enrollment.id, visits, Visits::merge);
+            progress = toDto(courseId, course, enrollment);
+        }
+        // evicted meanwhile and reloaded from a snapshot of pending visits taken before this one
+        CourseProgress current = courses.getIfPresent(courseId);
+        if (current != null && current != course) {
+            synchronized (current) {
+                EnrollmentProgress enrollment = current.byUser.get(userId);
+                if (enrollment != null) {
+                    current.apply(enrollment, visits);
+                }
+            }
+        }
+        Thread thread = flusher;
+        if (thread != null && pending.size() >= batchSize) {
+            LockSupport.unpark(thread);
+        }
+        return progress;
+    }
+
+    public LessonProgressDto getProgress(Long courseId, Long userId) {
+        CourseProgress course = courses.get(courseId);
+        synchronized (course) {
+            return toDto(courseId, course, enrolled(course, courseId, userId));
+        }
+    }
+
+    public CourseProgressDto getCourseProgress(Long courseId) {
+        CourseProgress course = courses.get(courseId);
+        synchronized (course) {
+            int lessons = course.slots.size();
+            int enrollments = course.byUser.size();
+            double average = enrollments == 0 ? 0 : percent(course.completedSum, (long) lessons * enrollments);
+            return new CourseProgressDto(courseId, lessons, enrollments, average, course.completedEnrollments);
+        }
+    }
+
+    /** Writes the coalesced visits, {@code batch-size} enrollments per transaction. */
+    public synchronized void flush() {
+        List<Long> ids = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            Map<Long, Visits> batch = new HashMap<>();
+            for (Long id : ids.subList(from, Math.min(ids.size(), from + batchSize))) {
+                Visits visits = pending.get(id);
+                if (visits != null) {
+                    batch.put(id, visits);
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            // visible in flushing before they leave pending, so a course loaded meanwhile never misses them
+            flushing.putAll(batch);
+            batch.forEach((id, visits) -> pending.remove(id, visits));
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+            } catch (RuntimeException ex) {
+                batch.forEach((id, visits) -> pending.merge(id, visits, Visits::merge));
+                throw ex;
+            } finally {
+                flushing.clear();
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(flushInterval.toNanos());
+            try {
+                flush();
+            } catch (RuntimeException ex) {
+                log.warn("Could not write lesson progress of {} enrollments, retrying: {}", pending.size(),
+                        ex.getMessage());
+            }
+        }
+    }
+
+    /** ORs the visits into the stored bitsets; enrollments deleted meanwhile are skipped. */
+    private void write(Map<Long, Visits> batch) {
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+        jdbcTemplate.query(String.format(LOCK_SQL, placeholders), (RowCallbackHandler) rs -> {
+            long id = rs.getLong(1);
+            Visits visits = batch.get(id);
+            byte[] stored = rs.getBytes(2);
+            BitSet done = stored == null ? new BitSet() : BitSet.valueOf(stored);
+            done.or(visits.slots());
+            Long lastLessonId = visits.lastLessonId();
+            LocalDateTime lastActivityAt = visits.at();
+            Timestamp storedAt = rs.getTimestamp(4);
+            if (storedAt != null && storedAt.toLocalDateTime().isAfter(lastActivityAt)) {
+                long storedLessonId = rs.getLong(3);
+                lastLessonId = rs.wasNull() ? null : storedLessonId;
+                lastActivityAt = storedAt.toLocalDateTime();
+            }
+            updates.add(new Object[]{done.toByteArray(), lastLessonId, Timestamp.valueOf(lastActivityAt), id});
+        }, batch.keySet().toArray());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+    }
+
+    private CourseProgress load(Long courseId) {
+        // unflushed visits first: a flush that commits after that is already in the rows read below
+        Map<Long, Visits> unflushed = new HashMap<>(pending);
+        flushing.forEach((id, visits) -> unflushed.merge(id, visits, Visits::merge));
+        if (!courseRepository.existsById(courseId)) {
+            throw new EntityNotFoundException("Course not found with id: " + courseId);
+        }
+        CourseProgress course = new CourseProgress();
+        for (SlotRow row : lessonRepository.findSlotsByCourseId(courseId)) {
+            course.slots.put(row.getLessonId(), row.getSlot());
+            course.live.set(row.getSlot());
+        }
+        for (ProgressRow row : enrollmentRepository.findProgressByCourseId(courseId)) {
+            EnrollmentProgress enrollment = new EnrollmentProgress(row.getId(), row.getUserId(),
+                    row.getProgress() == null ? new BitSet() : BitSet.valueOf(row.getProgress()),
+                    row.getLastLessonId(), row.getLastActivityAt());
+            course.add(enrollment);
+            Visits visits = unflushed.get(row.getId());
+            if (visits != null) {
+                course.apply(enrollment, visits);
+            }
+        }
+        return course;
+    }
+
+    private static EnrollmentProgress enrolled(CourseProgress course, Long courseId, Long userId) {
+        EnrollmentProgress enrollment = course.byUser.get(userId);
+        if (enrollment == null) {
+            throw new EntityNotFoundException("User " + userId + " is not enrolled in course " + courseId);
+        }
+        return enrollment;
+    }
+
+    private static LessonProgressDto toDto(Long courseId, CourseProgress course, EnrollmentProgress enrollment) {
+        int lessons = course.slots.size();
+        Long resume = enrollment.lastLessonId != null && course.slots.containsKey(enrollment.lastLessonId)
+                ? enrollment.lastLessonId : null;
+        return new LessonProgressDto(enrollment.id, enrollment.userId, courseId, enrollment.completed, lessons,
+                percent(enrollment.completed, lessons), resume, enrollment.lastActivityAt);
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    /** Visits of one enrollment since the last flush. */
+    private record Visits(BitSet slots, Long lastLessonId, LocalDateTime at) {
+        static Visits of(int slot, Long lessonId, LocalDateTime at) {
+            BitSet slots = new BitSet();
+            slots.set(slot);
+            return new Visits(slots, lessonId, at);
+        }
+
+        Visits merge(Visits other) {
+            BitSet union = (BitSet) slots.clone();
+            union.or(other.slots);
+            return other.at.isAfter(at) ? new Visits(union, other.lastLessonId, other.at)
+                    : new Visits(union, lastLessonId, at);
+        }
+    }
+
+    private static final class EnrollmentProgress {
+        private final long id;
+        private final long userId;
+        private final BitSet done;
+        /** Done lessons that still belong to the course. */
+        private int completed;
+        private Long lastLessonId;
+        private LocalDateTime lastActivityAt;
+
+        private EnrollmentProgress(long id, long userId, BitSet done, Long lastLessonId, LocalDateTime lastActivityAt) {
+            this.id = id;
+            this.userId = userId;
+            this.done = done;
+            this.lastLessonId = lastLessonId;
+            this.lastActivityAt = lastActivityAt;
+        }
+    }
+
+    private static final class CourseProgress {
+        /** Lesson id to its bit. */
+        private final Map<Long, Integer> slots = new HashMap<>();
+        /** Bits of the lessons the course still has. */
+        private final BitSet live = new BitSet();
+        private final Map<Long, EnrollmentProgress> byUser = new HashMap<>();
+        private long completedSum;
+        private int completedEnrollments;
+
+        void add(EnrollmentProgress enrollment) {
+            BitSet done = (BitSet) enrollment.done.clone();
+            done.and(live);
+            enrollment.completed = done.cardinality();
+            byUser.put(enrollment.userId, enrollment);
+            completedSum += enrollment.completed;
+            if (isComplete(enrollment)) {
+                completedEnrollments++;
+            }
+        }
+
+        void apply(EnrollmentProgress enrollment, Visits visits) {
+            boolean wasComplete = isComplete(enrollment);
+            for (int slot = visits.slots.nextSetBit(0); slot >= 0; slot = visits.slots.nextSetBit(slot + 1)) {
+                if (!enrollment.done.get(slot)) {
+                    enrollment.done.set(slot);
+                    if (live.get(slot)) {
+                        enrollment.completed++;
+                        completedSum++;
+                    }
+                }
+            }
+            if (!wasComplete && isComplete(enrollment)) {
+                completedEnrollments++;
+            }
+            if (enrollment.lastActivityAt == null || !visits.at.isBefore(enrollment.lastActivityAt)) {
+                enrollment.lastLessonId = visits.lastLessonId;
+                enrollment.lastActivityAt = visits.at;
+            }
+        }
+
+        private boolean isComplete(EnrollmentProgress enrollment) {
+            return !slots.isEmpty() && enrollment.completed == slots.size();
+        }
+    }
+}
@@ -1,37 +1,47 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import mephi.dto.CursorPage;
 import mephi.dto.LessonDto;
+import mephi.dto.Versioned;
 import mephi.entity.Lesson;
 import mephi.entity.Module;
 import mephi.mapper.LessonMapper;
+import mephi.repository.KeysetQuery;
 import mephi.repository.LessonRepository;
 import mephi.repository.ModuleRepository;
+import mephi.request.CursorRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 @Transactional
 public class LessonService {
+    private static final Set<String> SORT_KEYS = Set.of("id", "title");
+
     private final LessonRepository lessonRepository;
     private final ModuleRepository moduleRepository;
     private final LessonMapper lessonMapper;
+    private final KeysetQuery keysetQuery;
+    private final CourseTreeService courseTreeService;
+    private final SearchService searchService;
+    private final LessonProgressService lessonProgressService;
 
-    public List<LessonDto> getAll() {
-        return lessonRepository.findAll().stream()
-                .map(lessonMapper::toDto)
-                .collect(Collectors.toList());
+    public CursorPage<LessonDto> getAll(CursorRequest page) {
+        return keysetQuery.fetch(Lesson.class, page, SORT_KEYS)
+                .map(lessonMapper::toDto);
     }
 
-    public LessonDto getById(Long id) {
+    public Versioned<LessonDto> getById(Long id) {
         Lesson lesson = lessonRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Lesson not found with id: " + id));
-        return lessonMapper.toDto(lesson);
+        return new Versioned<>(lessonMapper.toDto(lesson), lesson.getVersion());
     }
 
     public List<LessonDto> getByModuleId(Long moduleId) {
@@ -46,14 +56,19 @@ public class LessonService {
         Module module = moduleRepository.findById(lessonDto.getModuleId())
                 .orElseThrow(() -> new EntityNotFoundException("Module not found with id: " + lessonDto.getModuleId()));
         lesson.setModule(module);
+        lessonProgressService.assignSlots(module.getCourse().getId(), List.of(lesson));
         Lesson saved = lessonRepository.save(lesson);
+        courseTreeService.invalidate(module.getCourse().getId());
+        searchService.lessonSaved(saved);
         return lessonMapper.toDto(saved);
     }
 
-    public LessonDto update(Long id, LessonDto lessonDto) {
+    public Versioned<LessonDto> update(Long id, LessonDto lessonDto, Long expectedVersion) {
         Lesson lesson = lessonRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Lesson not found with id: " + id));
+        Versions.check("Lesson", id, expectedVersion, lesson.getVersion());
 
+        Long previousCourseId = lesson.getModule().getCourse().getId();
         lesson.setTitle(lessonDto.getTitle());
         lesson.setContent(lessonDto.getContent());
         lesson.setVideoUrl(lessonDto.getVideoUrl());
@@ -65,14 +80,31 @@ public class LessonService {
             lesson.setModule(module);
         }
 
-        Lesson updated = lessonRepository.save(lesson);
-        return lessonMapper.toDto(updated);
+        Long courseId = lesson.getModule().getCourse().getId();
+        if (!courseId.equals(previousCourseId)) {
+            // bits are per course: the lesson's old bit stays unused there
+            lessonProgressService.assignSlots(courseId, List.of(lesson));
+            lessonProgressService.courseChanged(previousCourseId);
+            lessonProgressService.lessonChanged(id);
+        }
+
+        Lesson updated = lessonRepository.saveAndFlush(lesson);
+        courseTreeService.invalidate(previousCourseId);
+        courseTreeService.invalidate(updated.getModule().getCourse().getId());
+        searchService.lessonSaved(updated);
+        return new Versioned<>(lessonMapper.toDto(updated), updated.getVersion());
     }
 
     public void delete(Long id) {
         if (!lessonRepository.existsById(id)) {
             throw new EntityNotFoundException("Lesson not found with id: " + id);
         }
+        lessonRepository.findCourseIdById(id).ifPresent(courseId -> {
+            courseTreeService.invalidate(courseId);
+            lessonProgressService.courseChanged(courseId);
+        });
         lessonRepository.deleteById(id);
+        lessonProgressService.lessonChanged(id);
+        searchService.lessonsRemoved(List.of(id));
     }
 }
@@ -0,0 +1,99 @@
+package mephi.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Values loaded on first use and kept for at most {@code capacity} keys, the least recently used
+ * evicted first. The first caller that misses a key loads it outside the cache's lock; callers
+ * missing the same key meanwhile wait for that load instead of starting their own. A key
+ * invalidated or evicted while it loads is not cached: its waiting callers still get the value,
+ * the next caller loads it again.
+ */
+final class LoadingCache<K, V> {
+    private final Function<K, V> loader;
+    /** Access-ordered, so the eldest entry is the least recently used one. Guarded by {@code this}. */
+    private final LinkedHashMap<K, CompletableFuture<V>> entries;
+
+    LoadingCache(int capacity, Function<K, V> loader) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.loader = loader;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CompletableFuture<V>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    V get(K key) {
+        CompletableFuture<V> future;
+        boolean load = false;
+        synchronized (this) {
+            future = entries.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                entries.put(key, future);
+                load = true;
+            }
+        }
+        if (!load) {
+            return join(future);
+        }
+        try {
+            V value = loader.apply(key);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            synchronized (this) {
+                entries.remove(key, future);
+            }
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /** The cached value, after waiting for a load in progress; {@code null} if the key is not cached or its load failed. */
+    V getIfPresent(K key) {
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = entries.get(key);
+        }
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            return null;
+        }
+    }
+
+    synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            // the loader's own exception, e.g. EntityNotFoundException for a missing id
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
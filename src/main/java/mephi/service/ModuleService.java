@@ -1,18 +1,24 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import mephi.dto.ModuleDto;
+import mephi.dto.Versioned;
 import mephi.entity.Course;
+import mephi.entity.Lesson;
 import mephi.entity.Module;
+import mephi.entity.Quiz;
 import mephi.mapper.ModuleMapper;
 import mephi.repository.CourseRepository;
+import mephi.repository.LessonRepository;
 import mephi.repository.ModuleRepository;
+import mephi.repository.QuizRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @AllArgsConstructor
@@ -20,7 +26,14 @@ import java.util.List;
 public class ModuleService {
     private ModuleRepository moduleRepository;
     private CourseRepository courseRepository;
+    private LessonRepository lessonRepository;
+    private QuizRepository quizRepository;
     private ModuleMapper moduleMapper;
+    private CourseTreeService courseTreeService;
+    private SearchService searchService;
+    private QuizLeaderboard quizLeaderboard;
+    private QuizVersions quizVersions;
+    private LessonProgressService lessonProgressService;
 
     public List<ModuleDto> getByCourseId(Long id) {
         List<Module> modules = moduleRepository.findByCourseId(id);
@@ -31,10 +44,10 @@ public class ModuleService {
         return resultList;
     }
 
-    public ModuleDto getById(Long id) {
+    public Versioned<ModuleDto> getById(Long id) {
         Module module = moduleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Module not found with id: " + id));
-        return moduleMapper.toDto(module);
+        return new Versioned<>(moduleMapper.toDto(module), module.getVersion());
     }
 
     public ModuleDto createModule(ModuleDto moduleDto) {
@@ -43,13 +56,16 @@ public class ModuleService {
                 .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + moduleDto.getCourseId()));
         module.setCourse(course);
         var saved = moduleRepository.save(module);
+        courseTreeService.invalidate(course.getId());
         return moduleMapper.toDto(saved);
     }
 
-    public ModuleDto updateModule(Long id, ModuleDto moduleDto) {
+    public Versioned<ModuleDto> updateModule(Long id, ModuleDto moduleDto, Long expectedVersion) {
         Module module = moduleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Module not found with id: " + id));
+        Versions.check("Module", id, expectedVersion, module.getVersion());
 
+        Long previousCourseId = module.getCourse().getId();
         module.setTitle(moduleDto.getTitle());
         module.setOrderIndex(moduleDto.getOrderIndex());
         module.setDescription(moduleDto.getDescription());
@@ -60,14 +76,34 @@ public class ModuleService {
             module.setCourse(course);
         }
 
-        Module updated = moduleRepository.save(module);
-        return moduleMapper.toDto(updated);
+        Module updated = moduleRepository.saveAndFlush(module);
+        courseTreeService.invalidate(previousCourseId);
+        courseTreeService.invalidate(updated.getCourse().getId());
+        if (!previousCourseId.equals(updated.getCourse().getId())) {
+            searchService.lessonsMoved(lessonRepository.findIdsByModuleId(id), updated.getCourse().getId());
+            List<Lesson> lessons = lessonRepository.findByModuleId(id);
+            lessonProgressService.assignSlots(updated.getCourse().getId(), lessons);
+            lessonProgressService.courseChanged(previousCourseId);
+            lessons.forEach(lesson -> lessonProgressService.lessonChanged(lesson.getId()));
+        }
+        return new Versioned<>(moduleMapper.toDto(updated), updated.getVersion());
     }
 
     public void deleteModule(Long id) {
         if (!moduleRepository.existsById(id)) {
             throw new EntityNotFoundException("Module not found with id: " + id);
         }
+        moduleRepository.findCourseIdById(id).ifPresent(courseId -> {
+            courseTreeService.invalidate(courseId);
+            lessonProgressService.courseChanged(courseId);
+        });
+        List<Long> lessonIds = lessonRepository.findIdsByModuleId(id);
+        searchService.lessonsRemoved(lessonIds);
+        lessonIds.forEach(lessonProgressService::lessonChanged);
+        Optional<Long> quizId = quizRepository.findByModuleId(id).map(Quiz::getId);
         moduleRepository.deleteById(id);
+        // the module's quiz goes with it
+        quizId.ifPresent(quizVersions::changed);
+        quizId.ifPresent(quizLeaderboard::refreshQuiz);
     }
 }
@@ -1,15 +1,16 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import mephi.dto.QuestionDto;
+import mephi.dto.Versioned;
 import mephi.entity.Question;
 import mephi.entity.Quiz;
 import mephi.mapper.QuestionMapper;
 import mephi.repository.QuestionRepository;
 import mephi.repository.QuizRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,6 +22,8 @@ public class QuestionService {
     private final QuestionRepository questionRepository;
     private final QuizRepository quizRepository;
     private final QuestionMapper questionMapper;
+    private final AnswerKeyCache answerKeyCache;
+    private final QuizVersions quizVersions;
 
     public List<QuestionDto> getAll() {
         return questionRepository.findAll().stream()
@@ -28,10 +31,10 @@ public class QuestionService {
                 .collect(Collectors.toList());
     }
 
-    public QuestionDto getById(Long id) {
+    public Versioned<QuestionDto> getById(Long id) {
         Question question = questionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Question not found with id: " + id));
-        return questionMapper.toDto(question);
+        return new Versioned<>(questionMapper.toDto(question), question.getVersion());
     }
 
     public List<QuestionDto> getByQuizId(Long quizId) {
@@ -46,14 +49,19 @@ public class QuestionService {
         Quiz quiz = quizRepository.findById(questionDto.getQuizId())
                 .orElseThrow(() -> new EntityNotFoundException("Quiz not found with id: " + questionDto.getQuizId()));
         question.setQuiz(quiz);
+        quiz.getQuestions().add(question);
         Question saved = questionRepository.save(question);
+        answerKeyCache.invalidate(quiz.getId());
+        quizVersions.changed(quiz.getId());
         return questionMapper.toDto(saved);
     }
 
-    public QuestionDto update(Long id, QuestionDto questionDto) {
+    public Versioned<QuestionDto> update(Long id, QuestionDto questionDto, Long expectedVersion) {
         Question question = questionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Question not found with id: " + id));
+        Versions.check("Question", id, expectedVersion, question.getVersion());
 
+        Long previousQuizId = question.getQuiz().getId();
         question.setText(questionDto.getText());
         question.setType(questionDto.getType());
 
@@ -63,14 +71,19 @@ public class QuestionService {
             question.setQuiz(quiz);
         }
 
-        Question updated = questionRepository.save(question);
-        return questionMapper.toDto(updated);
+        Question updated = questionRepository.saveAndFlush(question);
+        answerKeyCache.invalidate(previousQuizId);
+        answerKeyCache.invalidate(updated.getQuiz().getId());
+        quizVersions.changed(previousQuizId);
+        quizVersions.changed(updated.getQuiz().getId());
+        return new Versioned<>(questionMapper.toDto(updated), updated.getVersion());
     }
 
     public void delete(Long id) {
-        if (!questionRepository.existsById(id)) {
-            throw new EntityNotFoundException("Question not found with id: " + id);
-        }
+        Long quizId = questionRepository.findQuizIdById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Question not found with id: " + id));
         questionRepository.deleteById(id);
+        answerKeyCache.invalidate(quizId);
+        quizVersions.changed(quizId);
     }
 }
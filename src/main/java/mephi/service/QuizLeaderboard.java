@@ -0,0 +1,247 @@
+package mephi.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import mephi.dto.LeaderboardDto;
+import mephi.dto.LeaderboardEntryDto;
+import mephi.dto.StudentRankDto;
+import mephi.entity.QuizSubmission;
+import mephi.repository.QuizRepository;
+import mephi.repository.QuizSubmissionRepository;
+import mephi.repository.QuizSubmissionRepository.AttemptRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Live quiz leaderboards: each student's best graded attempt per quiz, kept in a
+ * {@link RankedBoard}, so top-N, a student's rank and the page around a student are O(log n)
+ * plus the entries returned.
+ * <p>
+ * Built when the application starts. Every quiz submission write re-reads the best attempt of
+ * that student right away and once more when the transaction completes, so a rolled-back write
+ * is undone on the board as well. A board keeps at most {@code leaderboard.max-entries-per-quiz}
+ * entries; students below them still count as participants but have no rank. When a kept entry
+ * drops out of a full board, the board is re-read from the database.
+ */
+@Service
+public class QuizLeaderboard {
+    static final int MAX_PAGE = 100;
+
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final QuizRepository quizRepository;
+    private final TransactionTemplate readTransaction;
+    private final int capacity;
+    private final Map<Long, Board> boards = new ConcurrentHashMap<>();
+
+    public QuizLeaderboard(QuizSubmissionRepository quizSubmissionRepository, QuizRepository quizRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${leaderboard.max-entries-per-quiz:10000}") int capacity) {
+        this.quizSubmissionRepository = quizSubmissionRepository;
+        this.quizRepository = quizRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        // after completion the finished transaction's resources are still bound; read past them
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.capacity = capacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        readTransaction.executeWithoutResult(status -> {
+            boards.clear();
+            try (Stream<AttemptRow> rows = quizSubmissionRepository.streamRankedAttempts()) {
+                load(rows.iterator());
+            }
+        });
+    }
+
+    public LeaderboardDto top(Long quizId, int limit) {
+        if (limit < 1 || limit > MAX_PAGE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE + ", got: " + limit);
+        }
+        Board board = board(quizId);
+        synchronized (board) {
+            return page(quizId, board, 0, Math.min(limit, board.ranking.size()));
+        }
+    }
+
+    public StudentRankDto rank(Long quizId, Long studentId) {
+        Board board = board(quizId);
+        synchronized (board) {
+            int rank = rankOf(quizId, studentId, board);
+            RankedBoard.Node entry = board.ranking.get(studentId);
+            double percentile = 100.0 * (board.participants - rank + 1) / board.participants;
+            return new StudentRankDto(quizId, studentId, rank, board.participants, percentile, entry.score,
+                    entry.takenAt);
+        }
+    }
+
+    /** The student's entry with up to {@code radius} entries above and below it. */
+    public LeaderboardDto around(Long quizId, Long studentId, int radius) {
+        if (radius < 0 || 2 * radius + 1 > MAX_PAGE) {
+            throw new IllegalArgumentException("radius must be between 0 and " + (MAX_PAGE - 1) / 2 + ", got: " + radius);
+        }
+        Board board = board(quizId);
+        synchronized (board) {
+            int index = rankOf(quizId, studentId, board) - 1;
+            int from = Math.max(0, index - radius);
+            int to = Math.min(board.ranking.size(), index + radius + 1);
+            return page(quizId, board, from, to);
+        }
+    }
+
+    /** Re-reads the best attempt of the student on the quiz. */
+    public void refresh(Long quizId, Long studentId) {
+        afterWrite(() -> reload(quizId, studentId));
+    }
+
+    /** Re-reads the whole quiz; a quiz that no longer exists loses its board. */
+    public void refreshQuiz(Long quizId) {
+        afterWrite(() -> reloadQuiz(quizId));
+    }
+
+    private void afterWrite(Runnable reload) {
+        reload.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    readTransaction.executeWithoutResult(s -> reload.run());
+                }
+            });
+        }
+    }
+
+    private void reload(Long quizId, Long studentId) {
+        Optional<QuizSubmission> best = quizSubmissionRepository
+                .findFirstByQuizIdAndStudentIdAndScoreNotNullOrderByScoreDescTakenAtAsc(quizId, studentId);
+        if (best.isEmpty() && !boards.containsKey(quizId)) {
+            return;
+        }
+        Board board = boards.computeIfAbsent(quizId, id -> new Board());
+        long participants = board.truncated ? quizSubmissionRepository.countRankedStudentsByQuizId(quizId) : 0;
+        boolean incomplete;
+        synchronized (board) {
+            board.ranking.remove(studentId);
+            best.ifPresent(attempt -> board.ranking.put(studentId, attempt.getScore(), attempt.getTakenAt()));
+            if (!board.truncated) {
+                board.participants = board.ranking.size();
+            } else {
+                board.participants = participants;
+            }
+            trim(board);
+            // a kept entry left a full board: the best of the students below it is unknown
+            incomplete = board.truncated && board.ranking.size() < capacity;
+        }
+        if (incomplete) {
+            reloadQuiz(quizId);
+        }
+    }
+
+    private void reloadQuiz(Long quizId) {
+        Board reloaded = new Board();
+        try (Stream<AttemptRow> rows = quizSubmissionRepository.streamRankedAttemptsByQuizId(quizId)) {
+            Iterator<AttemptRow> iterator = rows.iterator();
+            if (!iterator.hasNext() && !quizRepository.existsById(quizId)) {
+                boards.remove(quizId);
+                return;
+            }
+            add(reloaded, iterator);
+        }
+        boards.put(quizId, reloaded);
+    }
+
+    /** Rows ordered by quiz and student, each student's best attempt first. */
+    private void load(Iterator<AttemptRow> rows) {
+        Board board = null;
+        Long quizId = null;
+        Long studentId = null;
+        while (rows.hasNext()) {
+            AttemptRow row = rows.next();
+            if (!row.getQuizId().equals(quizId)) {
+                quizId = row.getQuizId();
+                studentId = null;
+                board = new Board();
+                boards.put(quizId, board);
+            }
+            if (!row.getStudentId().equals(studentId)) {
+                studentId = row.getStudentId();
+                add(board, row);
+            }
+        }
+    }
+
+    /** Rows of one quiz ordered by student, each student's best attempt first. */
+    private void add(Board board, Iterator<AttemptRow> rows) {
+        Long studentId = null;
+        while (rows.hasNext()) {
+            AttemptRow row = rows.next();
+            if (!row.getStudentId().equals(studentId)) {
+                studentId = row.getStudentId();
+                add(board, row);
+            }
+        }
+    }
+
+    private void add(Board board, AttemptRow row) {
+        board.ranking.put(row.getStudentId(), row.getScore(), row.getTakenAt());
+        board.participants++;
+        trim(board);
+    }
+
+    private void trim(Board board) {
+        while (board.ranking.size() > capacity) {
+            board.ranking.remove(board.ranking.at(board.ranking.size() - 1).studentId);
+            board.truncated = true;
+        }
+    }
+
+    private Board board(Long quizId) {
+        Board board = boards.get(quizId);
+        if (board != null) {
+            return board;
+        }
+        if (!quizRepository.existsById(quizId)) {
+            throw new EntityNotFoundException("Quiz not found with id: " + quizId);
+        }
+        return new Board();
+    }
+
+    private int rankOf(Long quizId, Long studentId, Board board) {
+        int rank = board.ranking.rank(studentId);
+        if (rank == 0) {
+            throw new EntityNotFoundException("No ranked attempt of student " + studentId + " on quiz " + quizId
+                    + (board.truncated ? " among the top " + capacity : ""));
+        }
+        return rank;
+    }
+
+    private static LeaderboardDto page(Long quizId, Board board, int from, int to) {
+        List<LeaderboardEntryDto> entries = new ArrayList<>(Math.max(0, to - from));
+        for (int index = from; index < to; index++) {
+            RankedBoard.Node node = board.ranking.at(index);
+            entries.add(new LeaderboardEntryDto(index + 1, node.studentId, node.score, node.takenAt));
+        }
+        return new LeaderboardDto(quizId, board.participants, entries);
+    }
+
+    private static final class Board {
+        private final RankedBoard ranking = new RankedBoard();
+        private long participants;
+        private boolean truncated;
+    }
+}
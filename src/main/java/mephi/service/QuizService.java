@@ -1,37 +1,46 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import mephi.dto.CursorPage;
 import mephi.dto.QuizDto;
+import mephi.dto.Versioned;
 import mephi.entity.Module;
 import mephi.entity.Quiz;
 import mephi.mapper.QuizMapper;
+import mephi.repository.KeysetQuery;
 import mephi.repository.ModuleRepository;
 import mephi.repository.QuizRepository;
+import mephi.request.CursorRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @AllArgsConstructor
 @Transactional
 public class QuizService {
+    private static final Set<String> SORT_KEYS = Set.of("id", "title");
+
     private final QuizRepository quizRepository;
     private final ModuleRepository moduleRepository;
     private final QuizMapper quizMapper;
+    private final KeysetQuery keysetQuery;
+    private final AnswerKeyCache answerKeyCache;
+    private final CourseTreeService courseTreeService;
+    private final QuizLeaderboard quizLeaderboard;
+    private final QuizVersions quizVersions;
 
-    public List<QuizDto> getAll() {
-        return quizRepository.findAll().stream()
-                .map(quizMapper::toDto)
-                .collect(Collectors.toList());
+    public CursorPage<QuizDto> getAll(CursorRequest page) {
+        return keysetQuery.fetch(Quiz.class, page, SORT_KEYS)
+                .map(quizMapper::toDto);
     }
 
-    public QuizDto getById(Long id) {
+    public Versioned<QuizDto> getById(Long id) {
         Quiz quiz = quizRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Quiz not found with id: " + id));
-        return quizMapper.toDto(quiz);
+        return new Versioned<>(quizMapper.toDto(quiz), quiz.getVersion());
     }
 
     public QuizDto getByModuleId(Long moduleId) {
@@ -47,16 +56,22 @@ public class QuizService {
             Module module = moduleRepository.findById(quizDto.getModuleId())
                     .orElseThrow(() -> new EntityNotFoundException("Module not found with id: " + quizDto.getModuleId()));
             quiz.setModule(module);
+            if (module.getQuiz() == null) {
+                module.setQuiz(quiz);
+            }
         }
 
         Quiz saved = quizRepository.save(quiz);
+        invalidateTree(saved.getModule());
         return quizMapper.toDto(saved);
     }
 
-    public QuizDto update(Long id, QuizDto quizDto) {
+    public Versioned<QuizDto> update(Long id, QuizDto quizDto, Long expectedVersion) {
         Quiz quiz = quizRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Quiz not found with id: " + id));
+        Versions.check("Quiz", id, expectedVersion, quiz.getVersion());
 
+        Module previousModule = quiz.getModule();
         quiz.setTitle(quizDto.getTitle());
         quiz.setTimeLimit(quizDto.getTimeLimit());
 
@@ -66,14 +81,27 @@ public class QuizService {
             quiz.setModule(module);
         }
 
-        Quiz updated = quizRepository.save(quiz);
-        return quizMapper.toDto(updated);
+        Quiz updated = quizRepository.saveAndFlush(quiz);
+        quizVersions.changed(id);
+        invalidateTree(previousModule);
+        invalidateTree(updated.getModule());
+        return new Versioned<>(quizMapper.toDto(updated), updated.getVersion());
     }
 
     public void delete(Long id) {
         if (!quizRepository.existsById(id)) {
             throw new EntityNotFoundException("Quiz not found with id: " + id);
         }
+        quizRepository.findCourseIdById(id).ifPresent(courseTreeService::invalidate);
         quizRepository.deleteById(id);
+        quizVersions.changed(id);
+        answerKeyCache.invalidate(id);
+        quizLeaderboard.refreshQuiz(id);
+    }
+
+    private void invalidateTree(Module module) {
+        if (module != null) {
+            courseTreeService.invalidate(module.getCourse().getId());
+        }
     }
 }
@@ -1,41 +1,61 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import mephi.ExportFormat;
+import mephi.dto.CursorPage;
+import mephi.dto.QuizAttemptDto;
 import mephi.dto.QuizSubmissionDto;
+import mephi.dto.Versioned;
 import mephi.entity.Quiz;
 import mephi.entity.QuizSubmission;
 import mephi.entity.User;
 import mephi.mapper.QuizSubmissionMapper;
+import mephi.repository.KeysetQuery;
 import mephi.repository.QuizRepository;
 import mephi.repository.QuizSubmissionRepository;
 import mephi.repository.UserRepository;
+import mephi.request.CursorRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 @Transactional
 public class QuizSubmissionService {
+    private static final Set<String> SORT_KEYS = Set.of("id");
+
     private final QuizSubmissionRepository quizSubmissionRepository;
     private final QuizRepository quizRepository;
     private final UserRepository userRepository;
     private final QuizSubmissionMapper quizSubmissionMapper;
+    private final KeysetQuery keysetQuery;
+    private final ExportService exportService;
+    private final AnswerKeyCache answerKeyCache;
+    private final QuizLeaderboard quizLeaderboard;
 
-    public List<QuizSubmissionDto> getAll() {
-        return quizSubmissionRepository.findAll().stream()
-                .map(quizSubmissionMapper::toDto)
-                .collect(Collectors.toList());
+    public CursorPage<QuizSubmissionDto> getAll(CursorRequest page) {
+        return keysetQuery.fetch(QuizSubmission.class, page, SORT_KEYS)
+                .map(quizSubmissionMapper::toDto);
+    }
+
+    public void export(ExportFormat format, OutputStream out) throws IOException {
+        exportService.export(QuizSubmission.class, quizSubmissionMapper::toDto, QuizSubmissionDto.class, format, out,
+                "id", "quizId", "studentId", "score", "takenAt");
     }
 
-    public QuizSubmissionDto getById(Long id) {
+    public Versioned<QuizSubmissionDto> getById(Long id) {
         QuizSubmission quizSubmission = quizSubmissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("QuizSubmission not found with id: " + id));
-        return quizSubmissionMapper.toDto(quizSubmission);
+        return new Versioned<>(quizSubmissionMapper.toDto(quizSubmission), quizSubmission.getVersion());
     }
 
     public List<QuizSubmissionDto> getByQuizId(Long quizId) {
@@ -52,7 +72,15 @@ public class QuizSubmissionService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Records an attempt without answers. The score is always computed from the answer key, so
+     * a client-supplied one is rejected; answers go to {@link #submitAttempt}.
+     */
     public QuizSubmissionDto create(QuizSubmissionDto quizSubmissionDto) {
+        if (quizSubmissionDto.getScore() != null) {
+            throw new IllegalArgumentException("score is graded on the server, submit answers to /api/quizzes/"
+                    + quizSubmissionDto.getQuizId() + "/attempts");
+        }
         QuizSubmission quizSubmission = quizSubmissionMapper.toEntity(quizSubmissionDto);
 
         Quiz quiz = quizRepository.findById(quizSubmissionDto.getQuizId())
@@ -62,26 +90,50 @@ public class QuizSubmissionService {
 
         quizSubmission.setQuiz(quiz);
         quizSubmission.setStudent(student);
+        // no answers earn no points, whatever the answer key
+        quizSubmission.setScore(0.0);
         quizSubmission.setTakenAt(LocalDateTime.now());
 
         QuizSubmission saved = quizSubmissionRepository.save(quizSubmission);
+        quizLeaderboard.refresh(saved.getQuiz().getId(), saved.getStudent().getId());
         return quizSubmissionMapper.toDto(saved);
     }
 
-    public QuizSubmissionDto update(Long id, QuizSubmissionDto quizSubmissionDto) {
+    public QuizSubmissionDto submitAttempt(Long quizId, QuizAttemptDto attempt) {
+        AnswerKey answerKey = answerKeyCache.get(quizId);
+
+        QuizSubmission quizSubmission = new QuizSubmission();
+        quizSubmission.setQuiz(quizRepository.getReferenceById(quizId));
+        quizSubmission.setStudent(userRepository.getReferenceById(attempt.getStudentId()));
+        quizSubmission.setScore(answerKey.grade(attempt.getAnswers() == null ? Map.of() : attempt.getAnswers()));
+        quizSubmission.setTakenAt(LocalDateTime.now());
+
+        QuizSubmission saved = quizSubmissionRepository.save(quizSubmission);
+        quizLeaderboard.refresh(saved.getQuiz().getId(), saved.getStudent().getId());
+        return quizSubmissionMapper.toDto(saved);
+    }
+
+    /** Sets the score by hand, e.g. a teacher's correction; it has the answer key's scale. */
+    public Versioned<QuizSubmissionDto> update(Long id, QuizSubmissionDto quizSubmissionDto, Long expectedVersion) {
+        Double score = quizSubmissionDto.getScore();
+        if (score == null || score < 0 || score > AnswerKey.MAX_SCORE) {
+            throw new IllegalArgumentException("score must be between 0 and " + AnswerKey.MAX_SCORE + ", got: " + score);
+        }
         QuizSubmission quizSubmission = quizSubmissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("QuizSubmission not found with id: " + id));
+        Versions.check("QuizSubmission", id, expectedVersion, quizSubmission.getVersion());
 
-        quizSubmission.setScore(quizSubmissionDto.getScore());
+        quizSubmission.setScore(score);
 
-        QuizSubmission updated = quizSubmissionRepository.save(quizSubmission);
-        return quizSubmissionMapper.toDto(updated);
+        QuizSubmission updated = quizSubmissionRepository.saveAndFlush(quizSubmission);
+        quizLeaderboard.refresh(updated.getQuiz().getId(), updated.getStudent().getId());
+        return new Versioned<>(quizSubmissionMapper.toDto(updated), updated.getVersion());
     }
 
     public void delete(Long id) {
-        if (!quizSubmissionRepository.existsById(id)) {
-            throw new EntityNotFoundException("QuizSubmission not found with id: " + id);
-        }
-        quizSubmissionRepository.deleteById(id);
+        QuizSubmission quizSubmission = quizSubmissionRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("QuizSubmission not found with id: " + id));
+        quizSubmissionRepository.delete(quizSubmission);
+        quizLeaderboard.refresh(quizSubmission.getQuiz().getId(), quizSubmission.getStudent().getId());
     }
 }
@@ -0,0 +1,35 @@
+package mephi.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import mephi.repository.QuizRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Current {@code @Version} of quizzes, kept in memory so a conditional GET of a quiz is answered
+ * without touching the database. The version is read once per quiz and then kept until a write to
+ * the quiz, its questions or their options calls {@link #changed}; like {@link CatalogVersions},
+ * the entry is dropped right away and again when the transaction completes. At most
+ * {@code quiz.etag.cache.max-quizzes} versions are kept, the least recently used evicted first.
+ * <p>
+ * The version is the quiz's entity ETag, so the tag a GET hands out is also the one a PUT takes
+ * in {@code If-Match}.
+ */
+@Component
+public class QuizVersions {
+    private final LoadingCache<Long, Long> versions;
+
+    public QuizVersions(QuizRepository quizRepository,
+                        @Value("${quiz.etag.cache.max-quizzes:10000}") int maxQuizzes) {
+        this.versions = new LoadingCache<>(maxQuizzes, id -> quizRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Quiz not found with id: " + id)));
+    }
+
+    public long version(Long quizId) {
+        return versions.get(quizId);
+    }
+
+    void changed(Long quizId) {
+        AfterCompletion.invalidate(() -> versions.invalidate(quizId));
+    }
+}
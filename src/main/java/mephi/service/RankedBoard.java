@@ -0,0 +1,188 @@
+package mephi.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * One entry per student, ordered best first: higher score, then earlier attempt, then lower
+ * student id. An order-statistic treap (every node knows the size of its subtree), so insert,
+ * remove, rank and access by position are O(log n) expected. Not thread-safe.
+ */
+final class RankedBoard {
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final SplittableRandom priorities = new SplittableRandom();
+    private Node root;
+
+    static final class Node {
+        final long studentId;
+        final double score;
+        final LocalDateTime takenAt;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long studentId, double score, LocalDateTime takenAt, int priority) {
+            this.studentId = studentId;
+            this.score = score;
+            this.takenAt = takenAt;
+            this.priority = priority;
+        }
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /** Adds the student's entry, replacing the one they had. */
+    void put(long studentId, double score, LocalDateTime takenAt) {
+        remove(studentId);
+        Node node = new Node(studentId, score, takenAt, priorities.nextInt());
+        nodes.put(studentId, node);
+        root = insert(root, node);
+    }
+
+    boolean remove(long studentId) {
+        Node node = nodes.remove(studentId);
+        if (node == null) {
+            return false;
+        }
+        root = erase(root, node);
+        return true;
+    }
+
+    Node get(long studentId) {
+        return nodes.get(studentId);
+    }
+
+    /** 1-based position of the student, or 0 if they have no entry. */
+    int rank(long studentId) {
+        Node node = nodes.get(studentId);
+        if (node == null) {
+            return 0;
+        }
+        int rank = 1;
+        Node current = root;
+        while (current != node) {
+            if (before(node, current)) {
+                current = current.left;
+            } else {
+                rank += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return rank + size(node.left);
+    }
+
+    /** Entry at the 0-based position, or {@code null} past the end. */
+    Node at(int index) {
+        Node current = root;
+        while (current != null) {
+            int leftSize = size(current.left);
+            if (index < leftSize) {
+                current = current.left;
+            } else if (index == leftSize) {
+                return current;
+            } else {
+                index -= leftSize + 1;
+                current = current.right;
+            }
+        }
+        return null;
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            Node[] parts = split(tree, node);
+            node.left = parts[0];
+            node.right = parts[1];
+            update(node);
+            return node;
+        }
+        if (before(node, tree)) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        update(tree);
+        return tree;
+    }
+
+    private static Node erase(Node tree, Node node) {
+        if (tree == node) {
+            return merge(tree.left, tree.right);
+        }
+        if (before(node, tree)) {
+            tree.left = erase(tree.left, node);
+        } else {
+            tree.right = erase(tree.right, node);
+        }
+        update(tree);
+        return tree;
+    }
+
+    /** Splits into the nodes ordered before {@code key} and the rest. */
+    private static Node[] split(Node tree, Node key) {
+        if (tree == null) {
+            return new Node[2];
+        }
+        if (before(tree, key)) {
+            Node[] parts = split(tree.right, key);
+            tree.right = parts[0];
+            update(tree);
+            parts[0] = tree;
+            return parts;
+        }
+        Node[] parts = split(tree.left, key);
+        tree.left = parts[1];
+        update(tree);
+        parts[1] = tree;
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static boolean before(Node a, Node b) {
+        if (a.score != b.score) {
+            return a.score > b.score;
+        }
+        if (a.takenAt != b.takenAt) {
+            if (a.takenAt == null || b.takenAt == null) {
+                return b.takenAt == null;
+            }
+            int byTime = a.takenAt.compareTo(b.takenAt);
+            if (byTime != 0) {
+                return byTime < 0;
+            }
+        }
+        return a.studentId < b.studentId;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
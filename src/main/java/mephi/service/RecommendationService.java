@@ -0,0 +1,178 @@
+package mephi.service;
+
+import mephi.dto.CourseRecommendationDto;
+import mephi.repository.EnrollmentRepository;
+import mephi.repository.EnrollmentRepository.EnrollmentKey;
+import mephi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * "Students also enrolled in" recommendations, answered from the in-memory
+ * {@link CoEnrollmentModel} without touching the database.
+ * <p>
+ * The model is built when the application starts and rebuilt every night: the user id range is
+ * split into partitions whose enrollments are counted in parallel and merged. In between, new
+ * enrollments, deleted courses and deleted users are applied once their transaction commits,
+ * journaled during a rebuild the same way as in {@link SearchService}.
+ */
+@Service
+public class RecommendationService {
+    public static final int MAX_LIMIT = 100;
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final UserRepository userRepository;
+    private final Object rebuildLock = new Object();
+    private final int topK;
+    private final int maxCoursesPerUser;
+    private final long partitionSize;
+    private final int parallelism;
+    private final boolean virtualThreads;
+
+    private volatile CoEnrollmentModel model;
+    /** Changes committed during a rebuild; {@code null} when no rebuild is running. Guarded by {@code this}. */
+    private List<Consumer<CoEnrollmentModel>> journal;
+
+    public RecommendationService(EnrollmentRepository enrollmentRepository, UserRepository userRepository,
+                                 @Value("${recommendations.top-k:20}") int topK,
+                                 @Value("${recommendations.max-courses-per-user:100}") int maxCoursesPerUser,
+                                 @Value("${recommendations.build.partition-size:10000}") long partitionSize,
+                                 @Value("${recommendations.build.parallelism:4}") int parallelism,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.userRepository = userRepository;
+        this.topK = topK;
+        this.maxCoursesPerUser = maxCoursesPerUser;
+        this.partitionSize = partitionSize;
+        this.parallelism = parallelism;
+        this.virtualThreads = virtualThreads;
+        this.model = new CoEnrollmentModel(topK, maxCoursesPerUser);
+    }
+
+    /** Courses most often taken together with the course. */
+    public List<CourseRecommendationDto> getAlsoEnrolled(Long courseId, int limit) {
+        return model.related(Math.toIntExact(courseId), clamp(limit));
+    }
+
+    /** Courses taken by students who share courses with the user, excluding the user's own. */
+    public List<CourseRecommendationDto> getRecommended(Long userId, int limit) {
+        return model.suggest(userId, clamp(limit));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${recommendations.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                journal = new ArrayList<>();
+            }
+            try {
+                CoEnrollmentModel fresh = load();
+                synchronized (this) {
+                    journal.forEach(change -> change.accept(fresh));
+                    model = fresh;
+                }
+            } finally {
+                synchronized (this) {
+                    journal = null;
+                }
+            }
+        }
+    }
+
+    public void enrolled(Long userId, Long courseId) {
+        int course = Math.toIntExact(courseId);
+        afterCommit(target -> target.enroll(userId, course));
+    }
+
+    public void courseRemoved(Long courseId) {
+        int course = Math.toIntExact(courseId);
+        afterCommit(target -> target.removeCourse(course));
+    }
+
+    public void userRemoved(Long userId) {
+        afterCommit(target -> target.removeUser(userId));
+    }
+
+    private void afterCommit(Consumer<CoEnrollmentModel> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private synchronized void apply(Consumer<CoEnrollmentModel> change) {
+        change.accept(model);
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    private CoEnrollmentModel load() {
+        CoEnrollmentModel fresh = new CoEnrollmentModel(topK, maxCoursesPerUser);
+        Long minId = userRepository.findMinId();
+        if (minId == null) {
+            return fresh;
+        }
+        long maxId = userRepository.findMaxId();
+        ExecutorService executor = Workers.newPool("recommendation-build", parallelism, virtualThreads);
+        try {
+            // a user never spans two partitions, so partial models only have to add up their counts
+            List<CompletableFuture<CoEnrollmentModel>> partitions = new ArrayList<>();
+            for (long fromId = minId; fromId <= maxId; fromId += partitionSize) {
+                long from = fromId;
+                partitions.add(CompletableFuture.supplyAsync(() -> partition(from, from + partitionSize - 1), executor));
+            }
+            for (CompletableFuture<CoEnrollmentModel> partition : partitions) {
+                fresh.merge(partition.join());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        fresh.rankAll();
+        return fresh;
+    }
+
+    private CoEnrollmentModel partition(long fromId, long toId) {
+        CoEnrollmentModel partial = new CoEnrollmentModel(topK, maxCoursesPerUser);
+        List<EnrollmentKey> keys = enrollmentRepository.findKeysByUserIdBetween(fromId, toId);
+        int start = 0;
+        for (int i = 1; i <= keys.size(); i++) {
+            if (i == keys.size() || !keys.get(i).getUserId().equals(keys.get(start).getUserId())) {
+                int[] courses = new int[i - start];
+                for (int j = start; j < i; j++) {
+                    courses[j - start] = Math.toIntExact(keys.get(j).getCourseId());
+                }
+                partial.addUser(keys.get(start).getUserId(), Arrays.stream(courses).distinct().toArray());
+                start = i;
+            }
+        }
+        return partial;
+    }
+
+    private static int clamp(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+}
@@ -0,0 +1,351 @@
+package mephi.service;
+
+import mephi.SearchDocumentType;
+import mephi.dto.SearchHitDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over course and lesson texts, ranked with Okapi BM25.
+ * <p>
+ * Every document occupies a slot; slots are handed out in increasing order, so each posting
+ * list stays sorted by slot and a removal is a binary search plus a shift. Removed slots are
+ * reclaimed by compaction once they outnumber the live ones. Title terms count
+ * {@link #TITLE_WEIGHT} times, so a match in the title outranks the same match in the body.
+ * <p>
+ * Thread-safe: queries share a read lock, changes take the write lock.
+ */
+public class SearchIndex {
+    static final int TITLE_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MIN_COMPACTION_SLOTS = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<SearchDocumentType, Map<Long, Integer>> slotsById = new EnumMap<>(SearchDocumentType.class);
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    private SearchDocumentType[] types = new SearchDocumentType[16];
+    private long[] ids = new long[16];
+    private long[] courseIds = new long[16];
+    private String[] titles = new String[16];
+    private int[] lengths = new int[16];
+    private String[][] terms = new String[16][];
+    private int slotCount;
+    private int live;
+    private long totalLength;
+
+    public SearchIndex() {
+        for (SearchDocumentType type : SearchDocumentType.values()) {
+            slotsById.put(type, new HashMap<>());
+        }
+    }
+
+    /** A tokenized document, ready to be put into the index. Safe to build on any thread. */
+    public record Document(SearchDocumentType type, long id, long courseId, String title,
+                           Map<String, Integer> frequencies, int length) {
+    }
+
+    public static Document analyze(SearchDocumentType type, long id, long courseId, String title, String body) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(title)) {
+            frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String token : tokenize(body)) {
+            frequencies.merge(token, 1, Integer::sum);
+            length++;
+        }
+        return new Document(type, id, courseId, title, frequencies, length);
+    }
+
+    /** Lower-cased runs of letters and digits; Cyrillic "yo" is folded into "ye". */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    int lower = Character.toLowerCase(codePoint);
+                    token.appendCodePoint(lower == '\u0451' ? '\u0435' : lower);
+                }
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /** Adds the document, replacing an earlier version of it. */
+    public void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = slotsById.get(document.type()).remove(document.id());
+            if (previous != null) {
+                clearSlot(previous);
+            }
+            int slot = nextSlot();
+            types[slot] = document.type();
+            ids[slot] = document.id();
+            courseIds[slot] = document.courseId();
+            titles[slot] = document.title();
+            lengths[slot] = document.length();
+            String[] slotTerms = document.frequencies().keySet().toArray(String[]::new);
+            terms[slot] = slotTerms;
+            for (String term : slotTerms) {
+                postings.computeIfAbsent(term, key -> new Postings()).add(slot, document.frequencies().get(term));
+            }
+            slotsById.get(document.type()).put(document.id(), slot);
+            live++;
+            totalLength += document.length();
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(SearchDocumentType type, long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(type).remove(id);
+            if (slot != null) {
+                clearSlot(slot);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes the course together with all of its lessons. */
+    public void removeCourse(long courseId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(SearchDocumentType.COURSE).remove(courseId);
+            if (slot != null) {
+                clearSlot(slot);
+            }
+            var lessons = slotsById.get(SearchDocumentType.LESSON).values().iterator();
+            while (lessons.hasNext()) {
+                int lesson = lessons.next();
+                if (courseIds[lesson] == courseId) {
+                    lessons.remove();
+                    clearSlot(lesson);
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Moves lessons to another course without re-tokenizing them (e.g. their module moved). */
+    public void moveLessons(Collection<Long> lessonIds, long courseId) {
+        lock.writeLock().lock();
+        try {
+            for (Long lessonId : lessonIds) {
+                Integer slot = slotsById.get(SearchDocumentType.LESSON).get(lessonId);
+                if (slot != null) {
+                    courseIds[slot] = courseId;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code limit} best BM25 matches of the query, best first. Scores are summed per query
+     * term over the posting lists; the top {@code limit} are kept in a bounded min-heap, so
+     * ranking costs O(matches * log limit) rather than a sort of all matches.
+     *
+     * @param type only documents of this type, or {@code null} for both
+     */
+    public List<SearchHitDto> search(String query, SearchDocumentType type, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            if (live == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / live;
+            double[] scores = new double[slotCount];
+            int[] matched = new int[16];
+            int matchCount = 0;
+            for (String term : queryTerms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (live - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    if (type != null && types[slot] != type) {
+                        continue;
+                    }
+                    int tf = list.frequencies[i];
+                    double norm = K1 * (1 - B + B * lengths[slot] / averageLength);
+                    if (scores[slot] == 0) {
+                        if (matchCount == matched.length) {
+                            matched = Arrays.copyOf(matched, matchCount * 2);
+                        }
+                        matched[matchCount++] = slot;
+                    }
+                    scores[slot] += idf * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1,
+                    (a, b) -> scores[a] != scores[b] ? Double.compare(scores[a], scores[b]) : Integer.compare(b, a));
+            for (int i = 0; i < matchCount; i++) {
+                int slot = matched[i];
+                if (top.size() < limit) {
+                    top.add(slot);
+                } else if (top.comparator().compare(slot, top.peek()) > 0) {
+                    top.poll();
+                    top.add(slot);
+                }
+            }
+            SearchHitDto[] hits = new SearchHitDto[top.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                int slot = top.poll();
+                hits[i] = new SearchHitDto(types[slot], ids[slot], courseIds[slot], titles[slot], scores[slot]);
+            }
+            return List.of(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(SearchDocumentType type) {
+        lock.readLock().lock();
+        try {
+            return slotsById.get(type).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int nextSlot() {
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            types = Arrays.copyOf(types, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            courseIds = Arrays.copyOf(courseIds, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            terms = Arrays.copyOf(terms, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void clearSlot(int slot) {
+        for (String term : terms[slot]) {
+            Postings list = postings.get(term);
+            list.remove(slot);
+            if (list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        live--;
+        totalLength -= lengths[slot];
+        types[slot] = null;
+        titles[slot] = null;
+        terms[slot] = null;
+    }
+
+    /** Renumbers live slots densely; relative order, and so posting order, is preserved. */
+    private void compactIfSparse() {
+        if (slotCount < MIN_COMPACTION_SLOTS || slotCount - live <= live) {
+            return;
+        }
+        int[] renumbered = new int[slotCount];
+        int next = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (types[slot] == null) {
+                continue;
+            }
+            renumbered[slot] = next;
+            types[next] = types[slot];
+            ids[next] = ids[slot];
+            courseIds[next] = courseIds[slot];
+            titles[next] = titles[slot];
+            lengths[next] = lengths[slot];
+            terms[next] = terms[slot];
+            next++;
+        }
+        Arrays.fill(types, next, slotCount, null);
+        Arrays.fill(titles, next, slotCount, null);
+        Arrays.fill(terms, next, slotCount, null);
+        slotCount = next;
+        for (Map<Long, Integer> slots : slotsById.values()) {
+            slots.replaceAll((id, slot) -> renumbered[slot]);
+        }
+        for (Postings list : postings.values()) {
+            for (int i = 0; i < list.size; i++) {
+                list.slots[i] = renumbered[list.slots[i]];
+            }
+        }
+    }
+
+    /** Slots containing one term, in increasing order, with the term frequency in each. */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+            System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package mephi.service;
+
+import lombok.RequiredArgsConstructor;
+import mephi.SearchDocumentType;
+import mephi.dto.SearchHitDto;
+import mephi.dto.SearchIndexStatsDto;
+import mephi.entity.Course;
+import mephi.entity.Lesson;
+import mephi.repository.CourseRepository;
+import mephi.repository.LessonRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Full-text search over course titles/descriptions and lesson titles/contents.
+ * Queries are answered from the in-memory {@link SearchIndex} and never touch the database.
+ * <p>
+ * The index is built when the application starts: the course and lesson id ranges are split
+ * into partitions that are read and tokenized in parallel. After that, course and lesson
+ * services report their writes here and the index is updated once the transaction commits.
+ * Writes that commit while a rebuild is running are journaled and replayed on the new index
+ * before it replaces the old one, so a rebuild never loses them.
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+    public static final int MAX_LIMIT = 100;
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final Object rebuildLock = new Object();
+
+    private volatile SearchIndex index = new SearchIndex();
+    /** Changes committed during a rebuild; {@code null} when no rebuild is running. Guarded by {@code this}. */
+    private List<Consumer<SearchIndex>> journal;
+
+    @Value("${search.build.partition-size:5000}")
+    private long partitionSize;
+
+    @Value("${search.build.parallelism:4}")
+    private int parallelism;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public List<SearchHitDto> search(String query, SearchDocumentType type, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        return index.search(query, type, Math.min(Math.max(limit, 1), MAX_LIMIT));
+    }
+
+    public SearchIndexStatsDto getStats() {
+        SearchIndex current = index;
+        return new SearchIndexStatsDto(current.count(SearchDocumentType.COURSE),
+                current.count(SearchDocumentType.LESSON), current.termCount(), 0);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    public SearchIndexStatsDto rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                journal = new ArrayList<>();
+            }
+            try {
+                SearchIndex fresh = load();
+                synchronized (this) {
+                    journal.forEach(change -> change.accept(fresh));
+                    index = fresh;
+                }
+            } finally {
+                synchronized (this) {
+                    journal = null;
+                }
+            }
+            SearchIndexStatsDto stats = getStats();
+            stats.setBuildMillis(System.currentTimeMillis() - start);
+            return stats;
+        }
+    }
+
+    public void courseSaved(Course course) {
+        SearchIndex.Document document = SearchIndex.analyze(SearchDocumentType.COURSE, course.getId(),
+                course.getId(), course.getTitle(), course.getDescription());
+        afterCommit(target -> target.put(document));
+    }
+
+    public void courseRemoved(Long courseId) {
+        afterCommit(target -> target.removeCourse(courseId));
+    }
+
+    public void lessonSaved(Lesson lesson) {
+        SearchIndex.Document document = SearchIndex.analyze(SearchDocumentType.LESSON, lesson.getId(),
+                lesson.getModule().getCourse().getId(), lesson.getTitle(), lesson.getContent());
+        afterCommit(target -> target.put(document));
+    }
+
+    public void lessonsRemoved(Collection<Long> lessonIds) {
+        List<Long> ids = List.copyOf(lessonIds);
+        afterCommit(target -> ids.forEach(id -> target.remove(SearchDocumentType.LESSON, id)));
+    }
+
+    public void lessonsMoved(Collection<Long> lessonIds, Long courseId) {
+        List<Long> ids = List.copyOf(lessonIds);
+        afterCommit(target -> target.moveLessons(ids, courseId));
+    }
+
+    private void afterCommit(Consumer<SearchIndex> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private synchronized void apply(Consumer<SearchIndex> change) {
+        change.accept(index);
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    private SearchIndex load() {
+        ExecutorService executor = Workers.newPool("search-build", parallelism, virtualThreads);
+        try {
+            List<CompletableFuture<List<SearchIndex.Document>>> partitions = new ArrayList<>();
+            submit(partitions, executor, courseRepository.findMinId(), courseRepository.findMaxId(),
+                    fromId -> courseRepository.findSearchRows(fromId, fromId + partitionSize - 1).stream()
+                            .map(row -> SearchIndex.analyze(SearchDocumentType.COURSE, row.getId(), row.getId(),
+                                    row.getTitle(), row.getDescription()))
+                            .toList());
+            submit(partitions, executor, lessonRepository.findMinId(), lessonRepository.findMaxId(),
+                    fromId -> lessonRepository.findSearchRows(fromId, fromId + partitionSize - 1).stream()
+                            .map(row -> SearchIndex.analyze(SearchDocumentType.LESSON, row.getId(), row.getCourseId(),
+                                    row.getTitle(), row.getContent()))
+                            .toList());
+
+            SearchIndex fresh = new SearchIndex();
+            for (CompletableFuture<List<SearchIndex.Document>> partition : partitions) {
+                partition.join().forEach(fresh::put);
+            }
+            return fresh;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void submit(List<CompletableFuture<List<SearchIndex.Document>>> partitions, ExecutorService executor,
+                        Long minId, Long maxId, LongFunction<List<SearchIndex.Document>> partition) {
+        if (minId == null) {
+            return;
+        }
+        for (long fromId = minId; fromId <= maxId; fromId += partitionSize) {
+            long from = fromId;
+            partitions.add(CompletableFuture.supplyAsync(() -> partition.apply(from), executor));
+        }
+    }
+}
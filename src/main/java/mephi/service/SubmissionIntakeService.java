@@ -0,0 +1,327 @@
+package mephi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import mephi.dto.SubmissionDto;
+import mephi.dto.SubmissionIntakeStatsDto;
+import mephi.dto.SubmissionReceiptDto;
+import mephi.entity.Submission;
+import mephi.exception.QueueFullException;
+import mephi.repository.AssignmentRepository;
+import mephi.repository.SubmissionRepository;
+import mephi.repository.UserRepository;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous submission intake for deadline bursts. {@link #accept} validates a submission,
+ * assigns its id, journals it and queues it, without a database transaction; a single writer
+ * thread drains the queue and stores up to {@code batch-size} submissions per transaction
+ * as one JDBC batch.
+ * <p>
+ * Durability: with {@code fsync} on (the default) a receipt is returned only after the entry
+ * is forced to the local {@link SubmissionJournal}; concurrent requests share one fsync. On
+ * startup, journaled entries missing from the database are stored before the writer starts, so
+ * an acknowledged submission survives a crash of the process, but not the loss of the disk.
+ * With {@code fsync} off an acknowledged submission can be lost in an OS crash. Submissions
+ * whose assignment or student is deleted before they are stored are rejected by the database
+ * and dropped (counted in {@code rejected} and logged).
+ * <p>
+ * Backpressure: at most {@code queue-capacity} submissions are queued or being written;
+ * beyond that {@link #accept} throws {@link QueueFullException} (429).
+ */
+@Slf4j
+@Service
+public class SubmissionIntakeService {
+    private static final String INSERT_SQL =
+            "insert into submissions (id, assignment_id, student_id, submitted_at, content) values (?, ?, ?, ?, ?)";
+    private static final int MAX_KNOWN_IDS = 100_000;
+    private static final long RETRY_DELAY_MS = 1_000;
+
+    private final AssignmentRepository assignmentRepository;
+    private final UserRepository userRepository;
+    private final SubmissionRepository submissionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator idGenerator;
+    private final SubmissionJournal journal;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final boolean fsync;
+
+    private final BlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    private final Semaphore slots;
+    private final Set<Long> knownAssignments = ConcurrentHashMap.newKeySet();
+    private final Set<Long> knownStudents = ConcurrentHashMap.newKeySet();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    /** A journaled submission on its way to the database. */
+    private record Queued(long seq, SubmissionDto submission) {
+    }
+
+    public SubmissionIntakeService(AssignmentRepository assignmentRepository, UserRepository userRepository,
+                                   SubmissionRepository submissionRepository, JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                   EntityManagerFactory entityManagerFactory,
+                                   @Value("${submission.intake.journal:data/submission-intake.journal}") Path journalFile,
+                                   @Value("${submission.intake.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${submission.intake.batch-size:500}") int batchSize,
+                                   @Value("${submission.intake.fsync:true}") boolean fsync) throws IOException {
+        this.assignmentRepository = assignmentRepository;
+        this.userRepository = userRepository;
+        this.submissionRepository = submissionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        // the entity's own pooled generator, so intake ids never collide with ids of regular inserts
+        this.idGenerator = (IdentifierGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Submission.class).getGenerator();
+        this.journal = new SubmissionJournal(journalFile);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.fsync = fsync;
+        this.slots = new Semaphore(queueCapacity);
+    }
+
+    public SubmissionReceiptDto accept(SubmissionDto submissionDto) {
+        validate(submissionDto);
+        if (!slots.tryAcquire()) {
+            throw new QueueFullException("Submission intake queue is full, retry later");
+        }
+        SubmissionJournal.Appended appended = null;
+        boolean queued = false;
+        try {
+            LocalDateTime receivedAt = LocalDateTime.now();
+            SubmissionDto entry = new SubmissionDto(nextId(), submissionDto.getAssignmentId(),
+                    submissionDto.getStudentId(), receivedAt, submissionDto.getContent(), null, null);
+            appended = journal.append(objectMapper.writeValueAsString(entry));
+            if (fsync) {
+                journal.sync(appended.end());
+            }
+            queue.add(new Queued(appended.seq(), entry));
+            queued = true;
+            accepted.incrementAndGet();
+            return new SubmissionReceiptDto(entry.getId(), receivedAt, queueCapacity - slots.availablePermits());
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            if (!queued) {
+                slots.release();
+                if (appended != null) {
+                    // not acknowledged: give the entry up so it does not hold back compaction
+                    journal.stored(List.of(appended.seq()));
+                }
+            }
+        }
+    }
+
+    public SubmissionIntakeStatsDto getStats() {
+        return new SubmissionIntakeStatsDto(queueCapacity - slots.availablePermits(), queueCapacity,
+                accepted.get(), stored.get(), rejected.get(), batches.get());
+    }
+
+    /**
+     * Stores what a previous run journaled but may not have written, then starts the writer.
+     * Lines that do not parse (left by a failed write) are skipped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<SubmissionJournal.Entry> lines = journal.recovered();
+        if (!lines.isEmpty()) {
+            List<SubmissionDto> entries = new ArrayList<>(lines.size());
+            for (SubmissionJournal.Entry line : lines) {
+                try {
+                    entries.add(objectMapper.readValue(line.line(), SubmissionDto.class));
+                } catch (JsonProcessingException ex) {
+                    log.warn("Skipping unreadable journal entry {}: {}", line.seq(), ex.getOriginalMessage());
+                }
+            }
+            int recovered = 0;
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                List<SubmissionDto> chunk = entries.subList(from, Math.min(entries.size(), from + batchSize));
+                Set<Long> existing = submissionRepository.findExistingIds(chunk.stream().map(SubmissionDto::getId).toList());
+                List<SubmissionDto> missing = chunk.stream().filter(entry -> !existing.contains(entry.getId())).toList();
+                if (!missing.isEmpty() && !store(missing)) {
+                    throw new IllegalStateException("Could not store journaled submissions");
+                }
+                recovered += missing.size();
+            }
+            journal.stored(lines.stream().map(SubmissionJournal.Entry::seq).toList());
+            log.info("Stored {} of {} journaled submissions left by the previous run", recovered, lines.size());
+        }
+        writer = Thread.ofPlatform().name("submission-intake-writer").daemon().start(this::drain);
+    }
+
+    /** Lets the writer store what is queued; whatever it cannot store stays in the journal. */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        journal.close();
+    }
+
+    /** Stores batches until stopped; a batch that fails unexpectedly is kept and retried. */
+    private void drain() {
+        List<Queued> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    Queued first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                if (!store(batch.stream().map(Queued::submission).toList())) {
+                    return;
+                }
+                List<Long> seqs = batch.stream().map(Queued::seq).toList();
+                slots.release(batch.size());
+                batch.clear();
+                journal.stored(seqs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Submission intake writer failed, retrying", ex);
+                if (!running || !sleep()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the batch in one transaction. If the database rejects it, the rows are retried one
+     * by one and the rejected ones dropped; other failures (e.g. the database is down) are retried
+     * until they succeed or the service stops, in which case {@code false} is returned.
+     */
+    private boolean store(List<SubmissionDto> batch) {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(batch));
+                stored.addAndGet(batch.size());
+                batches.incrementAndGet();
+                return true;
+            } catch (DataIntegrityViolationException ex) {
+                storeOneByOne(batch);
+                batches.incrementAndGet();
+                return true;
+            } catch (RuntimeException ex) {
+                log.warn("Could not store {} submissions, retrying: {}", batch.size(), ex.getMessage());
+                if (!running || !sleep()) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void storeOneByOne(List<SubmissionDto> batch) {
+        for (SubmissionDto entry : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(entry)));
+                stored.incrementAndGet();
+            } catch (DataIntegrityViolationException ex) {
+                rejected.incrementAndGet();
+                log.warn("Dropping submission {} (assignment {}, student {}): {}", entry.getId(),
+                        entry.getAssignmentId(), entry.getStudentId(), ex.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void insert(List<SubmissionDto> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, entry) -> {
+            statement.setLong(1, entry.getId());
+            statement.setLong(2, entry.getAssignmentId());
+            statement.setLong(3, entry.getStudentId());
+            statement.setTimestamp(4, Timestamp.valueOf(entry.getSubmittedAt()));
+            statement.setString(5, entry.getContent());
+        });
+    }
+
+    /**
+     * Assignments and students are looked up once and then remembered, so a burst against one
+     * assignment does not read it again for every submission.
+     */
+    private void validate(SubmissionDto submissionDto) {
+        if (submissionDto.getAssignmentId() == null || submissionDto.getStudentId() == null) {
+            throw new IllegalArgumentException("assignmentId and studentId are required");
+        }
+        if (!knownAssignments.contains(submissionDto.getAssignmentId())) {
+            if (!assignmentRepository.existsById(submissionDto.getAssignmentId())) {
+                throw new EntityNotFoundException("Assignment not found with id: " + submissionDto.getAssignmentId());
+            }
+            remember(knownAssignments, submissionDto.getAssignmentId());
+        }
+        if (!knownStudents.contains(submissionDto.getStudentId())) {
+            if (!userRepository.existsById(submissionDto.getStudentId())) {
+                throw new EntityNotFoundException("Student not found with id: " + submissionDto.getStudentId());
+            }
+            remember(knownStudents, submissionDto.getStudentId());
+        }
+    }
+
+    private static void remember(Set<Long> known, Long id) {
+        if (known.size() >= MAX_KNOWN_IDS) {
+            known.clear();
+        }
+        known.add(id);
+    }
+
+    /** Takes an id from the pooled sequence; only every allocationSize-th call reaches the database. */
+    private Long nextId() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return ((Number) idGenerator.generate((SharedSessionContractImplementor) session, null)).longValue();
+        }
+    }
+
+    private static boolean sleep() {
+        try {
+            Thread.sleep(RETRY_DELAY_MS);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package mephi.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Append-only journal of accepted but not yet stored submissions, one JSON line per entry.
+ * Every entry gets a sequence number in append order; positions are counted from the start of the
+ * journal's life, so they stay valid when the file is compacted.
+ * <p>
+ * {@link #sync(long)} is a group commit: whichever caller gets the sync lock first forces
+ * everything appended so far to disk, and the callers queued behind it find their entries
+ * already durable and return without another fsync.
+ * <p>
+ * Entries are reported stored in any order; the journal keeps only what follows the longest
+ * stored prefix. When that prefix is at least as large as the rest, the rest is copied to a new
+ * file that replaces the journal, so the file stays bounded under sustained load. A line torn by
+ * a crash mid-append is cut off when the journal is opened.
+ */
+@Slf4j
+final class SubmissionJournal implements AutoCloseable {
+    private final Path file;
+    private final Path compacted;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private final List<Entry> recovered = new ArrayList<>();
+    /** End positions of the entries from {@link #head} on, in append order. Guarded by {@code writeLock}. */
+    private final ArrayDeque<Long> ends = new ArrayDeque<>();
+    /** Entries after {@link #head} that are already stored. Guarded by {@code writeLock}. */
+    private final Set<Long> storedAhead = new HashSet<>();
+    /** Replaced by a compaction. Guarded by {@code writeLock}. */
+    private FileChannel channel;
+    /** Journal position of the file's first byte. Guarded by {@code writeLock}. */
+    private long base;
+    /** Oldest entry not yet stored, and the next entry to append. Guarded by {@code writeLock}. */
+    private long head;
+    private long next;
+    private volatile long synced;
+
+    /** A line left over from a previous run, i.e. an entry that may not have reached the database. */
+    record Entry(long seq, String line) {
+    }
+
+    record Appended(long seq, long end) {
+    }
+
+    SubmissionJournal(Path file) throws IOException {
+        this.file = file;
+        this.compacted = file.resolveSibling(file.getFileName() + ".compact");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+        channel.position(channel.size());
+        synced = channel.size();
+    }
+
+    /** Entries found when the journal was opened; they still have to be reported {@link #stored}. */
+    List<Entry> recovered() {
+        return recovered;
+    }
+
+    /** Appends one entry; its end position is what {@link #sync} must reach. */
+    Appended append(String line) {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        synchronized (writeLock) {
+            long start = -1;
+            try {
+                start = channel.position();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                long end = base + channel.position();
+                ends.add(end);
+                return new Appended(next++, end);
+            } catch (IOException ex) {
+                cutBack(start);
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /** Blocks until everything up to {@code position} is on disk. */
+    void sync(long position) {
+        if (synced >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            try {
+                FileChannel current;
+                long end;
+                synchronized (writeLock) {
+                    current = channel;
+                    end = base + channel.position();
+                }
+                // compactions take the sync lock, so the channel is not replaced while it is forced
+                current.force(false);
+                synced = end;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Marks entries as stored, or as given up when their request failed after the append, and
+     * drops the stored prefix from the file once it is worth a copy.
+     */
+    void stored(Collection<Long> seqs) {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                for (Long seq : seqs) {
+                    if (seq >= head) {
+                        storedAhead.add(seq);
+                    }
+                }
+                long prefixEnd = -1;
+                while (storedAhead.remove(head)) {
+                    prefixEnd = ends.remove();
+                    head++;
+                }
+                if (prefixEnd >= 0) {
+                    compact(prefixEnd);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            channel.close();
+        }
+    }
+
+    private void compact(long prefixEnd) {
+        try {
+            long size = channel.size();
+            long dropped = prefixEnd - base;
+            long kept = size - dropped;
+            if (kept == 0) {
+                channel.truncate(0);
+                channel.position(0);
+            } else if (dropped >= kept) {
+                try (FileChannel copy = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    for (long position = dropped; position < size; ) {
+                        position += channel.transferTo(position, size - position, copy);
+                    }
+                    copy.force(false);
+                }
+                channel.close();
+                try {
+                    Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    syncDirectory();
+                } finally {
+                    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    channel.position(channel.size());
+                }
+            } else {
+                return;
+            }
+            // what is left was just forced to disk, and what was dropped is stored
+            synced = Math.max(synced, base + size);
+            base = prefixEnd;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void recover() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            String line = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+            ends.add((long) i + 1);
+            long seq = next++;
+            if (line.isBlank()) {
+                storedAhead.add(seq);
+            } else {
+                recovered.add(new Entry(seq, line));
+            }
+            start = i + 1;
+        }
+        if (start < bytes.length) {
+            log.warn("Cutting off {} bytes of a journal line torn by a crash in {}", bytes.length - start, file);
+            channel.truncate(start);
+        }
+        while (storedAhead.remove(head)) {
+            ends.remove();
+            head++;
+        }
+    }
+
+    /** Removes what a failed append left behind, so the next entry starts on a fresh line. */
+    private void cutBack(long position) {
+        if (position < 0) {
+            return;
+        }
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException ex) {
+            log.warn("Could not cut back a failed journal append in {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private void syncDirectory() {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // not every platform can open a directory (e.g. Windows), the rename is durable there anyway
+            log.debug("Could not sync {}: {}", directory, ex.getMessage());
+        }
+    }
+}
@@ -1,41 +1,71 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import mephi.ExportFormat;
+import mephi.GradeStatus;
+import mephi.dto.CursorPage;
+import mephi.dto.GradeDto;
+import mephi.dto.GradeResultDto;
 import mephi.dto.SubmissionDto;
+import mephi.dto.Versioned;
 import mephi.entity.Assignment;
 import mephi.entity.Submission;
 import mephi.entity.User;
 import mephi.mapper.SubmissionMapper;
 import mephi.repository.AssignmentRepository;
+import mephi.repository.KeysetQuery;
 import mephi.repository.SubmissionRepository;
+import mephi.repository.SubmissionRepository.GradeTarget;
 import mephi.repository.UserRepository;
+import mephi.request.CursorRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 @Transactional
 public class SubmissionService {
+    public static final int MAX_GRADES = 1000;
+    private static final Set<String> SORT_KEYS = Set.of("id");
+    private static final String GRADE_SQL =
+            "update submissions set score = ?, feedback = ?, version = version + 1 where id = ? and version = ?";
+
     private final SubmissionRepository submissionRepository;
     private final AssignmentRepository assignmentRepository;
     private final UserRepository userRepository;
     private final SubmissionMapper submissionMapper;
+    private final KeysetQuery keysetQuery;
+    private final ExportService exportService;
+    private final JdbcTemplate jdbcTemplate;
 
-    public List<SubmissionDto> getAll() {
-        return submissionRepository.findAll().stream()
-                .map(submissionMapper::toDto)
-                .collect(Collectors.toList());
+    public CursorPage<SubmissionDto> getAll(CursorRequest page) {
+        return keysetQuery.fetch(Submission.class, page, SORT_KEYS)
+                .map(submissionMapper::toDto);
     }
 
-    public SubmissionDto getById(Long id) {
+    public void export(ExportFormat format, OutputStream out) throws IOException {
+        exportService.export(Submission.class, submissionMapper::toDto, SubmissionDto.class, format, out,
+                "id", "assignmentId", "studentId", "submittedAt", "content", "score", "feedback");
+    }
+
+    public Versioned<SubmissionDto> getById(Long id) {
         Submission submission = submissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Submission not found with id: " + id));
-        return submissionMapper.toDto(submission);
+        return new Versioned<>(submissionMapper.toDto(submission), submission.getVersion());
     }
 
     public List<SubmissionDto> getByAssignmentId(Long assignmentId) {
@@ -45,11 +75,9 @@ public class SubmissionService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SubmissionDto> getByStudentId(Long studentId) {
-        List<Submission> submissions = submissionRepository.findByStudentId(studentId);
-        return submissions.stream()
-                .map(submissionMapper::toDto)
-                .collect(Collectors.toList());
+        return submissionRepository.findDtosByStudentId(studentId);
     }
 
     public SubmissionDto create(SubmissionDto submissionDto) {
@@ -68,27 +96,91 @@ public class SubmissionService {
         return submissionMapper.toDto(saved);
     }
 
-    public SubmissionDto update(Long id, SubmissionDto submissionDto) {
+    public Versioned<SubmissionDto> update(Long id, SubmissionDto submissionDto, Long expectedVersion) {
         Submission submission = submissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Submission not found with id: " + id));
+        Versions.check("Submission", id, expectedVersion, submission.getVersion());
 
         submission.setContent(submissionDto.getContent());
         submission.setScore(submissionDto.getScore());
         submission.setFeedback(submissionDto.getFeedback());
 
-        Submission updated = submissionRepository.save(submission);
-        return submissionMapper.toDto(updated);
+        Submission updated = submissionRepository.saveAndFlush(submission);
+        return new Versioned<>(submissionMapper.toDto(updated), updated.getVersion());
     }
 
-    public SubmissionDto grade(Long id, Integer score, String feedback) {
+    public Versioned<SubmissionDto> grade(Long id, Integer score, String feedback, Long expectedVersion) {
         Submission submission = submissionRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Submission not found with id: " + id));
+        Versions.check("Submission", id, expectedVersion, submission.getVersion());
 
         submission.setScore(score);
         submission.setFeedback(feedback);
 
-        Submission updated = submissionRepository.save(submission);
-        return submissionMapper.toDto(updated);
+        Submission updated = submissionRepository.saveAndFlush(submission);
+        return new Versioned<>(submissionMapper.toDto(updated), updated.getVersion());
+    }
+
+    /**
+     * Grades many submissions in one transaction: one select for the current versions and the
+     * assignments' max scores, then one batch of {@code UPDATE ... WHERE version = ?} without
+     * loading the entities. An item fails on its own: an unknown submission, a score outside
+     * {@code 0..maxScore}, a repeated submission id, or a version that no longer matches
+     * (the item's own {@code version} if given, otherwise the one just read) because someone
+     * regraded it in the meantime. Returns one result per item, in request order.
+     */
+    public List<GradeResultDto> gradeAll(List<GradeDto> grades) {
+        if (grades.size() > MAX_GRADES) {
+            throw new IllegalArgumentException("At most " + MAX_GRADES + " grades per request, got: " + grades.size());
+        }
+        Set<Long> ids = grades.stream()
+                .map(GradeDto::getSubmissionId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, GradeTarget> targets = ids.isEmpty() ? Map.of() : submissionRepository.findGradeTargets(ids).stream()
+                .collect(Collectors.toMap(GradeTarget::getId, Function.identity()));
+
+        List<GradeResultDto> results = new ArrayList<>(grades.size());
+        List<GradeResultDto> pending = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (GradeDto grade : grades) {
+            Long id = grade.getSubmissionId();
+            GradeTarget target = id == null ? null : targets.get(id);
+            GradeResultDto result = new GradeResultDto(id, GradeStatus.INVALID, null, null);
+            results.add(result);
+            if (id == null) {
+                result.setMessage("submissionId is required");
+            } else if (!seen.add(id)) {
+                result.setMessage("Submission " + id + " is graded twice in one request");
+            } else if (target == null) {
+                result.setStatus(GradeStatus.NOT_FOUND);
+                result.setMessage("Submission not found with id: " + id);
+            } else if (grade.getScore() == null || grade.getScore() < 0
+                    || (target.getMaxScore() != null && grade.getScore() > target.getMaxScore())) {
+                result.setMessage((target.getMaxScore() != null ? "score must be between 0 and " + target.getMaxScore()
+                        : "score must not be negative") + ", got: " + grade.getScore());
+            } else if (grade.getVersion() != null && !grade.getVersion().equals(target.getVersion())) {
+                result.setStatus(GradeStatus.CONFLICT);
+                result.setMessage("Submission " + id + " is at version " + target.getVersion());
+            } else {
+                pending.add(result);
+                updates.add(new Object[]{grade.getScore(), grade.getFeedback(), id, target.getVersion()});
+            }
+        }
+
+        int[] counts = updates.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(GRADE_SQL, updates);
+        for (int i = 0; i < counts.length; i++) {
+            GradeResultDto result = pending.get(i);
+            if (counts[i] == 0) {
+                result.setStatus(GradeStatus.CONFLICT);
+                result.setMessage("Submission " + result.getSubmissionId() + " was changed concurrently");
+            } else {
+                result.setStatus(GradeStatus.GRADED);
+                result.setVersion((Long) updates.get(i)[3] + 1);
+            }
+        }
+        return results;
     }
 
     public void delete(Long id) {
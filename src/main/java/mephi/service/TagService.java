@@ -1,13 +1,17 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import mephi.dto.TagDto;
+import mephi.dto.Versioned;
+import mephi.entity.Course;
 import mephi.entity.Tag;
 import mephi.mapper.TagMapper;
+import mephi.repository.CourseRepository;
 import mephi.repository.TagRepository;
+import mephi.service.CatalogVersions.Catalog;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,6 +22,9 @@ import java.util.stream.Collectors;
 public class TagService {
     private final TagRepository tagRepository;
     private final TagMapper tagMapper;
+    private final CourseRepository courseRepository;
+    private final CourseFacetIndex courseFacetIndex;
+    private final CatalogVersions catalogVersions;
 
     public List<TagDto> getAll() {
         return tagRepository.findAll().stream()
@@ -25,10 +32,10 @@ public class TagService {
                 .collect(Collectors.toList());
     }
 
-    public TagDto getById(Long id) {
+    public Versioned<TagDto> getById(Long id) {
         Tag tag = tagRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Tag not found with id: " + id));
-        return tagMapper.toDto(tag);
+        return new Versioned<>(tagMapper.toDto(tag), tag.getVersion());
     }
 
     public TagDto getByName(String name) {
@@ -40,17 +47,22 @@ public class TagService {
     public TagDto create(TagDto tagDto) {
         Tag tag = tagMapper.toEntity(tagDto);
         Tag saved = tagRepository.save(tag);
+        catalogVersions.changed(Catalog.TAGS);
+        courseFacetIndex.refreshTag(saved.getId());
         return tagMapper.toDto(saved);
     }
 
-    public TagDto update(Long id, TagDto tagDto) {
+    public Versioned<TagDto> update(Long id, TagDto tagDto, Long expectedVersion) {
         Tag tag = tagRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Tag not found with id: " + id));
+        Versions.check("Tag", id, expectedVersion, tag.getVersion());
 
         tag.setName(tagDto.getName());
 
-        Tag updated = tagRepository.save(tag);
-        return tagMapper.toDto(updated);
+        Tag updated = tagRepository.saveAndFlush(tag);
+        catalogVersions.changed(Catalog.TAGS);
+        courseFacetIndex.refreshTag(id);
+        return new Versioned<>(tagMapper.toDto(updated), updated.getVersion());
     }
 
     public void delete(Long id) {
@@ -58,5 +70,31 @@ public class TagService {
             throw new EntityNotFoundException("Tag not found with id: " + id);
         }
         tagRepository.deleteById(id);
+        catalogVersions.changed(Catalog.TAGS);
+        courseFacetIndex.refreshTag(id);
+    }
+
+    /** Returns the tag's version afterwards: the tag owns the link, so attaching bumps it. */
+    public long attachCourse(Long id, Long courseId, Long expectedVersion) {
+        Tag tag = tagRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Tag not found with id: " + id));
+        Versions.check("Tag", id, expectedVersion, tag.getVersion());
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + courseId));
+        tag.getCourses().add(course);
+        course.getTags().add(tag);
+        tagRepository.saveAndFlush(tag);
+        courseFacetIndex.refreshTag(id);
+        return tag.getVersion();
+    }
+
+    public void detachCourse(Long id, Long courseId) {
+        Tag tag = tagRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Tag not found with id: " + id));
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new EntityNotFoundException("Course not found with id: " + courseId));
+        tag.getCourses().remove(course);
+        course.getTags().remove(tag);
+        courseFacetIndex.refreshTag(id);
     }
 }
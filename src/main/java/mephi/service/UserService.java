@@ -1,40 +1,66 @@
 package mephi.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import mephi.dto.CursorPage;
+import mephi.dto.ImportErrorDto;
 import mephi.dto.UserDto;
+import mephi.dto.Versioned;
+import mephi.entity.Course;
 import mephi.entity.Enrollment;
 import mephi.entity.User;
 import mephi.mapper.UserMapper;
+import mephi.repository.CourseRepository;
 import mephi.repository.EnrollmentRepository;
+import mephi.repository.KeysetQuery;
+import mephi.repository.QuizRepository;
+import mephi.repository.QuizSubmissionRepository;
 import mephi.repository.UserRepository;
+import mephi.request.CursorRequest;
+import mephi.service.CatalogVersions.Catalog;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class UserService {
+    private static final Set<String> SORT_KEYS = Set.of("id", "name", "email");
+
     private final UserRepository userRepository;
     private final EnrollmentRepository enrollRepository;
     private final UserMapper userMapper;
+    private final KeysetQuery keysetQuery;
+    private final CourseReviewService courseReviewService;
+    private final CourseRepository courseRepository;
+    private final CourseTreeService courseTreeService;
+    private final CourseRatingService courseRatingService;
+    private final QuizRepository quizRepository;
+    private final QuizSubmissionRepository quizSubmissionRepository;
+    private final SearchService searchService;
+    private final CourseFacetIndex courseFacetIndex;
+    private final CatalogVersions catalogVersions;
+    private final QuizLeaderboard quizLeaderboard;
+    private final QuizVersions quizVersions;
+    private final LessonProgressService lessonProgressService;
+    private final RecommendationService recommendationService;
 
-    public UserDto getUser(Long id) {
+    public Versioned<UserDto> getUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
-        return userMapper.toDto(user);
+        return new Versioned<>(userMapper.toDto(user), user.getVersion());
     }
 
-    public List<UserDto> getAllUsers() {
-        List<UserDto> users = new ArrayList<>();
-
-        for (var user : userRepository.findAll()) {
-            users.add(userMapper.toDto(user));
-        }
-        return users;
+    public CursorPage<UserDto> getAllUsers(CursorRequest page) {
+        return keysetQuery.fetch(User.class, User.WITH_PROFILE, page, SORT_KEYS)
+                .map(userMapper::toDto);
     }
 
     public UserDto createUser(UserDto userDto) {
@@ -46,22 +72,80 @@ public class UserService {
         return userMapper.toDto(savedUser);
     }
 
-    public UserDto updateUser(Long id, UserDto userDto) {
+    /**
+     * Inserts one chunk of a bulk import; e-mails already taken, in the database or earlier
+     * in the chunk, are reported per row instead of failing the chunk.
+     */
+    public List<ImportErrorDto> importChunk(List<ImportRow<UserDto>> rows) {
+        Set<String> emails = rows.stream()
+                .map(row -> row.getValue().getEmail())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> taken = emails.isEmpty() ? new HashSet<>() : new HashSet<>(userRepository.findExistingEmails(emails));
+
+        List<ImportErrorDto> errors = new ArrayList<>();
+        List<User> users = new ArrayList<>(rows.size());
+        for (ImportRow<UserDto> row : rows) {
+            UserDto userDto = row.getValue();
+            if (userDto.getName() == null || userDto.getEmail() == null || userDto.getRole() == null) {
+                errors.add(new ImportErrorDto(row.getRow(), "name, email and role are required"));
+            } else if (!taken.add(userDto.getEmail())) {
+                errors.add(new ImportErrorDto(row.getRow(), "Email already exists: " + userDto.getEmail()));
+            } else {
+                User user = userMapper.toEntity(userDto);
+                if (user.getProfile() != null) {
+                    user.getProfile().setUser(user);
+                }
+                users.add(user);
+            }
+        }
+        userRepository.saveAll(users);
+        return errors;
+    }
+
+    public Versioned<UserDto> updateUser(Long id, UserDto userDto, Long expectedVersion) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
+        Versions.check("User", id, expectedVersion, user.getVersion());
 
         user.setName(userDto.getName());
         user.setEmail(userDto.getEmail());
         user.setRole(userDto.getRole());
 
-        User updated = userRepository.save(user);
-        return userMapper.toDto(updated);
+        User updated = userRepository.saveAndFlush(user);
+        return new Versioned<>(userMapper.toDto(updated), updated.getVersion());
     }
 
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new EntityNotFoundException("User not found with id: " + id);
         }
+        courseReviewService.removeReviewsOfUser(id);
+        // the user's courses go with the teacher (cascade): detach their tags and drop them from the indexes
+        List<Course> courses = courseRepository.findByTeacherId(id);
+        for (Course course : courses) {
+            course.getTags().forEach(tag -> tag.getCourses().remove(course));
+            searchService.courseRemoved(course.getId());
+        }
+        List<Long> attemptedQuizIds = quizSubmissionRepository.findQuizIdsByStudentId(id);
+        List<Long> enrolledCourseIds = enrollRepository.findCourseIdsByUserId(id);
+        List<Long> ownQuizIds = courses.isEmpty() ? List.of()
+                : quizRepository.findIdsByCourseIds(courses.stream().map(Course::getId).toList());
         userRepository.deleteById(id);
+        for (Course course : courses) {
+            courseRatingService.deleteByCourse(course.getId());
+            courseTreeService.invalidate(course.getId());
+        }
+        courseFacetIndex.refreshCourses(courses.stream().map(Course::getId).toList());
+        if (!courses.isEmpty()) {
+            catalogVersions.changed(Catalog.COURSES);
+        }
+        attemptedQuizIds.forEach(quizId -> quizLeaderboard.refresh(quizId, id));
+        ownQuizIds.forEach(quizVersions::changed);
+        ownQuizIds.forEach(quizLeaderboard::refreshQuiz);
+        enrolledCourseIds.forEach(lessonProgressService::courseChanged);
+        courses.forEach(course -> lessonProgressService.courseChanged(course.getId()));
+        recommendationService.userRemoved(id);
+        courses.forEach(course -> recommendationService.courseRemoved(course.getId()));
     }
 }
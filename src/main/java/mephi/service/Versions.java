@@ -0,0 +1,21 @@
+package mephi.service;
+
+import mephi.exception.PreconditionFailedException;
+
+/**
+ * Optimistic version checks for updates. The version the client expects ({@code If-Match}) is
+ * compared with the one just loaded; a write that commits in between is still caught by the
+ * {@code @Version} column when the update is flushed.
+ */
+final class Versions {
+    private Versions() {
+    }
+
+    /** {@code expected == null} means the client sent no {@code If-Match}. */
+    static void check(String entity, Long id, Long expected, Long actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new PreconditionFailedException(entity + " " + id + " is at version " + actual
+                    + ", If-Match expects " + expected);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package mephi.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Fixed-size worker pools for partitioned jobs. In virtual-thread mode the workers are virtual
+ * threads, so a partition blocked on the database does not hold a platform thread; the pool
+ * size still bounds how many partitions run (and hold a connection) at once.
+ */
+final class Workers {
+    private Workers() {
+    }
+
+    static ExecutorService newPool(String name, int parallelism, boolean virtualThreads) {
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name(name + "-", 0).factory()
+                : Thread.ofPlatform().name(name + "-", 0).factory();
+        return Executors.newFixedThreadPool(parallelism, threads);
+    }
+}
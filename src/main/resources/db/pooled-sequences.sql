@@ -0,0 +1,63 @@
+-- One-time migration from IDENTITY columns to pooled sequences (allocationSize = 50).
+-- Run once against an existing database before starting the new version.
+-- Each sequence continues after the current max(id), so existing ids are kept.
+
+create sequence if not exists public.users_seq increment by 50;
+select setval('public.users_seq', (select coalesce(max(id), 0) + 50 from public.users), false);
+alter table public.users alter column id drop identity if exists;
+
+create sequence if not exists public.profile_seq increment by 50;
+select setval('public.profile_seq', (select coalesce(max(id), 0) + 50 from public.profile), false);
+alter table public.profile alter column id drop identity if exists;
+
+create sequence if not exists public.category_seq increment by 50;
+select setval('public.category_seq', (select coalesce(max(id), 0) + 50 from public.category), false);
+alter table public.category alter column id drop identity if exists;
+
+create sequence if not exists public.tags_seq increment by 50;
+select setval('public.tags_seq', (select coalesce(max(id), 0) + 50 from public.tags), false);
+alter table public.tags alter column id drop identity if exists;
+
+create sequence if not exists public.courses_seq increment by 50;
+select setval('public.courses_seq', (select coalesce(max(id), 0) + 50 from public.courses), false);
+alter table public.courses alter column id drop identity if exists;
+
+create sequence if not exists public.modules_seq increment by 50;
+select setval('public.modules_seq', (select coalesce(max(id), 0) + 50 from public.modules), false);
+alter table public.modules alter column id drop identity if exists;
+
+create sequence if not exists public.lessons_seq increment by 50;
+select setval('public.lessons_seq', (select coalesce(max(id), 0) + 50 from public.lessons), false);
+alter table public.lessons alter column id drop identity if exists;
+
+create sequence if not exists public.assignments_seq increment by 50;
+select setval('public.assignments_seq', (select coalesce(max(id), 0) + 50 from public.assignments), false);
+alter table public.assignments alter column id drop identity if exists;
+
+create sequence if not exists public.submissions_seq increment by 50;
+select setval('public.submissions_seq', (select coalesce(max(id), 0) + 50 from public.submissions), false);
+alter table public.submissions alter column id drop identity if exists;
+
+create sequence if not exists public.quizzes_seq increment by 50;
+select setval('public.quizzes_seq', (select coalesce(max(id), 0) + 50 from public.quizzes), false);
+alter table public.quizzes alter column id drop identity if exists;
+
+create sequence if not exists public.questions_seq increment by 50;
+select setval('public.questions_seq', (select coalesce(max(id), 0) + 50 from public.questions), false);
+alter table public.questions alter column id drop identity if exists;
+
+create sequence if not exists public.answer_options_seq increment by 50;
+select setval('public.answer_options_seq', (select coalesce(max(id), 0) + 50 from public.answer_options), false);
+alter table public.answer_options alter column id drop identity if exists;
+
+create sequence if not exists public.quiz_submissions_seq increment by 50;
+select setval('public.quiz_submissions_seq', (select coalesce(max(id), 0) + 50 from public.quiz_submissions), false);
+alter table public.quiz_submissions alter column id drop identity if exists;
+
+create sequence if not exists public.enrollment_seq increment by 50;
+select setval('public.enrollment_seq', (select coalesce(max(id), 0) + 50 from public.enrollment), false);
+alter table public.enrollment alter column id drop identity if exists;
+
+create sequence if not exists public.course_review_seq increment by 50;
+select setval('public.course_review_seq', (select coalesce(max(id), 0) + 50 from public.course_review), false);
+alter table public.course_review alter column id drop identity if exists;
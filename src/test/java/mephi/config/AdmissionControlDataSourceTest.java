@@ -0,0 +1,62 @@
+package mephi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Connection admission control
+ * Testing requirement: callers beyond the permit count wait for a closed connection instead of failing
+ */
+class AdmissionControlDataSourceTest {
+    private final DriverManagerDataSource target =
+            new DriverManagerDataSource("jdbc:h2:mem:admission;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @Test
+    void testWaiterIsAdmittedWhenConnectionCloses() throws Exception {
+        AdmissionControlDataSource dataSource = new AdmissionControlDataSource(target, 1, Duration.ofSeconds(10));
+        Connection first = dataSource.getConnection();
+
+        CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }, runnable -> Thread.ofVirtual().start(runnable));
+        while (dataSource.getQueueLength() == 0) {
+            Thread.sleep(1);
+        }
+        assertThat(second).isNotDone();
+
+        first.close();
+        first.close();
+        Connection admitted = second.get(5, TimeUnit.SECONDS);
+        assertThat(dataSource.getInUse()).isEqualTo(1);
+        admitted.close();
+        assertThat(dataSource.getInUse()).isZero();
+    }
+
+    @Test
+    void testQueueTimeout() throws Exception {
+        AdmissionControlDataSource dataSource = new AdmissionControlDataSource(target, 1, Duration.ofMillis(50));
+        List<Long> waits = new CopyOnWriteArrayList<>();
+        dataSource.setWaitListener(waits::add);
+        try (Connection ignored = dataSource.getConnection()) {
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+        assertThat(dataSource.getInUse()).isZero();
+        assertThat(waits).hasSize(2);
+        assertThat(waits.get(1)).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+    }
+}
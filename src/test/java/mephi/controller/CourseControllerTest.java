@@ -2,9 +2,16 @@ package mephi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import mephi.Role;
+import mephi.dto.AssignmentDto;
 import mephi.dto.CategoryDto;
 import mephi.dto.CourseDto;
+import mephi.dto.CourseReviewDto;
+import mephi.dto.LessonDto;
+import mephi.dto.ModuleDto;
+import mephi.dto.QuizDto;
 import mephi.dto.UserDto;
+import mephi.repository.CourseRatingRepository;
+import mephi.service.CourseService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +21,10 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,6 +41,12 @@ class CourseControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRatingRepository courseRatingRepository;
+
     private Long categoryId;
     private Long teacherId;
 
@@ -91,6 +106,131 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    void testGetAllCoursesPagedByCursor() throws Exception {
+        for (String title : new String[]{"Course C", "Course A", "Course B"}) {
+            CourseDto courseDto = new CourseDto();
+            courseDto.setTitle(title);
+            courseDto.setDescription("Desc");
+            courseDto.setDuration(10);
+            courseDto.setCategoryId(categoryId);
+            courseDto.setTeacherId(teacherId);
+            mockMvc.perform(post("/courses/create")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(courseDto)));
+        }
+
+        String nextCursor = mockMvc.perform(get("/courses/all")
+                        .param("size", "2")
+                        .param("sort", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Course A"))
+                .andExpect(jsonPath("$[1].title").value("Course B"))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/courses/all")
+                        .param("size", "2")
+                        .param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Course C"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetAllCoursesRejectsUnknownSort() throws Exception {
+        mockMvc.perform(get("/courses/all").param("sort", "description"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetCourseTree() throws Exception {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setTitle("Tree Course");
+        courseDto.setDescription("Desc");
+        courseDto.setDuration(10);
+        courseDto.setCategoryId(categoryId);
+        courseDto.setTeacherId(teacherId);
+        String courseResponse = mockMvc.perform(post("/courses/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(courseDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long courseId = objectMapper.readValue(courseResponse, CourseDto.class).getId();
+
+        Long secondModuleId = createModule(courseId, "Second", 2);
+        Long firstModuleId = createModule(courseId, "First", 1);
+        Long lessonId = createLesson(firstModuleId, "Lesson 1");
+
+        AssignmentDto assignment = new AssignmentDto();
+        assignment.setTitle("Homework");
+        assignment.setMaxScore(100);
+        assignment.setLessonId(lessonId);
+        mockMvc.perform(post("/api/lessons/assignments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(assignment)));
+
+        QuizDto quiz = new QuizDto();
+        quiz.setTitle("Final Quiz");
+        quiz.setModuleId(secondModuleId);
+        mockMvc.perform(post("/api/quizzes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(quiz)));
+
+        mockMvc.perform(get("/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.course.title").value("Tree Course"))
+                .andExpect(jsonPath("$.modules.length()").value(2))
+                .andExpect(jsonPath("$.modules[0].module.title").value("First"))
+                .andExpect(jsonPath("$.modules[0].lessons[0].lesson.title").value("Lesson 1"))
+                .andExpect(jsonPath("$.modules[0].lessons[0].assignments[0].title").value("Homework"))
+                .andExpect(jsonPath("$.modules[1].quiz.title").value("Final Quiz"));
+
+        // every caller gets a copy, changing it leaves the cached tree alone
+        courseService.getTree(courseId).getModules().get(0).getLessons().clear();
+        courseService.getTree(courseId).getCourse().setTitle("Changed");
+        mockMvc.perform(get("/courses/" + courseId + "/tree"))
+                .andExpect(jsonPath("$.course.title").value("Tree Course"))
+                .andExpect(jsonPath("$.modules[0].lessons.length()").value(1));
+
+        // a lesson write must evict the cached tree
+        createLesson(firstModuleId, "Lesson 2");
+
+        mockMvc.perform(get("/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules[0].lessons.length()").value(2));
+    }
+
+    /** Every request commits on its own, as in production: the delete must be flushed for real. */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testDeletingTeacherDropsTreesAndRatingsOfTheirCourses() throws Exception {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setTitle("Teacher's Course");
+        courseDto.setDuration(10);
+        courseDto.setCategoryId(categoryId);
+        courseDto.setTeacherId(teacherId);
+        String courseResponse = mockMvc.perform(post("/courses/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(courseDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long courseId = objectMapper.readValue(courseResponse, CourseDto.class).getId();
+        createReview(courseId, 4);
+
+        mockMvc.perform(get("/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk());
+        assertThat(courseRatingRepository.existsById(courseId)).isTrue();
+
+        // the course goes with its teacher
+        mockMvc.perform(delete("/user/" + teacherId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/courses/" + courseId + "/tree"))
+                .andExpect(status().isNotFound());
+        assertThat(courseRatingRepository.existsById(courseId)).isFalse();
+    }
+
     @Test
     void testUpdateCourse() throws Exception {
         CourseDto courseDto = new CourseDto();
@@ -134,4 +274,118 @@ class CourseControllerTest {
         mockMvc.perform(delete("/courses/" + created.getId()))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void testCourseRatingIsMaintainedIncrementally() throws Exception {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setTitle("Rated Course");
+        courseDto.setDuration(10);
+        courseDto.setCategoryId(categoryId);
+        courseDto.setTeacherId(teacherId);
+        String courseResponse = mockMvc.perform(post("/courses/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(courseDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long courseId = objectMapper.readValue(courseResponse, CourseDto.class).getId();
+
+        Long firstReviewId = createReview(courseId, 5);
+        createReview(courseId, 3);
+
+        mockMvc.perform(get("/courses/" + courseId + "/rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviewCount").value(2))
+                .andExpect(jsonPath("$.average").value(4.0))
+                .andExpect(jsonPath("$.histogram[2]").value(1))
+                .andExpect(jsonPath("$.histogram[4]").value(1));
+
+        CourseReviewDto update = new CourseReviewDto();
+        update.setRating(4);
+        update.setReview("Changed my mind");
+        mockMvc.perform(put("/courses/reviews/" + firstReviewId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/courses/reviews/" + firstReviewId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/courses/ratings"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Rated Course"))
+                .andExpect(jsonPath("$[0].reviewCount").value(1))
+                .andExpect(jsonPath("$[0].ratingSum").value(3))
+                .andExpect(jsonPath("$[0].histogram[3]").value(0));
+
+        update.setRating(7);
+        mockMvc.perform(put("/courses/reviews/" + firstReviewId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testRatingCatalogIsPagedByCursor() throws Exception {
+        for (String title : new String[]{"First Rated", "Second Rated"}) {
+            CourseDto courseDto = new CourseDto();
+            courseDto.setTitle(title);
+            courseDto.setDuration(10);
+            courseDto.setCategoryId(categoryId);
+            courseDto.setTeacherId(teacherId);
+            mockMvc.perform(post("/courses/create")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(courseDto)));
+        }
+
+        String cursor = mockMvc.perform(get("/courses/ratings").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("First Rated"))
+                .andExpect(jsonPath("$[0].reviewCount").value(0))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/courses/ratings").param("size", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Second Rated"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        mockMvc.perform(get("/courses/ratings").param("sort", "title"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long createReview(Long courseId, int rating) throws Exception {
+        CourseReviewDto review = new CourseReviewDto();
+        review.setCourseId(courseId);
+        review.setUserId(teacherId);
+        review.setRating(rating);
+        review.setReview("Review " + rating);
+        String response = mockMvc.perform(post("/courses/create-review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(review)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, CourseReviewDto.class).getId();
+    }
+
+    private Long createModule(Long courseId, String title, int orderIndex) throws Exception {
+        ModuleDto module = new ModuleDto();
+        module.setTitle(title);
+        module.setOrderIndex(orderIndex);
+        module.setCourseId(courseId);
+        String response = mockMvc.perform(post("/modules/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(module)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, ModuleDto.class).getId();
+    }
+
+    private Long createLesson(Long moduleId, String title) throws Exception {
+        LessonDto lesson = new LessonDto();
+        lesson.setTitle(title);
+        lesson.setModuleId(moduleId);
+        String response = mockMvc.perform(post("/api/lessons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(lesson)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, LessonDto.class).getId();
+    }
 }
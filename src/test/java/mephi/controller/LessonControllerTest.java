@@ -9,13 +9,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,6 +35,9 @@ class LessonControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private Long moduleId;
     private Long studentId;
 
@@ -175,4 +181,104 @@ class LessonControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").value("My submission"));
     }
+
+    @Test
+    void testBulkGradeSubmissions() throws Exception {
+        Long assignmentId = createAssignment();
+
+        Long first = createSubmission(assignmentId);
+        Long second = createSubmission(assignmentId);
+        Long third = createSubmission(assignmentId);
+
+        mockMvc.perform(put("/api/lessons/submissions/grades")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new GradeDto(first, 90, "Good", null),
+                                new GradeDto(second, 150, null, null),
+                                new GradeDto(first, 10, null, null),
+                                new GradeDto(-1L, 50, null, null),
+                                new GradeDto(third, 70, null, 7L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("GRADED"))
+                .andExpect(jsonPath("$[0].version").value(1))
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[2].status").value("INVALID"))
+                .andExpect(jsonPath("$[3].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[4].status").value("CONFLICT"));
+
+        // a regrade against the version read before the first grade is rejected
+        mockMvc.perform(put("/api/lessons/submissions/grades")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(
+                                new GradeDto(first, 50, "Stale", 0L),
+                                new GradeDto(second, 100, "Perfect", 0L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CONFLICT"))
+                .andExpect(jsonPath("$[1].status").value("GRADED"));
+
+        // entities are not loaded by bulk grading: read the rows themselves
+        assertThat(jdbcTemplate.queryForList("select score from submissions where id in (?, ?, ?) order by id",
+                Integer.class, first, second, third)).containsExactly(90, 100, null);
+        assertThat(jdbcTemplate.queryForObject("select feedback from submissions where id = ?", String.class, first))
+                .isEqualTo("Good");
+    }
+
+    @Test
+    void testListSubmissionsByPage() throws Exception {
+        Long assignmentId = createAssignment();
+        Long first = createSubmission(assignmentId);
+        Long second = createSubmission(assignmentId);
+        Long third = createSubmission(assignmentId);
+
+        String cursor = mockMvc.perform(get("/api/lessons/submissions").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(first))
+                .andExpect(jsonPath("$[1].id").value(second))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/lessons/submissions").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(third))
+                .andExpect(jsonPath("$[0].assignmentId").value(assignmentId))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        mockMvc.perform(get("/api/lessons/submissions").param("sort", "content"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long createAssignment() throws Exception {
+        LessonDto lessonDto = new LessonDto();
+        lessonDto.setTitle("Lesson 1");
+        lessonDto.setModuleId(moduleId);
+        String lessonResponse = mockMvc.perform(post("/api/lessons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(lessonDto)))
+                .andReturn().getResponse().getContentAsString();
+
+        AssignmentDto assignmentDto = new AssignmentDto();
+        assignmentDto.setTitle("Assignment 1");
+        assignmentDto.setMaxScore(100);
+        assignmentDto.setLessonId(objectMapper.readValue(lessonResponse, LessonDto.class).getId());
+        String assignmentResponse = mockMvc.perform(post("/api/lessons/assignments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(assignmentDto)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(assignmentResponse, AssignmentDto.class).getId();
+    }
+
+    private Long createSubmission(Long assignmentId) throws Exception {
+        SubmissionDto submissionDto = new SubmissionDto();
+        submissionDto.setAssignmentId(assignmentId);
+        submissionDto.setStudentId(studentId);
+        submissionDto.setContent("My submission");
+        String response = mockMvc.perform(post("/api/lessons/submissions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(submissionDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, SubmissionDto.class).getId();
+    }
 }
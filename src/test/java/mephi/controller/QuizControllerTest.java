@@ -4,23 +4,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import mephi.Role;
 import mephi.dto.*;
 import mephi.entity.Question.QuestionType;
+import mephi.support.QueryCounter;
+import mephi.support.QueryCounter.QueryCount;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
+@Import(QueryCounter.Config.class)
 @Transactional
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class QuizControllerTest {
@@ -31,6 +41,9 @@ class QuizControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private QueryCounter queryCounter;
+
     private Long moduleId;
     private Long studentId;
 
@@ -113,9 +126,36 @@ class QuizControllerTest {
                 .andReturn().getResponse().getContentAsString();
         Long quizId = objectMapper.readValue(response, QuizDto.class).getId();
 
-        mockMvc.perform(get("/api/quizzes/" + quizId))
+        String etag = mockMvc.perform(get("/api/quizzes/" + quizId))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.title").value("Quiz 1"));
+                .andExpect(jsonPath("$.title").value("Quiz 1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // the same entity version serves If-None-Match on GET and If-Match on PUT
+        mockMvc.perform(get("/api/quizzes/" + quizId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        quizDto.setTitle("Quiz 2");
+        String updated = mockMvc.perform(put("/api/quizzes/" + quizId)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quizDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        List<String> etags = mockMvc.perform(get("/api/quizzes/" + quizId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Quiz 2"))
+                .andReturn().getResponse().getHeaders(HttpHeaders.ETAG);
+        assertThat(etags).containsExactly(updated);
+
+        // the current version is now known, so revalidating reads nothing
+        QueryCount queries = queryCounter.count(() -> mockMvc.perform(get("/api/quizzes/" + quizId)
+                        .header(HttpHeaders.IF_NONE_MATCH, updated))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, updated)));
+        assertThat(queries.total()).isZero();
+
+        mockMvc.perform(get("/api/quizzes/" + (quizId + 1000)).header(HttpHeaders.IF_NONE_MATCH, updated))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -220,13 +260,134 @@ class QuizControllerTest {
         QuizSubmissionDto submissionDto = new QuizSubmissionDto();
         submissionDto.setQuizId(quizId);
         submissionDto.setStudentId(studentId);
-        submissionDto.setScore(85.0);
 
         mockMvc.perform(post("/api/quizzes/submissions")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(submissionDto)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.score").value(85.0));
+                .andExpect(jsonPath("$.score").value(0.0));
+    }
+
+    @Test
+    void testCreateQuizSubmissionRejectsClientScore() throws Exception {
+        QuizDto quizDto = new QuizDto();
+        quizDto.setTitle("Quiz 1");
+        quizDto.setModuleId(moduleId);
+        String quizResponse = mockMvc.perform(post("/api/quizzes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quizDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long quizId = objectMapper.readValue(quizResponse, QuizDto.class).getId();
+
+        QuizSubmissionDto submissionDto = new QuizSubmissionDto();
+        submissionDto.setQuizId(quizId);
+        submissionDto.setStudentId(studentId);
+        submissionDto.setScore(100.0);
+
+        mockMvc.perform(post("/api/quizzes/submissions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(submissionDto)))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/quizzes/submissions/student/" + studentId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void testSubmitAttemptIsGradedOnServer() throws Exception {
+        QuizDto quizDto = new QuizDto();
+        quizDto.setTitle("Graded Quiz");
+        quizDto.setModuleId(moduleId);
+        String quizResponse = mockMvc.perform(post("/api/quizzes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quizDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long quizId = objectMapper.readValue(quizResponse, QuizDto.class).getId();
+
+        Long singleId = createQuestion(quizId, "Pick one", QuestionType.SINGLE_CHOICE);
+        Long singleRight = createOption(singleId, "Right", true);
+        createOption(singleId, "Wrong", false);
+
+        Long multipleId = createQuestion(quizId, "Pick all", QuestionType.MULTIPLE_CHOICE);
+        Long multipleA = createOption(multipleId, "A", true);
+        createOption(multipleId, "B", true);
+        Long multipleC = createOption(multipleId, "C", false);
+
+        QuizAttemptDto attempt = new QuizAttemptDto();
+        attempt.setStudentId(studentId);
+        attempt.setAnswers(Map.of(
+                singleId, List.of(singleRight),
+                multipleId, List.of(multipleA, multipleC)));
+
+        // single choice: 1 point, multiple choice: (1 right - 1 wrong) / 2 correct = 0 points
+        mockMvc.perform(post("/api/quizzes/" + quizId + "/attempts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(attempt)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quizId").value(quizId))
+                .andExpect(jsonPath("$.score").value(50.0));
+
+        // changing an option must invalidate the compiled answer key
+        AnswerOptionDto update = new AnswerOptionDto(null, "C", true, multipleId);
+        mockMvc.perform(put("/api/quizzes/options/" + multipleC)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/quizzes/" + quizId + "/attempts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(attempt)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.score", closeTo(83.33, 0.01)));
+    }
+
+    @Test
+    void testSubmitAttemptWithoutQuestionsIsNotFound() throws Exception {
+        QuizDto quizDto = new QuizDto();
+        quizDto.setTitle("Empty Quiz");
+        quizDto.setModuleId(moduleId);
+        String quizResponse = mockMvc.perform(post("/api/quizzes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quizDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long quizId = objectMapper.readValue(quizResponse, QuizDto.class).getId();
+
+        QuizAttemptDto attempt = new QuizAttemptDto();
+        attempt.setStudentId(studentId);
+        attempt.setAnswers(Map.of());
+        for (Long id : List.of(quizId, quizId + 1000)) {
+            mockMvc.perform(post("/api/quizzes/" + id + "/attempts")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(attempt)))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Test
+    void testScoreCorrectionStaysOnAnswerKeyScale() throws Exception {
+        QuizDto quizDto = new QuizDto();
+        quizDto.setTitle("Corrected Quiz");
+        quizDto.setModuleId(moduleId);
+        String quizResponse = mockMvc.perform(post("/api/quizzes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quizDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long quizId = objectMapper.readValue(quizResponse, QuizDto.class).getId();
+        Long submissionId = submit(quizId, studentId, 100.0);
+
+        QuizSubmissionDto correction = new QuizSubmissionDto();
+        for (Double score : new Double[]{null, -1.0, 100.5}) {
+            correction.setScore(score);
+            mockMvc.perform(put("/api/quizzes/submissions/" + submissionId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(correction)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        mockMvc.perform(get("/api/quizzes/submissions/" + submissionId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.score").value(100.0));
     }
 
     @Test
@@ -245,7 +406,6 @@ class QuizControllerTest {
         QuizSubmissionDto submissionDto = new QuizSubmissionDto();
         submissionDto.setQuizId(quizId);
         submissionDto.setStudentId(studentId);
-        submissionDto.setScore(90.0);
 
         mockMvc.perform(post("/api/quizzes/submissions")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -254,6 +414,154 @@ class QuizControllerTest {
         mockMvc.perform(get("/api/quizzes/submissions/student/" + studentId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].score").value(90.0));
+                .andExpect(jsonPath("$[0].score").value(0.0));
+    }
+
+    @Test
+    void testListQuizSubmissionsByPage() throws Exception {
+        QuizDto quizDto = new QuizDto();
+        quizDto.setTitle("Paged Quiz");
+        quizDto.setModuleId(moduleId);
+        String quizResponse = mockMvc.perform(post("/api/quizzes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quizDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long quizId = objectMapper.readValue(quizResponse, QuizDto.class).getId();
+        Long first = submit(quizId, studentId, 40.0);
+        Long second = submit(quizId, studentId, 50.0);
+        Long third = submit(quizId, studentId, 60.0);
+
+        String cursor = mockMvc.perform(get("/api/quizzes/submissions").param("size", "2").param("direction", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(third))
+                .andExpect(jsonPath("$[0].score").value(60.0))
+                .andExpect(jsonPath("$[1].id").value(second))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/quizzes/submissions").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(first))
+                .andExpect(jsonPath("$[0].quizId").value(quizId))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void testLeaderboardRanksBestAttempts() throws Exception {
+        QuizDto quizDto = new QuizDto();
+        quizDto.setTitle("Ranked Quiz");
+        quizDto.setModuleId(moduleId);
+        String quizResponse = mockMvc.perform(post("/api/quizzes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(quizDto)))
+                .andReturn().getResponse().getContentAsString();
+        Long quizId = objectMapper.readValue(quizResponse, QuizDto.class).getId();
+        Long secondId = createStudent("second@test.com");
+        Long thirdId = createStudent("third@test.com");
+
+        mockMvc.perform(get("/api/quizzes/" + quizId + "/leaderboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.participants").value(0))
+                .andExpect(jsonPath("$.entries").isEmpty());
+
+        submit(quizId, studentId, 60.0);
+        Long bestId = submit(quizId, studentId, 90.0);
+        submit(quizId, secondId, 90.0);
+        submit(quizId, thirdId, 70.0);
+
+        // one entry per student, equal scores ordered by who got there first
+        mockMvc.perform(get("/api/quizzes/" + quizId + "/leaderboard").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.participants").value(3))
+                .andExpect(jsonPath("$.entries.length()").value(2))
+                .andExpect(jsonPath("$.entries[0].studentId").value(studentId))
+                .andExpect(jsonPath("$.entries[0].score").value(90.0))
+                .andExpect(jsonPath("$.entries[1].studentId").value(secondId))
+                .andExpect(jsonPath("$.entries[1].rank").value(2));
+
+        mockMvc.perform(get("/api/quizzes/" + quizId + "/leaderboard/students/" + thirdId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rank").value(3))
+                .andExpect(jsonPath("$.participants").value(3))
+                .andExpect(jsonPath("$.percentile", closeTo(33.33, 0.01)))
+                .andExpect(jsonPath("$.score").value(70.0));
+
+        // deleting the best attempt falls back to the next best one
+        mockMvc.perform(delete("/api/quizzes/submissions/" + bestId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/quizzes/" + quizId + "/leaderboard/students/" + secondId + "/around")
+                        .param("radius", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries.length()").value(2))
+                .andExpect(jsonPath("$.entries[0].studentId").value(secondId))
+                .andExpect(jsonPath("$.entries[1].studentId").value(thirdId));
+
+        mockMvc.perform(get("/api/quizzes/" + quizId + "/leaderboard/students/" + studentId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rank").value(3))
+                .andExpect(jsonPath("$.score").value(60.0));
+
+        mockMvc.perform(get("/api/quizzes/" + quizId + "/leaderboard/students/" + createStudent("idle@test.com")))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/quizzes/" + quizId + "/leaderboard").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/quizzes/" + (quizId + 1000) + "/leaderboard"))
+                .andExpect(status().isNotFound());
+    }
+
+    private Long createStudent(String email) throws Exception {
+        UserDto student = new UserDto();
+        student.setName("Student");
+        student.setEmail(email);
+        student.setRole(Role.STUDENT);
+        String response = mockMvc.perform(post("/user/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, UserDto.class).getId();
+    }
+
+    /** A blank attempt whose score is then set by hand, as a teacher would correct it. */
+    private Long submit(Long quizId, Long studentId, double score) throws Exception {
+        QuizSubmissionDto submissionDto = new QuizSubmissionDto();
+        submissionDto.setQuizId(quizId);
+        submissionDto.setStudentId(studentId);
+        String response = mockMvc.perform(post("/api/quizzes/submissions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(submissionDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readValue(response, QuizSubmissionDto.class).getId();
+
+        submissionDto.setScore(score);
+        mockMvc.perform(put("/api/quizzes/submissions/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(submissionDto)))
+                .andExpect(status().isOk());
+        return id;
+    }
+
+    private Long createQuestion(Long quizId, String text, QuestionType type) throws Exception {
+        QuestionDto questionDto = new QuestionDto();
+        questionDto.setText(text);
+        questionDto.setType(type);
+        questionDto.setQuizId(quizId);
+        String response = mockMvc.perform(post("/api/quizzes/questions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(questionDto)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, QuestionDto.class).getId();
+    }
+
+    private Long createOption(Long questionId, String text, boolean correct) throws Exception {
+        AnswerOptionDto answerDto = new AnswerOptionDto(null, text, correct, questionId);
+        String response = mockMvc.perform(post("/api/quizzes/options")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(answerDto)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, AnswerOptionDto.class).getId();
     }
 }
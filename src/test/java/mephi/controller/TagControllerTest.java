@@ -1,7 +1,12 @@
 package mephi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import mephi.Role;
+import mephi.dto.CategoryDto;
+import mephi.dto.CourseDto;
 import mephi.dto.TagDto;
+import mephi.dto.UserDto;
+import mephi.service.TagService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -10,7 +15,10 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,6 +36,12 @@ class TagControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     void testCreateTag() throws Exception {
         TagDto tagDto = new TagDto();
@@ -125,4 +139,103 @@ class TagControllerTest {
         mockMvc.perform(get("/api/tags/" + created.getId()))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    // the facet index only takes committed changes, so every request commits on its own
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testCatalogFiltersByTagsWithFacets() throws Exception {
+        CategoryDto category = new CategoryDto();
+        category.setName("Programming");
+        Long categoryId = objectMapper.readValue(mockMvc.perform(post("/categories/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(category)))
+                .andReturn().getResponse().getContentAsString(), CategoryDto.class).getId();
+        UserDto teacher = new UserDto();
+        teacher.setName("Teacher");
+        teacher.setEmail("teacher@test.com");
+        teacher.setRole(Role.TEACHER);
+        Long teacherId = objectMapper.readValue(mockMvc.perform(post("/user/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(teacher)))
+                .andReturn().getResponse().getContentAsString(), UserDto.class).getId();
+
+        Long java = createTag("Java");
+        Long web = createTag("Web");
+        Long data = createTag("Data");
+        Long spring = createCourse("Spring", categoryId, teacherId);
+        Long core = createCourse("Java Core", categoryId, teacherId);
+        Long pandas = createCourse("Pandas", categoryId, teacherId);
+        attach(java, spring);
+        attach(web, spring);
+        attach(java, core);
+        attach(data, pandas);
+
+        mockMvc.perform(get("/courses/catalog").param("tags", java.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.courses[0].id").value(spring))
+                .andExpect(jsonPath("$.courses[1].id").value(core))
+                .andExpect(jsonPath("$.facets.length()").value(1))
+                .andExpect(jsonPath("$.facets[0].name").value("Web"))
+                .andExpect(jsonPath("$.facets[0].count").value(1));
+
+        mockMvc.perform(get("/courses/catalog").param("tags", java.toString(), web.toString()))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.courses[0].title").value("Spring"));
+
+        mockMvc.perform(get("/courses/catalog")
+                        .param("tags", web.toString(), data.toString())
+                        .param("match", "any")
+                        .param("teacherId", teacherId.toString())
+                        .param("size", "1"))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.courses.length()").value(1))
+                .andExpect(jsonPath("$.nextAfterId").value(spring))
+                .andExpect(jsonPath("$.facets[0].name").value("Java"));
+
+        mockMvc.perform(delete("/api/tags/" + java + "/courses/" + core))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/courses/catalog").param("tags", java.toString()))
+                .andExpect(jsonPath("$.total").value(1));
+
+        // a rolled-back attach never reaches the index
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            tagService.attachCourse(java, pandas, null);
+            status.setRollbackOnly();
+        });
+        mockMvc.perform(get("/courses/catalog").param("tags", java.toString()))
+                .andExpect(jsonPath("$.total").value(1));
+
+        mockMvc.perform(get("/courses/catalog").param("match", "some"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long createTag(String name) throws Exception {
+        TagDto tagDto = new TagDto();
+        tagDto.setName(name);
+        String response = mockMvc.perform(post("/api/tags")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tagDto)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, TagDto.class).getId();
+    }
+
+    private Long createCourse(String title, Long categoryId, Long teacherId) throws Exception {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setTitle(title);
+        courseDto.setDescription("Description");
+        courseDto.setDuration(30);
+        courseDto.setCategoryId(categoryId);
+        courseDto.setTeacherId(teacherId);
+        String response = mockMvc.perform(post("/courses/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(courseDto)))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, CourseDto.class).getId();
+    }
+
+    private void attach(Long tagId, Long courseId) throws Exception {
+        mockMvc.perform(put("/api/tags/" + tagId + "/courses/" + courseId))
+                .andExpect(status().isOk());
+    }
 }
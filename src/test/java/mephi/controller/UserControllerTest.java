@@ -119,4 +119,50 @@ class UserControllerTest {
         mockMvc.perform(delete("/user/" + created.getId()))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void testImportUsersReportsRowErrors() throws Exception {
+        String body = """
+                {"name":"Alice","email":"alice@example.com","role":"STUDENT"}
+                {"name":"Alice Again","email":"alice@example.com","role":"STUDENT"}
+                not json
+                {"name":"Bob","email":"bob@example.com","role":"TEACHER"}
+                """;
+
+        mockMvc.perform(post("/users/import")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.rowsRead").value(4))
+                .andExpect(jsonPath("$.rowsImported").value(2))
+                .andExpect(jsonPath("$.rowsFailed").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[1].row").value(3));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void testImportUsersFromCsv() throws Exception {
+        String body = """
+                name,email,role
+                "Doe, John",john@example.com,STUDENT
+                Jane,jane@example.com,ADMIN
+                """;
+
+        mockMvc.perform(post("/users/import")
+                        .param("format", "csv")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported").value(2))
+                .andExpect(jsonPath("$.errors").isEmpty());
+
+        mockMvc.perform(get("/users").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Doe, John"));
+    }
 }
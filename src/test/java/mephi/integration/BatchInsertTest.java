@@ -0,0 +1,129 @@
+package mephi.integration;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import mephi.Role;
+import mephi.entity.Assignment;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.Lesson;
+import mephi.entity.Module;
+import mephi.entity.Submission;
+import mephi.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JDBC batching of inserts
+ * Testing requirement: inserting 10k submissions prepares roughly 10k / batch_size insert
+ * statements (plus one sequence call per allocation block) instead of one per row
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@Transactional
+class BatchInsertTest {
+    private static final int ROWS = 10_000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User student;
+    private Assignment assignment;
+
+    @BeforeEach
+    void setup() {
+        Category category = new Category();
+        category.setName("Programming");
+        entityManager.persist(category);
+
+        User teacher = new User();
+        teacher.setName("Teacher");
+        teacher.setEmail("teacher@test.com");
+        teacher.setRole(Role.TEACHER);
+        entityManager.persist(teacher);
+
+        student = new User();
+        student.setName("Student");
+        student.setEmail("student@test.com");
+        student.setRole(Role.STUDENT);
+        entityManager.persist(student);
+
+        Course course = new Course();
+        course.setTitle("Java Course");
+        course.setDescription("Description");
+        course.setDuration(30);
+        course.setCategory(category);
+        course.setTeacher(teacher);
+        entityManager.persist(course);
+
+        Module module = new Module();
+        module.setTitle("Module 1");
+        module.setOrderIndex(1);
+        module.setCourse(course);
+        entityManager.persist(module);
+
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Lesson 1");
+        lesson.setContent("Content");
+        lesson.setModule(module);
+        entityManager.persist(lesson);
+
+        assignment = new Assignment();
+        assignment.setTitle("Assignment 1");
+        assignment.setDescription("Do this");
+        assignment.setMaxScore(100);
+        assignment.setLesson(lesson);
+        entityManager.persist(assignment);
+
+        entityManager.flush();
+    }
+
+    @Test
+    void testInsertsAreBatched() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        for (int i = 0; i < ROWS; i++) {
+            Submission submission = new Submission();
+            submission.setAssignment(assignment);
+            submission.setStudent(student);
+            submission.setContent("Solution " + i);
+            submission.setSubmittedAt(LocalDateTime.now());
+            entityManager.persist(submission);
+            if ((i + 1) % BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                assignment = entityManager.getReference(Assignment.class, assignment.getId());
+                student = entityManager.getReference(User.class, student.getId());
+            }
+        }
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        // ROWS / BATCH_SIZE insert batches + ROWS / BATCH_SIZE sequence calls, instead of ROWS inserts
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * ROWS / BATCH_SIZE + 10);
+
+        Long stored = entityManager.createQuery(
+                        "select count(s) from Submission s where s.assignment.id = :id", Long.class)
+                .setParameter("id", assignment.getId())
+                .getSingleResult();
+        assertThat(stored).isEqualTo(ROWS);
+    }
+}
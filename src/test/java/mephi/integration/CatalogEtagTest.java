@@ -0,0 +1,96 @@
+package mephi.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mephi.dto.CategoryDto;
+import mephi.dto.TagDto;
+import mephi.support.QueryCounter;
+import mephi.support.QueryCounter.QueryCount;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GET of catalog reads
+ * Testing requirement: a matching If-None-Match is answered with 304 and no SQL at all; a write
+ * to the catalog changes its ETag, writes to other catalogs do not
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCounter.Config.class)
+@Transactional
+class CatalogEtagTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Test
+    void testUnchangedCatalogIsNotModified() throws Exception {
+        for (String url : new String[]{"/categories/all", "/api/tags", "/courses/all"}) {
+            String etag = etagOf(url);
+
+            QueryCount queries = queryCounter.count(() -> mockMvc.perform(get(url)
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(content().string("")));
+            assertThat(queries.total()).as(url).isZero();
+        }
+    }
+
+    @Test
+    void testWriteChangesOnlyItsCatalogEtag() throws Exception {
+        String categories = etagOf("/categories/all");
+        String tags = etagOf("/api/tags");
+
+        CategoryDto category = new CategoryDto();
+        category.setName("Programming");
+        mockMvc.perform(post("/categories/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(category)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/categories/all").header(HttpHeaders.IF_NONE_MATCH, categories))
+                .andExpect(status().isOk());
+        assertThat(etagOf("/categories/all")).isNotEqualTo(categories);
+        mockMvc.perform(get("/api/tags").header(HttpHeaders.IF_NONE_MATCH, tags))
+                .andExpect(status().isNotModified());
+
+        TagDto tag = new TagDto();
+        tag.setName("java");
+        mockMvc.perform(post("/api/tags")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tag)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/tags").header(HttpHeaders.IF_NONE_MATCH, tags))
+                .andExpect(status().isOk());
+    }
+
+    private String etagOf(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+}
@@ -0,0 +1,73 @@
+package mephi.integration;
+
+import mephi.dto.CourseRecommendationDto;
+import mephi.service.CoEnrollmentModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * In-memory co-enrollment model
+ * Testing requirement: related courses ranked by shared students, personal suggestions without
+ * the user's own courses, and incremental enrollments and deletions without a database
+ */
+class CoEnrollmentModelTest {
+    private CoEnrollmentModel model;
+
+    @BeforeEach
+    void setup() {
+        model = new CoEnrollmentModel(20, 3);
+        CoEnrollmentModel partition = new CoEnrollmentModel(20, 3);
+        model.addUser(1, new int[]{1, 2});
+        model.addUser(2, new int[]{1, 2});
+        partition.addUser(3, new int[]{1, 3});
+        partition.addUser(4, new int[]{2});
+        model.merge(partition);
+        model.rankAll();
+    }
+
+    @Test
+    void testRelatedCoursesRankedBySharedStudents() {
+        assertThat(model.related(1, 10))
+                .extracting(CourseRecommendationDto::getCourseId, CourseRecommendationDto::getScore)
+                .containsExactly(tuple(2L, 2L), tuple(3L, 1L));
+        assertThat(model.related(1, 1)).hasSize(1);
+        assertThat(model.related(99, 10)).isEmpty();
+        assertThat(model.userCount()).isEqualTo(4);
+        assertThat(model.enrollmentCount()).isEqualTo(7);
+    }
+
+    @Test
+    void testSuggestionsSkipOwnCourses() {
+        assertThat(model.suggest(4, 10)).extracting(CourseRecommendationDto::getCourseId).containsExactly(1L);
+        assertThat(model.suggest(3, 10)).extracting(CourseRecommendationDto::getCourseId).containsExactly(2L);
+        assertThat(model.suggest(1, 10)).extracting(CourseRecommendationDto::getCourseId).containsExactly(3L);
+        assertThat(model.suggest(42, 10)).isEmpty();
+    }
+
+    @Test
+    void testIncrementalEnrollmentAndRemoval() {
+        model.enroll(4, 3);
+        model.enroll(4, 3);
+        assertThat(model.related(3, 10)).extracting(CourseRecommendationDto::getCourseId).containsExactly(1L, 2L);
+        assertThat(model.enrollmentCount()).isEqualTo(8);
+
+        model.removeCourse(2);
+        assertThat(model.related(2, 10)).isEmpty();
+        assertThat(model.related(1, 10)).extracting(CourseRecommendationDto::getCourseId).containsExactly(3L);
+        assertThat(model.suggest(4, 10)).extracting(CourseRecommendationDto::getCourseId).containsExactly(1L);
+
+        model.removeUser(4);
+        assertThat(model.suggest(4, 10)).isEmpty();
+    }
+
+    @Test
+    void testHeavyUsersAddNoCounts() {
+        model.addUser(5, new int[]{4, 5, 6, 7});
+        model.rankAll();
+        assertThat(model.related(4, 10)).isEmpty();
+        assertThat(model.userCount()).isEqualTo(5);
+    }
+}
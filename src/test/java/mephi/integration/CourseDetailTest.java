@@ -0,0 +1,182 @@
+package mephi.integration;
+
+import jakarta.persistence.EntityManager;
+import mephi.EnrollStatus;
+import mephi.Role;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.Enrollment;
+import mephi.entity.Module;
+import mephi.entity.Tag;
+import mephi.entity.User;
+import mephi.repository.CourseRepository;
+import mephi.service.CourseRatingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Course landing page aggregation
+ * Testing requirement: every part of the page is read in parallel; a part that runs past the
+ * branch timeout is reported missing instead of delaying the page, and a course that cannot be
+ * read in time makes the page unavailable. Not transactional: the parts are read by other
+ * threads and must see committed data. The timeout is generous, so the first queries of a fresh
+ * context never run past it; a slow part is held on a latch until the page has been answered.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "course.detail.branch-timeout=3s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class CourseDetailTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoSpyBean
+    private CourseRatingService courseRatingService;
+
+    @MockitoSpyBean
+    private CourseRepository courseRepository;
+
+    private Long courseId;
+
+    @BeforeEach
+    void setup() {
+        courseId = new TransactionTemplate(transactionManager).execute(status -> {
+            Category category = new Category();
+            category.setName("Programming " + System.nanoTime());
+            entityManager.persist(category);
+
+            User teacher = newUser("teacher", Role.TEACHER);
+            User student = newUser("student", Role.STUDENT);
+
+            Course course = new Course();
+            course.setTitle("Java Course");
+            course.setDuration(30);
+            course.setCategory(category);
+            course.setTeacher(teacher);
+            entityManager.persist(course);
+
+            for (int i = 1; i <= 2; i++) {
+                Module module = new Module();
+                module.setTitle("Module " + i);
+                module.setOrderIndex(i);
+                module.setCourse(course);
+                entityManager.persist(module);
+            }
+
+            Tag tag = new Tag();
+            tag.setName("java-" + System.nanoTime());
+            tag.getCourses().add(course);
+            entityManager.persist(tag);
+
+            Enrollment enrollment = new Enrollment();
+            enrollment.setUser(student);
+            enrollment.setCourse(course);
+            enrollment.setEnrollDate(LocalDate.now());
+            enrollment.setStatus(EnrollStatus.Active);
+            entityManager.persist(enrollment);
+            return course.getId();
+        });
+    }
+
+    @Test
+    void testDetailCombinesAllParts() throws Exception {
+        mockMvc.perform(get("/courses/{id}/detail", courseId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.course.title", is("Java Course")))
+                .andExpect(jsonPath("$.teacher.role", is("TEACHER")))
+                .andExpect(jsonPath("$.category.name").exists())
+                .andExpect(jsonPath("$.modules", hasSize(2)))
+                .andExpect(jsonPath("$.rating.reviewCount", is(0)))
+                .andExpect(jsonPath("$.tags", hasSize(1)))
+                .andExpect(jsonPath("$.enrollmentCount", is(1)))
+                .andExpect(jsonPath("$.missing", empty()));
+    }
+
+    @Test
+    void testSlowPartIsReportedMissing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(courseRatingService).getRating(any());
+
+        // the page is answered while the rating is still held back
+        try {
+            mockMvc.perform(get("/courses/{id}/detail", courseId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.course.title", is("Java Course")))
+                    .andExpect(jsonPath("$.modules", hasSize(2)))
+                    .andExpect(jsonPath("$.rating", nullValue()))
+                    .andExpect(jsonPath("$.missing", contains("rating")));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testSlowCourseMakesThePageUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(courseRepository).findDetailHeadById(any());
+
+        try {
+            mockMvc.perform(get("/courses/{id}/detail", courseId))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testUnknownCourse() throws Exception {
+        mockMvc.perform(get("/courses/{id}/detail", -1L))
+                .andExpect(status().isNotFound());
+    }
+
+    private User newUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + System.nanoTime() + "@test.com");
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+}
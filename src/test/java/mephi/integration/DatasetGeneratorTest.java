@@ -0,0 +1,82 @@
+package mephi.integration;
+
+import mephi.Role;
+import mephi.dataset.DatasetGenerator;
+import mephi.dto.DatasetReportDto;
+import mephi.entity.User;
+import mephi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Synthetic dataset generator
+ * Testing requirement: a small-scale dataset has the expected size, only consistent references,
+ * rating aggregates that match the reviews, and id sequences the application can keep using
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:dataset;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "dataset.chunk-size=300"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class DatasetGeneratorTest {
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void testGeneratedDatasetIsConsistent() {
+        DatasetReportDto report = datasetGenerator.generate(7, 0.001, 4);
+
+        assertThat(report.getRows())
+                .containsEntry("users", 500L)
+                .containsEntry("courses", 20L)
+                .containsEntry("modules", 100L)
+                .containsEntry("lessons", 200L)
+                .containsEntry("enrollment", 2_000L)
+                .containsEntry("submissions", 3_000L)
+                .containsEntry("answer_options", 2_000L);
+        assertThat(count("select count(*) from submissions")).isEqualTo(3_000L);
+
+        // students only submit to courses they are enrolled in
+        assertThat(count("select count(*) from submissions s " +
+                "join assignments a on a.id = s.assignment_id join lessons l on l.id = a.lesson_id " +
+                "join modules m on m.id = l.module_id " +
+                "where not exists (select 1 from enrollment e where e.user_id = s.student_id and e.course_id = m.course_id)"))
+                .isZero();
+        assertThat(count("select count(*) from quiz_submissions q join quizzes z on z.id = q.quiz_id " +
+                "join modules m on m.id = z.module_id " +
+                "where not exists (select 1 from enrollment e where e.user_id = q.student_id and e.course_id = m.course_id)"))
+                .isZero();
+        assertThat(count("select count(*) from questions q where (select count(*) from answer_options o " +
+                "where o.question_id = q.id and o.is_correct) <> 1")).isZero();
+        assertThat(count("select coalesce(sum(review_count), 0) from course_ratings"))
+                .isEqualTo(count("select count(*) from course_review"));
+
+        User user = new User();
+        user.setName("After generation");
+        user.setEmail("after@example.com");
+        user.setRole(Role.STUDENT);
+        assertThat(userRepository.save(user).getId()).isGreaterThan(500L);
+
+        assertThatThrownBy(() -> datasetGenerator.generate(7, 0.001, 4)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private Long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
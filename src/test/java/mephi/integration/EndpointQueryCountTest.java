@@ -0,0 +1,394 @@
+package mephi.integration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import mephi.EnrollStatus;
+import mephi.Role;
+import mephi.dto.CourseReviewDto;
+import mephi.dto.GradeDto;
+import mephi.dto.ModuleDto;
+import mephi.dto.QuizAttemptDto;
+import mephi.entity.AnswerOption;
+import mephi.entity.Assignment;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.CourseReview;
+import mephi.entity.Enrollment;
+import mephi.entity.Lesson;
+import mephi.entity.Module;
+import mephi.entity.Profile;
+import mephi.entity.Question;
+import mephi.entity.Quiz;
+import mephi.entity.QuizSubmission;
+import mephi.entity.Submission;
+import mephi.entity.Tag;
+import mephi.entity.User;
+import mephi.service.CourseFacetIndex;
+import mephi.service.QuizLeaderboard;
+import mephi.service.SearchService;
+import mephi.support.QueryCounter;
+import mephi.support.QueryCounter.QueryCount;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * N+1 regressions in the endpoints
+ * Testing requirement: every endpoint issues the same statements for a fixture with 2 rows as for
+ * one with 20 rows, and exactly the pinned number of them; read endpoints only read. A change in a
+ * count has to update the pin here, so it shows up in review. Not transactional: with a shared
+ * test transaction the persistence context would already hold the fixture and hide lazy loads.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        // its own context: on the shared testdb, create-drop of other contexts would drop this schema
+        "spring.datasource.url=jdbc:h2:mem:endpoint-queries;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCounter.Config.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext
+class EndpointQueryCountTest {
+    private static final int SMALL = 2;
+    private static final int LARGE = 20;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private CourseFacetIndex courseFacetIndex;
+
+    @Autowired
+    private QuizLeaderboard quizLeaderboard;
+
+    private Fixture small;
+    private Fixture large;
+
+    @BeforeAll
+    void setup() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        small = transaction.execute(status -> fixture(SMALL));
+        large = transaction.execute(status -> fixture(LARGE));
+        // the fixture bypasses the services, so the in-memory indexes are built from it afterwards
+        searchService.rebuild();
+        courseFacetIndex.build();
+        quizLeaderboard.build();
+    }
+
+    static Stream<Arguments> readEndpoints() {
+        return Stream.of(
+                endpoint("GET /categories/all", 1, f -> "/categories/all"),
+                endpoint("GET /api/tags", 1, f -> "/api/tags"),
+                endpoint("GET /courses/all", 1, f -> "/courses/all?size=" + f.size()),
+                endpoint("GET /courses/list_by_category", 1, f -> "/courses/list_by_category?category_id=" + f.categoryId()),
+                endpoint("GET /courses/catalog", 1, f -> "/courses/catalog?tags=" + f.tagId() + "&categoryId=" + f.categoryId()),
+                endpoint("GET /courses/ratings", 1, f -> "/courses/ratings?size=" + f.size()),
+                endpoint("GET /courses/{id}/tree", 4, f -> "/courses/" + f.courseId() + "/tree"),
+                endpoint("GET /courses/{id}/detail", 6, f -> "/courses/" + f.courseId() + "/detail"),
+                endpoint("GET /courses/users-for-course", 1, f -> "/courses/users-for-course?courseId=" + f.courseId()),
+                endpoint("GET /courses/reviews-for-course", 1, f -> "/courses/reviews-for-course?courseId=" + f.courseId()),
+                endpoint("GET /search", 0, f -> "/search?q=" + f.searchTerm()),
+                endpoint("GET /users", 1, f -> "/users?size=" + f.size()),
+                endpoint("GET /user/courses-list", 1, f -> "/user/courses-list?userId=" + f.studentId()),
+                endpoint("GET /user/reviews-for-user", 1, f -> "/user/reviews-for-user?userId=" + f.studentId()),
+                endpoint("GET /modules/get-list", 1, f -> "/modules/get-list?course_id=" + f.courseId()),
+                endpoint("GET /api/lessons", 1, f -> "/api/lessons?size=" + f.size()),
+                endpoint("GET /api/lessons/module/{id}", 1, f -> "/api/lessons/module/" + f.moduleId()),
+                endpoint("GET /api/lessons/{id}/assignments", 1, f -> "/api/lessons/" + f.lessonId() + "/assignments"),
+                endpoint("GET /api/lessons/submissions", 1, f -> "/api/lessons/submissions?size=" + f.size()),
+                endpoint("GET /api/lessons/assignments/{id}/submissions", 1,
+                        f -> "/api/lessons/assignments/" + f.assignmentId() + "/submissions"),
+                endpoint("GET /api/quizzes", 1, f -> "/api/quizzes?size=" + f.size()),
+                endpoint("GET /api/quizzes/{id}/questions", 1, f -> "/api/quizzes/" + f.quizId() + "/questions"),
+                endpoint("GET /api/quizzes/questions/{id}/options", 1,
+                        f -> "/api/quizzes/questions/" + f.questionId() + "/options"),
+                endpoint("GET /api/quizzes/submissions", 1, f -> "/api/quizzes/submissions?size=" + f.size()),
+                endpoint("GET /api/quizzes/{id}/submissions", 1, f -> "/api/quizzes/" + f.quizId() + "/submissions"),
+                endpoint("GET /api/quizzes/submissions/student/{id}", 1,
+                        f -> "/api/quizzes/submissions/student/" + f.studentId()),
+                endpoint("GET /api/quizzes/{id}/leaderboard", 0, f -> "/api/quizzes/" + f.quizId() + "/leaderboard"),
+                endpoint("GET /api/quizzes/{id}/leaderboard/students/{id}", 0,
+                        f -> "/api/quizzes/" + f.quizId() + "/leaderboard/students/" + f.studentId()),
+                endpoint("GET /api/quizzes/{id}/leaderboard/students/{id}/around", 0,
+                        f -> "/api/quizzes/" + f.quizId() + "/leaderboard/students/" + f.studentId() + "/around")
+        );
+    }
+
+    static Stream<Arguments> writeEndpoints() {
+        return Stream.of(
+                write("POST /courses/create-review", 8, f -> post("/courses/create-review")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new CourseReviewDto(null, f.teacherId(), f.courseId(), 4, "Fine")))),
+                write("POST /user/create-enrollment", 4, f -> post("/user/create-enrollment")
+                        .param("userId", String.valueOf(f.teacherId()))
+                        .param("courseId", String.valueOf(f.courseId()))),
+                write("PUT /modules/{id}", 3, f -> put("/modules/" + f.moduleId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new ModuleDto(f.moduleId(), "Renamed", 0, null, f.courseId())))),
+                write("POST /api/quizzes/{id}/attempts", 4, f -> post("/api/quizzes/" + f.quizId() + "/attempts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new QuizAttemptDto(f.teacherId(),
+                                Map.of(f.questionId(), List.of(f.correctOptionId())))))),
+                write("PUT /api/lessons/submissions/grades", 2, f -> put("/api/lessons/submissions/grades")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(f.submissionIds().stream()
+                                .map(id -> new GradeDto(id, 90, "Good", null))
+                                .toList())))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("readEndpoints")
+    void testReadStatementCountIsPinned(String endpoint, long expected, Function<Fixture, String> url) throws Exception {
+        QueryCount atSmall = queries(get(url.apply(small)));
+        QueryCount atLarge = queries(get(url.apply(large)));
+
+        assertThat(atLarge).as("%s with %d rows vs %d rows", endpoint, LARGE, SMALL).isEqualTo(atSmall);
+        assertThat(atSmall.writes()).as("%s writes", endpoint).isZero();
+        assertThat(atSmall.total()).as("%s statements", endpoint).isEqualTo(expected);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("writeEndpoints")
+    void testWriteStatementCountIsPinned(String endpoint, long expected,
+                                         Function<Fixture, MockHttpServletRequestBuilder> request) throws Exception {
+        QueryCount atSmall = queries(request.apply(small));
+        QueryCount atLarge = queries(request.apply(large));
+
+        assertThat(atLarge).as("%s with %d rows vs %d rows", endpoint, LARGE, SMALL).isEqualTo(atSmall);
+        assertThat(atSmall.total()).as("%s statements", endpoint).isEqualTo(expected);
+    }
+
+    private QueryCount queries(MockHttpServletRequestBuilder request) throws Exception {
+        return queryCounter.count(() -> mockMvc.perform(request).andExpect(status().is2xxSuccessful()));
+    }
+
+    private static Arguments endpoint(String name, long statements, Function<Fixture, String> url) {
+        return Arguments.of(name, statements, url);
+    }
+
+    private static Arguments write(String name, long statements, Function<Fixture, MockHttpServletRequestBuilder> request) {
+        return Arguments.of(name, statements, request);
+    }
+
+    private static String json(Object body) {
+        try {
+            return JSON.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * One course with {@code n} of everything below it: students (each enrolled, with a profile and a
+     * review), modules with quizzes, lessons in the first module, assignments in the first lesson,
+     * questions in the first quiz and options in the first question. The first student is enrolled in
+     * and reviews {@code n} courses, and submits to every assignment and quiz.
+     */
+    private Fixture fixture(int n) {
+        Category category = new Category();
+        category.setName("Category " + System.nanoTime());
+        entityManager.persist(category);
+        User teacher = newUser("teacher", Role.TEACHER);
+        // one word per fixture, so the search matches exactly its n courses
+        String searchTerm = "fixture" + n;
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Course course = new Course();
+            course.setTitle("Course " + searchTerm + " " + i);
+            course.setDuration(30);
+            course.setCategory(category);
+            course.setTeacher(teacher);
+            entityManager.persist(course);
+            courses.add(course);
+        }
+        Course course = courses.get(0);
+        Tag tag = new Tag();
+        tag.setName("tag-" + System.nanoTime());
+        tag.getCourses().addAll(courses);
+        entityManager.persist(tag);
+
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            User student = newUser("student" + i, Role.STUDENT);
+            Profile profile = new Profile();
+            profile.setBio("Bio " + i);
+            profile.setUser(student);
+            entityManager.persist(profile);
+            students.add(student);
+        }
+        User student = students.get(0);
+        for (User user : students) {
+            enroll(user, course);
+            review(user, course);
+        }
+        for (Course other : courses.subList(1, n)) {
+            enroll(student, other);
+            review(student, other);
+        }
+
+        List<Module> modules = new ArrayList<>();
+        List<Quiz> quizzes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Module module = new Module();
+            module.setTitle("Module " + i);
+            module.setOrderIndex(i);
+            module.setCourse(course);
+            entityManager.persist(module);
+            modules.add(module);
+
+            Quiz quiz = new Quiz();
+            quiz.setTitle("Quiz " + i);
+            quiz.setTimeLimit(30);
+            quiz.setModule(module);
+            entityManager.persist(quiz);
+            quizzes.add(quiz);
+        }
+
+        List<Lesson> lessons = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Lesson lesson = new Lesson();
+            lesson.setTitle("Lesson " + i);
+            lesson.setOrderIndex(i);
+            lesson.setModule(modules.get(0));
+            entityManager.persist(lesson);
+            lessons.add(lesson);
+        }
+
+        List<Assignment> assignments = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Assignment assignment = new Assignment();
+            assignment.setTitle("Assignment " + i);
+            assignment.setMaxScore(100);
+            assignment.setLesson(lessons.get(0));
+            entityManager.persist(assignment);
+            assignments.add(assignment);
+        }
+        List<Long> submissionIds = new ArrayList<>();
+        for (User user : students) {
+            submissionIds.add(submit(user, assignments.get(0)));
+            takeQuiz(user, quizzes.get(0));
+        }
+        for (int i = 1; i < n; i++) {
+            submit(student, assignments.get(i));
+            takeQuiz(student, quizzes.get(i));
+        }
+
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Question question = new Question();
+            question.setText("Question " + i);
+            question.setType(Question.QuestionType.SINGLE_CHOICE);
+            question.setQuiz(quizzes.get(0));
+            entityManager.persist(question);
+            questions.add(question);
+        }
+        List<AnswerOption> options = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            AnswerOption option = new AnswerOption();
+            option.setText("Option " + i);
+            option.setIsCorrect(i == 0);
+            option.setQuestion(questions.get(0));
+            entityManager.persist(option);
+            options.add(option);
+        }
+
+        return new Fixture(n, searchTerm, category.getId(), tag.getId(), teacher.getId(), course.getId(),
+                student.getId(), modules.get(0).getId(), lessons.get(0).getId(), assignments.get(0).getId(),
+                List.copyOf(submissionIds), quizzes.get(0).getId(), questions.get(0).getId(), options.get(0).getId());
+    }
+
+    private User newUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + System.nanoTime() + "@test.com");
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private void enroll(User user, Course course) {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setUser(user);
+        enrollment.setCourse(course);
+        enrollment.setEnrollDate(LocalDate.now());
+        enrollment.setStatus(EnrollStatus.Active);
+        entityManager.persist(enrollment);
+    }
+
+    private void review(User user, Course course) {
+        CourseReview review = new CourseReview();
+        review.setUser(user);
+        review.setCourse(course);
+        review.setRating(5);
+        review.setReview("Good");
+        entityManager.persist(review);
+    }
+
+    private Long submit(User user, Assignment assignment) {
+        Submission submission = new Submission();
+        submission.setStudent(user);
+        submission.setAssignment(assignment);
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setContent("Solution");
+        entityManager.persist(submission);
+        return submission.getId();
+    }
+
+    private void takeQuiz(User user, Quiz quiz) {
+        QuizSubmission submission = new QuizSubmission();
+        submission.setStudent(user);
+        submission.setQuiz(quiz);
+        submission.setScore(1.0);
+        submission.setTakenAt(LocalDateTime.now());
+        entityManager.persist(submission);
+    }
+
+    record Fixture(int size, String searchTerm, Long categoryId, Long tagId, Long teacherId, Long courseId,
+                   Long studentId, Long moduleId, Long lessonId, Long assignmentId, List<Long> submissionIds,
+                   Long quizId, Long questionId, Long correctOptionId) {
+    }
+}
@@ -0,0 +1,208 @@
+package mephi.integration;
+
+import jakarta.persistence.EntityManager;
+import mephi.EnrollStatus;
+import mephi.Role;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.Enrollment;
+import mephi.entity.User;
+import mephi.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Chunked bulk import
+ * Testing requirement: every chunk commits on its own, an import stopped by a rolled-back chunk
+ * resumes with skipChunks without duplicating the committed rows, and the course and enrollment
+ * imports report rows that reference missing or duplicate data instead of failing the chunk.
+ * Not transactional: each chunk has to commit.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "import.chunk-size=2",
+        "spring.datasource.url=jdbc:h2:mem:import;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class ImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private UserService userService;
+
+    @Test
+    void testStoppedImportResumesAfterTheLastCommittedChunk() throws Exception {
+        String body = """
+                {"name":"Resume 1","email":"resume1@example.com","role":"STUDENT"}
+                {"name":"Resume 2","email":"resume2@example.com","role":"STUDENT"}
+                {"name":"Resume 3","email":"resume3@example.com","role":"STUDENT"}
+                {"name":"Resume 4","email":"resume4@example.com","role":"STUDENT"}
+                {"name":"Resume 5","email":"resume5@example.com","role":"STUDENT"}
+                """;
+        doCallRealMethod()
+                .doThrow(new IllegalStateException("connection lost"))
+                .doCallRealMethod()
+                .when(userService).importChunk(any());
+
+        mockMvc.perform(post("/users/import")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(false))
+                .andExpect(jsonPath("$.chunkSize").value(2))
+                .andExpect(jsonPath("$.chunksCommitted").value(1))
+                .andExpect(jsonPath("$.rowsRead").value(4))
+                .andExpect(jsonPath("$.rowsImported").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(3))
+                .andExpect(jsonPath("$.errors[0].message", startsWith("Chunk 1 rolled back")));
+        assertThat(countUsers("resume%")).isEqualTo(2);
+
+        mockMvc.perform(post("/users/import")
+                        .param("skipChunks", "1")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.chunksCommitted").value(3))
+                .andExpect(jsonPath("$.rowsRead").value(5))
+                .andExpect(jsonPath("$.rowsSkipped").value(2))
+                .andExpect(jsonPath("$.rowsImported").value(3))
+                .andExpect(jsonPath("$.rowsFailed").value(0));
+        assertThat(countUsers("resume%")).isEqualTo(5);
+    }
+
+    @Test
+    void testImportCoursesReportsMissingReferences() throws Exception {
+        Long[] ids = new TransactionTemplate(transactionManager).execute(status -> {
+            Category category = new Category();
+            category.setName("Import " + System.nanoTime());
+            entityManager.persist(category);
+            User teacher = newUser("course-teacher", Role.TEACHER);
+            return new Long[]{category.getId(), teacher.getId()};
+        });
+        String body = """
+                title,duration,categoryId,teacherId
+                Imported Java,30,%1$d,%2$d
+                No Category,30,999999,%2$d
+                No Teacher,30,%1$d,999999
+                "Imported, Spring",45,%1$d,%2$d
+                ,30,%1$d,%2$d
+                """.formatted(ids[0], ids[1]);
+
+        mockMvc.perform(post("/courses/import")
+                        .param("format", "csv")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.chunksCommitted").value(3))
+                .andExpect(jsonPath("$.rowsImported").value(2))
+                .andExpect(jsonPath("$.rowsFailed").value(3))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Category not found with id: 999999"))
+                .andExpect(jsonPath("$.errors[1].row").value(3))
+                .andExpect(jsonPath("$.errors[1].message").value("Teacher not found with id: 999999"))
+                .andExpect(jsonPath("$.errors[2].row").value(5));
+
+        assertThat(jdbcTemplate.queryForList("select title from courses where teacher_id = ? order by title",
+                String.class, ids[1])).containsExactly("Imported Java", "Imported, Spring");
+    }
+
+    @Test
+    void testImportEnrollmentsSkipsDuplicates() throws Exception {
+        Long[] ids = new TransactionTemplate(transactionManager).execute(status -> {
+            Category category = new Category();
+            category.setName("Enrollments " + System.nanoTime());
+            entityManager.persist(category);
+            User teacher = newUser("enroll-teacher", Role.TEACHER);
+            User enrolled = newUser("enroll-existing", Role.STUDENT);
+            User student = newUser("enroll-new", Role.STUDENT);
+            Course course = new Course();
+            course.setTitle("Enrollment Import");
+            course.setCategory(category);
+            course.setTeacher(teacher);
+            entityManager.persist(course);
+
+            Enrollment enrollment = new Enrollment();
+            enrollment.setUser(enrolled);
+            enrollment.setCourse(course);
+            enrollment.setEnrollDate(LocalDate.now());
+            enrollment.setStatus(EnrollStatus.Active);
+            entityManager.persist(enrollment);
+            return new Long[]{course.getId(), enrolled.getId(), student.getId()};
+        });
+        String body = """
+                {"userId":%3$d,"courseId":%1$d,"enrollDate":"2024-09-01"}
+                {"userId":%2$d,"courseId":%1$d}
+                {"userId":%3$d,"courseId":%1$d}
+                {"userId":999999,"courseId":%1$d}
+                {"userId":%3$d}
+                """.formatted(ids[0], ids[1], ids[2]);
+
+        mockMvc.perform(post("/enrollments/import")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.rowsImported").value(1))
+                .andExpect(jsonPath("$.rowsFailed").value(4))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message")
+                        .value("User " + ids[1] + " is already enrolled in course " + ids[0]))
+                .andExpect(jsonPath("$.errors[1].row").value(3))
+                .andExpect(jsonPath("$.errors[1].message")
+                        .value("User " + ids[2] + " is already enrolled in course " + ids[0]))
+                .andExpect(jsonPath("$.errors[2].message").value("User not found with id: 999999"))
+                .andExpect(jsonPath("$.errors[3].message").value("userId and courseId are required"));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from enrollment where course_id = ?",
+                Long.class, ids[0])).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select enroll_date from enrollment where user_id = ?",
+                LocalDate.class, ids[2])).isEqualTo(LocalDate.of(2024, 9, 1));
+    }
+
+    private long countUsers(String emailPattern) {
+        return jdbcTemplate.queryForObject("select count(*) from users where email like ?", Long.class, emailPattern);
+    }
+
+    private User newUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,101 @@
+package mephi.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import mephi.config.LatencyMetrics;
+import mephi.entity.Category;
+import mephi.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Latency metrics
+ * Testing requirement: controller mappings and repository methods get latency histograms and
+ * per-request SQL statement counts in the Prometheus output, and recording can be switched off
+ * at runtime
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@Transactional
+class LatencyMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Long categoryId;
+
+    @BeforeEach
+    void setup() {
+        Category category = new Category();
+        category.setName("Programming");
+        categoryId = categoryRepository.save(category).getId();
+    }
+
+    @AfterEach
+    void enableAgain() throws Exception {
+        setEnabled(true);
+    }
+
+    @Test
+    void testEndpointAndRepositoryMetricsArePublished() throws Exception {
+        mockMvc.perform(get("/categories/{id}", categoryId)).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get(LatencyMetrics.REQUESTS).tag("uri", "/categories/{id}").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get(LatencyMetrics.STATEMENTS).tag("uri", "/categories/{id}").summary().count())
+                .isPositive();
+        assertThat(meterRegistry.get(LatencyMetrics.REPOSITORY).tag("repository", "CategoryRepository")
+                .timer().count()).isPositive();
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("app_http_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/categories/{id}\"")))
+                .andExpect(content().string(containsString("app_http_sql_statements_count{")))
+                .andExpect(content().string(containsString("app_repository_invocations_seconds_bucket{")));
+    }
+
+    @Test
+    void testRecordingCanBeSwitchedOff() throws Exception {
+        mockMvc.perform(get("/categories/all")).andExpect(status().isOk());
+        long recorded = meterRegistry.get(LatencyMetrics.REQUESTS).tag("uri", "/categories/all").timer().count();
+
+        setEnabled(false);
+        mockMvc.perform(get("/actuator/latency")).andExpect(jsonPath("$.enabled").value(false));
+        mockMvc.perform(get("/categories/all")).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get(LatencyMetrics.REQUESTS).tag("uri", "/categories/all").timer().count())
+                .isEqualTo(recorded);
+    }
+
+    private void setEnabled(boolean enabled) throws Exception {
+        mockMvc.perform(post("/actuator/latency")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"enabled\": " + enabled + "}"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,157 @@
+package mephi.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mephi.Role;
+import mephi.dto.CategoryDto;
+import mephi.dto.CourseDto;
+import mephi.dto.LessonDto;
+import mephi.dto.ModuleDto;
+import mephi.dto.UserDto;
+import mephi.service.LessonProgressService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lesson progress bitsets
+ * Testing requirement: visits are counted once per lesson and answered right away, the flush
+ * stores them as the enrollment's bitset, and progress re-read from the database after a lesson
+ * is deleted only counts the lessons the course still has. Not transactional: the flush writes
+ * in its own transaction and has to see the enrollments.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class LessonProgressTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LessonProgressService lessonProgressService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testVisitsAreCoalescedAndStoredAsBitset() throws Exception {
+        Long categoryId = create("/categories/create", new CategoryDto(null, "Progress"), CategoryDto.class).getId();
+        Long teacherId = createUser("progress-teacher@test.com", Role.TEACHER);
+        Long studentId = createUser("progress-student@test.com", Role.STUDENT);
+        Long idleId = createUser("progress-idle@test.com", Role.STUDENT);
+        Long outsiderId = createUser("progress-outsider@test.com", Role.STUDENT);
+
+        CourseDto course = new CourseDto();
+        course.setTitle("Progress Course");
+        course.setDuration(10);
+        course.setCategoryId(categoryId);
+        course.setTeacherId(teacherId);
+        Long courseId = create("/courses/create", course, CourseDto.class).getId();
+
+        ModuleDto module = new ModuleDto();
+        module.setTitle("Module");
+        module.setOrderIndex(1);
+        module.setCourseId(courseId);
+        Long moduleId = create("/modules/create", module, ModuleDto.class).getId();
+        Long first = createLesson(moduleId, 1);
+        Long second = createLesson(moduleId, 2);
+        Long third = createLesson(moduleId, 3);
+
+        for (Long userId : new Long[]{studentId, idleId}) {
+            mockMvc.perform(post("/user/create-enrollment")
+                            .param("userId", userId.toString())
+                            .param("courseId", courseId.toString()))
+                    .andExpect(status().isOk());
+        }
+
+        visit(first, studentId);
+        visit(second, studentId);
+        mockMvc.perform(post("/api/lessons/" + second + "/progress").param("userId", studentId.toString()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.completedLessons").value(2))
+                .andExpect(jsonPath("$.totalLessons").value(3))
+                .andExpect(jsonPath("$.lastLessonId").value(second));
+
+        mockMvc.perform(get("/courses/" + courseId + "/progress"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enrollments").value(2))
+                .andExpect(jsonPath("$.averageCompletion", closeTo(33.33, 0.01)))
+                .andExpect(jsonPath("$.completedEnrollments").value(0));
+        mockMvc.perform(post("/api/lessons/" + first + "/progress").param("userId", outsiderId.toString()))
+                .andExpect(status().isNotFound());
+
+        lessonProgressService.flush();
+        Map<String, Object> stored = jdbcTemplate.queryForMap(
+                "select progress, last_lesson_id from enrollment where user_id = ? and course_id = ?",
+                studentId, courseId);
+        BitSet done = BitSet.valueOf((byte[]) stored.get("progress"));
+        assertThat(done.cardinality()).isEqualTo(2);
+        assertThat(((Number) stored.get("last_lesson_id")).longValue()).isEqualTo(second);
+
+        // the course is re-read from the database: the deleted lesson no longer counts
+        mockMvc.perform(delete("/api/lessons/" + third))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/courses/" + courseId + "/progress/users/" + studentId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completedLessons").value(2))
+                .andExpect(jsonPath("$.totalLessons").value(2))
+                .andExpect(jsonPath("$.completion").value(100.0))
+                .andExpect(jsonPath("$.lastLessonId").value(second));
+        mockMvc.perform(get("/courses/" + courseId + "/progress"))
+                .andExpect(jsonPath("$.completedEnrollments").value(1));
+
+        // a new lesson gets a fresh bit, not the deleted lesson's one
+        createLesson(moduleId, 3);
+        mockMvc.perform(get("/courses/" + courseId + "/progress/users/" + studentId))
+                .andExpect(jsonPath("$.completedLessons").value(2))
+                .andExpect(jsonPath("$.totalLessons").value(3));
+    }
+
+    private void visit(Long lessonId, Long userId) throws Exception {
+        mockMvc.perform(post("/api/lessons/" + lessonId + "/progress").param("userId", userId.toString()))
+                .andExpect(status().isAccepted());
+    }
+
+    private Long createUser(String email, Role role) throws Exception {
+        UserDto user = new UserDto();
+        user.setName("User");
+        user.setEmail(email);
+        user.setRole(role);
+        return create("/user/create", user, UserDto.class).getId();
+    }
+
+    private Long createLesson(Long moduleId, int orderIndex) throws Exception {
+        LessonDto lesson = new LessonDto(null, "Lesson " + orderIndex, "Content", null, orderIndex, moduleId);
+        return create("/api/lessons", lesson, LessonDto.class).getId();
+    }
+
+    private <T> T create(String url, Object body, Class<T> type) throws Exception {
+        String response = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, type);
+    }
+}
@@ -0,0 +1,171 @@
+package mephi.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mephi.Role;
+import mephi.dto.CategoryDto;
+import mephi.dto.CourseDto;
+import mephi.dto.ModuleDto;
+import mephi.dto.UserDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Optimistic locking
+ * Testing requirement: PUT answers with the entity ETag, a stale If-Match is rejected with 412,
+ * and concurrent read-modify-write clients that retry on 409/412 never lose an update. Not
+ * transactional: every request has to commit for the others to see its version.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class OptimisticLockingTest {
+    private static final int CLIENTS = 4;
+    private static final int INCREMENTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long moduleId;
+
+    @BeforeEach
+    void setup() throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        Long categoryId = create("/categories/create", new CategoryDto(null, "Locking " + suffix), CategoryDto.class).getId();
+        UserDto teacher = new UserDto();
+        teacher.setName("Teacher");
+        teacher.setEmail("locking-" + suffix + "@test.com");
+        teacher.setRole(Role.TEACHER);
+        Long teacherId = create("/user/create", teacher, UserDto.class).getId();
+
+        CourseDto course = new CourseDto();
+        course.setTitle("Locking Course");
+        course.setDuration(10);
+        course.setCategoryId(categoryId);
+        course.setTeacherId(teacherId);
+        Long courseId = create("/courses/create", course, CourseDto.class).getId();
+
+        ModuleDto module = new ModuleDto();
+        module.setTitle("Counter");
+        module.setOrderIndex(0);
+        module.setCourseId(courseId);
+        moduleId = create("/modules/create", module, ModuleDto.class).getId();
+    }
+
+    @Test
+    void testStaleIfMatchIsRejected() throws Exception {
+        String etag = mockMvc.perform(get("/modules/" + moduleId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        ModuleDto module = read(mockMvc.perform(get("/modules/" + moduleId)).andReturn().getResponse());
+
+        module.setTitle("First");
+        mockMvc.perform(put("/modules/" + moduleId).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(module)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        // a second editor still holding the old ETag does not overwrite the first one
+        module.setTitle("Second");
+        mockMvc.perform(put("/modules/" + moduleId).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(module)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/modules/" + moduleId).header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(module)))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(read(mockMvc.perform(get("/modules/" + moduleId)).andReturn().getResponse()).getTitle())
+                .isEqualTo("First");
+    }
+
+    @Test
+    void testConcurrentIncrementsAreNotLost() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> conflicts = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                conflicts.add(clients.submit(() -> {
+                    start.await();
+                    int retries = 0;
+                    for (int done = 0; done < INCREMENTS; ) {
+                        if (increment()) {
+                            done++;
+                        } else {
+                            retries++;
+                        }
+                    }
+                    return retries;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> client : conflicts) {
+                assertThat(client.get()).isLessThan(1000);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        MockHttpServletResponse response = mockMvc.perform(get("/modules/" + moduleId)).andReturn().getResponse();
+        assertThat(read(response).getOrderIndex()).isEqualTo(CLIENTS * INCREMENTS);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + CLIENTS * INCREMENTS + "\"");
+    }
+
+    /** One read-modify-write; {@code false} when another client got there first. */
+    private boolean increment() throws Exception {
+        MockHttpServletResponse current = mockMvc.perform(get("/modules/" + moduleId)).andReturn().getResponse();
+        ModuleDto module = read(current);
+        module.setOrderIndex(module.getOrderIndex() + 1);
+        int status = mockMvc.perform(put("/modules/" + moduleId)
+                        .header(HttpHeaders.IF_MATCH, current.getHeader(HttpHeaders.ETAG))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(module)))
+                .andReturn().getResponse().getStatus();
+        assertThat(status).isIn(200, 409, 412);
+        return status == 200;
+    }
+
+    private ModuleDto read(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readValue(response.getContentAsString(), ModuleDto.class);
+    }
+
+    private <T> T create(String url, Object body, Class<T> type) throws Exception {
+        String response = mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, type);
+    }
+}
@@ -0,0 +1,86 @@
+package mephi.integration;
+
+import mephi.SearchDocumentType;
+import mephi.dto.SearchHitDto;
+import mephi.service.SearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * In-memory full-text index
+ * Testing requirement: BM25 ranking, top-K retrieval and incremental updates without a database
+ */
+class SearchIndexTest {
+    private SearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new SearchIndex();
+        index.put(SearchIndex.analyze(SearchDocumentType.COURSE, 1, 1, "Java Basics", "Learn the Java language"));
+        index.put(SearchIndex.analyze(SearchDocumentType.COURSE, 2, 2, "Python", "Scripting for data analysis"));
+        index.put(SearchIndex.analyze(SearchDocumentType.LESSON, 10, 1, "Collections", "Lists and maps in Java"));
+        index.put(SearchIndex.analyze(SearchDocumentType.LESSON, 11, 1, "Streams", "Functional pipelines"));
+        index.put(SearchIndex.analyze(SearchDocumentType.LESSON, 20, 2, "Pandas", "Data frames for analysis"));
+    }
+
+    @Test
+    void testTitleMatchRanksFirst() {
+        List<SearchHitDto> hits = index.search("java", null, 10);
+
+        assertThat(hits).extracting(SearchHitDto::getId).containsExactly(1L, 10L);
+        assertThat(hits.get(0).getScore()).isGreaterThan(hits.get(1).getScore());
+        assertThat(hits.get(1).getCourseId()).isEqualTo(1L);
+    }
+
+    @Test
+    void testTopKAndTypeFilter() {
+        assertThat(index.search("data analysis java", null, 2)).hasSize(2);
+        assertThat(index.search("data analysis", SearchDocumentType.LESSON, 10))
+                .extracting(SearchHitDto::getId).containsExactly(20L);
+        assertThat(index.search("kotlin", null, 10)).isEmpty();
+    }
+
+    @Test
+    void testTokenizationIgnoresCaseAndPunctuation() {
+        // "\u0401\u041b\u041a\u0410" and "\u0451\u043b\u043a\u0430" are found by "\u0435\u043b\u043a\u0430"
+        index.put(SearchIndex.analyze(SearchDocumentType.LESSON, 30, 2, "Tree",
+                "\u0401\u041b\u041a\u0410, \u0451\u043b\u043a\u0430... again!"));
+
+        assertThat(SearchIndex.tokenize("Hello, WORLD! c++")).containsExactly("hello", "world", "c");
+        assertThat(index.search("\u0435\u043b\u043a\u0430", null, 10)).extracting(SearchHitDto::getId).containsExactly(30L);
+    }
+
+    @Test
+    void testUpdatesAndRemovals() {
+        index.put(SearchIndex.analyze(SearchDocumentType.LESSON, 11, 1, "Streams", "Java stream pipelines"));
+        assertThat(index.search("functional", null, 10)).isEmpty();
+        assertThat(index.search("java", null, 10)).extracting(SearchHitDto::getId).contains(11L);
+
+        index.remove(SearchDocumentType.LESSON, 20);
+        assertThat(index.search("pandas", null, 10)).isEmpty();
+
+        index.removeCourse(1);
+        assertThat(index.search("java", null, 10)).isEmpty();
+        assertThat(index.count(SearchDocumentType.COURSE)).isEqualTo(1);
+        assertThat(index.count(SearchDocumentType.LESSON)).isZero();
+    }
+
+    @Test
+    void testResultsSurviveCompaction() {
+        for (int round = 0; round < 5; round++) {
+            for (long id = 100; id < 1_100; id++) {
+                index.put(SearchIndex.analyze(SearchDocumentType.LESSON, id, 2, "Lesson " + id, "round " + round));
+            }
+        }
+
+        assertThat(index.count(SearchDocumentType.LESSON)).isEqualTo(1_003);
+        assertThat(index.search("round", null, 5_000)).hasSize(1_000);
+        assertThat(index.search("4", null, 10)).extracting(SearchHitDto::getTitle).allMatch(title -> title != null);
+        assertThat(index.search("lesson 512", null, 1)).extracting(SearchHitDto::getId).containsExactly(512L);
+        assertThat(index.search("java", null, 10)).extracting(SearchHitDto::getId).containsExactly(1L, 10L);
+    }
+}
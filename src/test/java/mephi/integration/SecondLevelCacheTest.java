@@ -0,0 +1,228 @@
+package mephi.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import mephi.Role;
+import mephi.dto.CategoryDto;
+import mephi.dto.CourseDto;
+import mephi.dto.CourseReviewDto;
+import mephi.dto.UserDto;
+import mephi.entity.Tag;
+import mephi.repository.TagRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Second-level and query cache
+ * Testing requirement: a cached entity is read from the database once and then served from its
+ * region, a write replaces the cached entry, a cacheable query is answered from the query cache
+ * until a write to its table invalidates it, a review write (which also writes the course rating
+ * aggregate) leaves the other regions alone, and /cache/statistics reports the same counts.
+ * Every step runs in its own transaction: within one session the persistence context would
+ * answer before the caches are asked.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        // the test profile turns the caches off, this context turns them back on
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // its own context: on the shared testdb, create-drop of other contexts would drop this schema
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class SecondLevelCacheTest {
+    private static final String TAG_REGION = "mephi.entity.Tag";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+
+    /**
+     * The same ehcache.xml under a URI of its own: JCache shares one manager per URI, and the
+     * manager of another cached context must not be closed under this one.
+     */
+    @DynamicPropertySource
+    static void cacheManager(DynamicPropertyRegistry registry) throws IOException {
+        String uri = new ClassPathResource("ehcache.xml").getURL() + "#second-level-cache";
+        registry.add("spring.jpa.properties.hibernate.javax.cache.uri", () -> uri);
+    }
+
+    @BeforeEach
+    void setup() throws Exception {
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        mockMvc.perform(delete("/cache/statistics")).andExpect(status().isOk());
+    }
+
+    @Test
+    void testEntityIsServedFromItsRegionAndReplacedOnWrite() throws Exception {
+        Long tagId = transaction.execute(status -> tagRepository.save(tag("cached")).getId());
+        entityManagerFactory.getCache().evictAll();
+        mockMvc.perform(delete("/cache/statistics")).andExpect(status().isOk());
+
+        assertThat(read(tagId).getName()).isEqualTo("cached");
+        assertThat(tagRegion().getMissCount()).isEqualTo(1);
+        assertThat(tagRegion().getPutCount()).isEqualTo(1);
+
+        assertThat(read(tagId).getName()).isEqualTo("cached");
+        assertThat(tagRegion().getHitCount()).isEqualTo(1);
+        long selects = statistics.getPrepareStatementCount();
+
+        transaction.executeWithoutResult(status -> tagRepository.findById(tagId).orElseThrow().setName("renamed"));
+        long afterWrite = statistics.getPrepareStatementCount();
+
+        // the write put the new state into the region: no stale read and no select
+        assertThat(read(tagId).getName()).isEqualTo("renamed");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(afterWrite);
+        assertThat(afterWrite).isGreaterThan(selects);
+
+        mockMvc.perform(get("/cache/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.region == '" + TAG_REGION + "')].missCount").value(1))
+                .andExpect(jsonPath("$[?(@.region == '" + TAG_REGION + "')].hitCount").value(3));
+    }
+
+    @Test
+    void testCacheableQueryIsInvalidatedByWritesToItsTable() throws Exception {
+        transaction.execute(status -> tagRepository.save(tag("java")));
+
+        assertThat(findByName("java")).isTrue();
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+
+        long selects = statistics.getPrepareStatementCount();
+        assertThat(findByName("java")).isTrue();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(selects);
+
+        // any write to the tags table makes the cached result stale
+        transaction.execute(status -> tagRepository.save(tag("spring")));
+
+        assertThat(findByName("java")).isTrue();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(2);
+
+        mockMvc.perform(get("/cache/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.region == 'default-query-results-region')].hitCount").value(1))
+                .andExpect(jsonPath("$[?(@.region == 'default-query-results-region')].missCount").value(2))
+                .andExpect(jsonPath("$[?(@.region == 'default-query-results-region')].putCount").value(2));
+    }
+
+    @Test
+    void testReviewWriteKeepsOtherRegions() throws Exception {
+        Long tagId = transaction.execute(status -> tagRepository.save(tag("survivor")).getId());
+        Long teacherId = createTeacher();
+        Long courseId = createCourse(teacherId);
+        assertThat(read(tagId).getName()).isEqualTo("survivor");
+        assertThat(entityManagerFactory.getCache().contains(Tag.class, tagId)).isTrue();
+
+        // the first review creates the rating aggregate row, the second one updates it
+        createReview(courseId, teacherId, 5);
+        createReview(courseId, teacherId, 3);
+
+        assertThat(entityManagerFactory.getCache().contains(Tag.class, tagId)).isTrue();
+        long selects = statistics.getPrepareStatementCount();
+        assertThat(read(tagId).getName()).isEqualTo("survivor");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(selects);
+    }
+
+    private Long createTeacher() throws Exception {
+        UserDto teacher = new UserDto();
+        teacher.setName("Teacher");
+        teacher.setEmail("cache-teacher@test.com");
+        teacher.setRole(Role.TEACHER);
+        return objectMapper.readValue(postJson("/user/create", teacher), UserDto.class).getId();
+    }
+
+    private Long createCourse(Long teacherId) throws Exception {
+        CategoryDto category = new CategoryDto();
+        category.setName("Caching");
+        Long categoryId = objectMapper.readValue(postJson("/categories/create", category), CategoryDto.class).getId();
+
+        CourseDto course = new CourseDto();
+        course.setTitle("Caches");
+        course.setDescription("Second-level caching");
+        course.setDuration(10);
+        course.setCategoryId(categoryId);
+        course.setTeacherId(teacherId);
+        return objectMapper.readValue(postJson("/courses/create", course), CourseDto.class).getId();
+    }
+
+    private void createReview(Long courseId, Long userId, int rating) throws Exception {
+        CourseReviewDto review = new CourseReviewDto();
+        review.setCourseId(courseId);
+        review.setUserId(userId);
+        review.setRating(rating);
+        review.setReview("Review " + rating);
+        postJson("/courses/create-review", review);
+    }
+
+    private String postJson(String url, Object body) throws Exception {
+        return mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private Tag read(Long id) {
+        return transaction.execute(status -> tagRepository.findById(id).orElseThrow());
+    }
+
+    private boolean findByName(String name) {
+        return Boolean.TRUE.equals(transaction.execute(status -> tagRepository.findByName(name).isPresent()));
+    }
+
+    private CacheRegionStatistics tagRegion() {
+        return statistics.getDomainDataRegionStatistics(TAG_REGION);
+    }
+
+    private static Tag tag(String name) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        return tag;
+    }
+}
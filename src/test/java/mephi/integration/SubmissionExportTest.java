@@ -0,0 +1,91 @@
+package mephi.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import mephi.ExportFormat;
+import mephi.Role;
+import mephi.dto.QuizSubmissionDto;
+import mephi.entity.Quiz;
+import mephi.entity.QuizSubmission;
+import mephi.entity.User;
+import mephi.service.QuizSubmissionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streaming export of submissions
+ * Testing requirement: every row is written exactly once, in id order, even when the
+ * persistence context is cleared between fetch batches
+ */
+@SpringBootTest(properties = "export.fetch-size=2")
+@ActiveProfiles("test")
+@Transactional
+class SubmissionExportTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private QuizSubmissionService quizSubmissionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        User student = new User();
+        student.setName("Student");
+        student.setEmail("student@test.com");
+        student.setRole(Role.STUDENT);
+        entityManager.persist(student);
+
+        Quiz quiz = new Quiz();
+        quiz.setTitle("Quiz 1");
+        entityManager.persist(quiz);
+
+        for (int i = 1; i <= 5; i++) {
+            QuizSubmission submission = new QuizSubmission();
+            submission.setQuiz(quiz);
+            submission.setStudent(student);
+            submission.setScore(i * 10.0);
+            submission.setTakenAt(LocalDateTime.now());
+            entityManager.persist(submission);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testExportNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        quizSubmissionService.export(ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(5);
+        for (int i = 0; i < lines.length; i++) {
+            QuizSubmissionDto dto = objectMapper.readValue(lines[i], QuizSubmissionDto.class);
+            assertThat(dto.getScore()).isEqualTo((i + 1) * 10.0);
+        }
+    }
+
+    @Test
+    void testExportCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        quizSubmissionService.export(ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(6);
+        assertThat(lines[0]).isEqualTo("id,quizId,studentId,score,takenAt");
+        assertThat(lines[5]).contains(",50.0,");
+    }
+}
@@ -0,0 +1,219 @@
+package mephi.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import mephi.Role;
+import mephi.dto.SubmissionDto;
+import mephi.dto.SubmissionReceiptDto;
+import mephi.entity.Assignment;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.Lesson;
+import mephi.entity.Module;
+import mephi.entity.User;
+import mephi.repository.AssignmentRepository;
+import mephi.repository.CategoryRepository;
+import mephi.repository.CourseRepository;
+import mephi.repository.LessonRepository;
+import mephi.repository.ModuleRepository;
+import mephi.repository.SubmissionRepository;
+import mephi.repository.UserRepository;
+import mephi.service.SubmissionIntakeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Async submission intake
+ * Testing requirement: accepted submissions are acknowledged with their id and stored in batches;
+ * a full queue answers 429. Not transactional: the writer stores from its own thread and must see
+ * the committed assignment and student.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "submission.intake.batch-size=50"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class SubmissionIntakeTest {
+    private static final int SUBMISSIONS = 120;
+    private static final int CLIENTS = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SubmissionIntakeService submissionIntakeService;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    private Long assignmentId;
+    private Long studentId;
+
+    @BeforeEach
+    void setup() {
+        Category category = new Category();
+        category.setName("Programming " + System.nanoTime());
+        categoryRepository.save(category);
+
+        User teacher = newUser("teacher", Role.TEACHER);
+        studentId = newUser("student", Role.STUDENT).getId();
+
+        Course course = new Course();
+        course.setTitle("Java Course");
+        course.setDuration(30);
+        course.setCategory(category);
+        course.setTeacher(teacher);
+        courseRepository.save(course);
+
+        Module module = new Module();
+        module.setTitle("Module 1");
+        module.setOrderIndex(1);
+        module.setCourse(course);
+        moduleRepository.save(module);
+
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Lesson 1");
+        lesson.setModule(module);
+        lessonRepository.save(lesson);
+
+        Assignment assignment = new Assignment();
+        assignment.setTitle("Assignment 1");
+        assignment.setMaxScore(100);
+        assignment.setLesson(lesson);
+        assignmentId = assignmentRepository.save(assignment).getId();
+    }
+
+    @Test
+    void testAcceptedSubmissionsAreStored() throws Exception {
+        // concurrent clients, so submissions arrive while the writer is busy and share batches
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int first = client;
+                requests.add(clients.submit(() -> {
+                    for (int i = first; i < SUBMISSIONS; i += CLIENTS) {
+                        String response = mockMvc.perform(post("/api/lessons/submissions/intake")
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(submission("Solution " + i))))
+                                .andExpect(status().isAccepted())
+                                .andExpect(jsonPath("$.receivedAt").exists())
+                                .andReturn().getResponse().getContentAsString();
+                        ids.add(objectMapper.readValue(response, SubmissionReceiptDto.class).getId());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> request : requests) {
+                request.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        assertThat(ids).hasSize(SUBMISSIONS);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (submissionIntakeService.getStats().getStored() < SUBMISSIONS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        List<Long> stored = new ArrayList<>(submissionRepository.findExistingIds(ids));
+        assertThat(stored).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(submissionIntakeService.getStats().getQueueDepth()).isZero();
+        assertThat(submissionIntakeService.getStats().getBatches()).isLessThan(SUBMISSIONS);
+        assertThat(submissionRepository.findById(ids.iterator().next()).orElseThrow().getSubmittedAt()).isNotNull();
+    }
+
+    @Test
+    void testUnknownAssignmentIsRejectedBeforeQueueing() {
+        SubmissionDto submission = submission("Solution");
+        submission.setAssignmentId(-1L);
+        long accepted = submissionIntakeService.getStats().getAccepted();
+
+        assertThatThrownBy(() -> submissionIntakeService.accept(submission))
+                .isInstanceOf(EntityNotFoundException.class);
+        assertThat(submissionIntakeService.getStats().getAccepted()).isEqualTo(accepted);
+    }
+
+    @Nested
+    @TestPropertySource(properties = "submission.intake.queue-capacity=0")
+    class WhenQueueIsFull {
+        // the enclosing instance is injected from the enclosing class's context
+        @Autowired
+        private MockMvc fullQueueMockMvc;
+
+        @Test
+        void testIntakeAnswersTooManyRequests() throws Exception {
+            fullQueueMockMvc.perform(post("/api/lessons/submissions/intake")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(submission("Solution"))))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        }
+    }
+
+    private SubmissionDto submission(String content) {
+        SubmissionDto submission = new SubmissionDto();
+        submission.setAssignmentId(assignmentId);
+        submission.setStudentId(studentId);
+        submission.setContent(content);
+        return submission;
+    }
+
+    private User newUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + System.nanoTime() + "@test.com");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+}
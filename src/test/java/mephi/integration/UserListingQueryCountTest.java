@@ -0,0 +1,122 @@
+package mephi.integration;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import mephi.Role;
+import mephi.dto.CursorPage;
+import mephi.dto.UserDto;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.Enrollment;
+import mephi.entity.Profile;
+import mephi.entity.User;
+import mephi.request.CursorRequest;
+import mephi.service.CourseService;
+import mephi.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * N+1 profile loading in user listings
+ * Testing requirement: listing N users with profiles issues a constant number of SQL statements,
+ * not one extra statement per user
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // its own context: on the shared testdb, create-drop of other contexts would drop this schema
+        "spring.datasource.url=jdbc:h2:mem:user-listing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+})
+@ActiveProfiles("test")
+@Transactional
+class UserListingQueryCountTest {
+    private static final int USERS = 40;
+    private static final long MAX_STATEMENTS = 2;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CourseService courseService;
+
+    private Course course;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        Category category = new Category();
+        category.setName("Programming");
+        entityManager.persist(category);
+
+        User teacher = newUser("teacher", Role.TEACHER);
+        course = new Course();
+        course.setTitle("Java Course");
+        course.setDescription("Description");
+        course.setDuration(30);
+        course.setCategory(category);
+        course.setTeacher(teacher);
+        entityManager.persist(course);
+
+        for (int i = 0; i < USERS; i++) {
+            Enrollment enrollment = new Enrollment();
+            enrollment.setUser(newUser("student" + i, Role.STUDENT));
+            enrollment.setCourse(course);
+            enrollment.setEnrollDate(LocalDate.now());
+            entityManager.persist(enrollment);
+        }
+
+        // listings must hit the database, not the entities persisted above
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testGetAllUsersLoadsProfilesWithUsers() {
+        CursorPage<UserDto> page = userService.getAllUsers(new CursorRequest(null, CursorRequest.MAX_SIZE, "id", "asc"));
+
+        assertThat(page.getItems()).hasSizeGreaterThanOrEqualTo(USERS + 1);
+        assertThat(page.getItems()).allSatisfy(user -> assertThat(user.getProfile()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    @Test
+    void testGetAllUsersByCourseLoadsProfilesWithUsers() {
+        List<UserDto> users = courseService.getAllUsersByCourse(course.getId());
+
+        assertThat(users).hasSize(USERS);
+        assertThat(users).allSatisfy(user -> assertThat(user.getProfile().getBio()).startsWith("Bio of"));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    private User newUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@test.com");
+        user.setRole(role);
+        Profile profile = new Profile();
+        profile.setBio("Bio of " + name);
+        profile.setUser(user);
+        user.setProfile(profile);
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,111 @@
+package mephi.load;
+
+import mephi.dataset.DatasetGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request rate for unchanged catalogs, with and without {@code If-None-Match}
+ * {@value #CLIENTS} concurrent clients poll the course list, categories, tags and one quiz of a
+ * generated dataset, first as full reads, then revalidating the ETags they got earlier (304,
+ * no database access, no body).
+ * Run with {@code ./gradlew loadTest}; excluded from {@code ./gradlew test}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:etag;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class ConditionalGetLoadTest {
+    private static final int CLIENTS = 64;
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DatasetGenerator datasetGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void measureRequestRate() throws Exception {
+        datasetGenerator.generate(42, 0.01, 4);
+        Long quizId = jdbcTemplate.queryForObject("select min(id) from quizzes", Long.class);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<URI> uris = List.of(
+                uri("/courses/all?size=100"),
+                uri("/categories/all"),
+                uri("/api/tags"),
+                uri("/api/quizzes/" + quizId));
+
+        List<HttpRequest> full = uris.stream().map(uri -> HttpRequest.newBuilder(uri).build()).toList();
+        List<HttpRequest> conditional = uris.stream().map(uri -> {
+            try {
+                String etag = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                        .headers().firstValue("ETag").orElseThrow();
+                return HttpRequest.newBuilder(uri).header("If-None-Match", etag).build();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }).toList();
+
+        run("full read", client, full, 200);
+        run("If-None-Match", client, conditional, 304);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void run(String mode, HttpClient client, List<HttpRequest> requests, int expectedStatus)
+            throws InterruptedException {
+        load(client, requests, expectedStatus, WARMUP, new AtomicLong(), new AtomicLong());
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        load(client, requests, expectedStatus, MEASUREMENT, completed, errors);
+        System.out.printf("%-14s %8.0f req/s, %d errors%n", mode,
+                completed.get() / (MEASUREMENT.toMillis() / 1_000.0), errors.get());
+    }
+
+    private static void load(HttpClient client, List<HttpRequest> requests, int expectedStatus, Duration duration,
+                             AtomicLong completed, AtomicLong errors) throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int offset = c;
+                clients.submit(() -> {
+                    for (int i = offset; System.nanoTime() < end; i++) {
+                        try {
+                            HttpResponse<Void> response = client.send(requests.get(i % requests.size()),
+                                    HttpResponse.BodyHandlers.discarding());
+                            (response.statusCode() == expectedStatus ? completed : errors).incrementAndGet();
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
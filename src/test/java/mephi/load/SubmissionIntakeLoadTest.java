@@ -0,0 +1,162 @@
+package mephi.load;
+
+import jakarta.persistence.EntityManager;
+import mephi.Role;
+import mephi.dto.SubmissionDto;
+import mephi.entity.Assignment;
+import mephi.entity.Category;
+import mephi.entity.Course;
+import mephi.entity.Lesson;
+import mephi.entity.Module;
+import mephi.entity.User;
+import mephi.service.SubmissionIntakeService;
+import mephi.service.SubmissionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Deadline burst: synchronous {@code POST /api/lessons/submissions} path vs. the async intake
+ * Several client threads submit at once; the intake figure includes waiting until every
+ * accepted submission is stored, so both rows measure submissions per second that reach the database.
+ * Run with {@code ./gradlew loadTest}; excluded from {@code ./gradlew test}.
+ */
+@Tag("load")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@DirtiesContext
+class SubmissionIntakeLoadTest {
+    private static final int CLIENTS = 16;
+    private static final int SUBMISSIONS_PER_CLIENT = 1_000;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private SubmissionIntakeService submissionIntakeService;
+
+    private Long assignmentId;
+    private Long studentId;
+
+    @Test
+    void compareSynchronousAndAsyncIntake() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> seed());
+
+        // warm up both paths
+        burst(2, 200, submissionService::create);
+        burst(2, 200, submissionIntakeService::accept);
+        awaitStored();
+
+        long start = System.nanoTime();
+        burst(CLIENTS, SUBMISSIONS_PER_CLIENT, submissionService::create);
+        report("synchronous", System.nanoTime() - start);
+
+        start = System.nanoTime();
+        burst(CLIENTS, SUBMISSIONS_PER_CLIENT, submissionIntakeService::accept);
+        long acknowledged = System.nanoTime() - start;
+        awaitStored();
+        report("async intake", System.nanoTime() - start);
+        System.out.printf("%-14s %10.0f submissions/s acknowledged, %d batches%n", "",
+                CLIENTS * SUBMISSIONS_PER_CLIENT / (acknowledged / 1e9), submissionIntakeService.getStats().getBatches());
+    }
+
+    private void burst(int clients, int perClient, Consumer<SubmissionDto> submit) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perClient; i++) {
+                        submit.accept(submission("Solution " + client + "/" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void awaitStored() throws InterruptedException {
+        while (submissionIntakeService.getStats().getQueueDepth() > 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.printf("%-14s %10.0f submissions/s stored (%d ms)%n",
+                name, CLIENTS * SUBMISSIONS_PER_CLIENT / (nanos / 1e9), nanos / 1_000_000);
+    }
+
+    private SubmissionDto submission(String content) {
+        SubmissionDto submission = new SubmissionDto();
+        submission.setAssignmentId(assignmentId);
+        submission.setStudentId(studentId);
+        submission.setContent(content);
+        return submission;
+    }
+
+    private void seed() {
+        Category category = new Category();
+        category.setName("Programming");
+        entityManager.persist(category);
+
+        User teacher = newUser("teacher", Role.TEACHER);
+        studentId = newUser("student", Role.STUDENT).getId();
+
+        Course course = new Course();
+        course.setTitle("Java Course");
+        course.setDuration(30);
+        course.setCategory(category);
+        course.setTeacher(teacher);
+        entityManager.persist(course);
+
+        Module module = new Module();
+        module.setTitle("Module 1");
+        module.setOrderIndex(1);
+        module.setCourse(course);
+        entityManager.persist(module);
+
+        Lesson lesson = new Lesson();
+        lesson.setTitle("Lesson 1");
+        lesson.setModule(module);
+        entityManager.persist(lesson);
+
+        Assignment assignment = new Assignment();
+        assignment.setTitle("Assignment 1");
+        assignment.setMaxScore(100);
+        assignment.setLesson(lesson);
+        entityManager.persist(assignment);
+        assignmentId = assignment.getId();
+    }
+
+    private User newUser(String name, Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@test.com");
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+}
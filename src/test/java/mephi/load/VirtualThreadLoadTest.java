@@ -0,0 +1,189 @@
+package mephi.load;
+
+import mephi.config.AdmissionControlDataSource;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Platform-thread vs. virtual-thread request execution under slow-query load
+ * {@value #CLIENTS} concurrent clients; nine in ten requests hold a pooled connection for
+ * {@value #SLOW_QUERY_MS} ms, the rest never touch the database. Reports sustained throughput
+ * and p50/p99 latency per request kind, so the fast requests show whether they get stuck
+ * behind request threads that are all waiting for a connection.
+ * Run with {@code ./gradlew loadTest}; excluded from {@code ./gradlew test}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=50",
+        "server.tomcat.threads.max=200"
+})
+@ActiveProfiles("test")
+class VirtualThreadLoadTest {
+    private static final int CLIENTS = 1_000;
+    private static final long SLOW_QUERY_MS = 50;
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+    @Nested
+    @DirtiesContext
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads {
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void measureUnderLoad() throws Exception {
+            run("platform threads", port);
+        }
+    }
+
+    @Nested
+    @DirtiesContext
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads {
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private DataSource dataSource;
+
+        @Test
+        void measureUnderLoad() throws Exception {
+            run("virtual threads", port);
+            if (dataSource instanceof AdmissionControlDataSource admission) {
+                System.out.printf("%-17s admission queue after run: %d%n", "", admission.getQueueLength());
+            }
+        }
+    }
+
+    private static void run(String mode, int port) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI slow = URI.create("http://localhost:" + port + "/benchmark/slow");
+        URI fast = URI.create("http://localhost:" + port + "/benchmark/fast");
+
+        List<Long> slowLatencies = Collections.synchronizedList(new ArrayList<>());
+        List<Long> fastLatencies = Collections.synchronizedList(new ArrayList<>());
+        load(client, slow, fast, WARMUP, slowLatencies, fastLatencies);
+        slowLatencies.clear();
+        fastLatencies.clear();
+        long errors = load(client, slow, fast, MEASUREMENT, slowLatencies, fastLatencies);
+
+        double seconds = MEASUREMENT.toMillis() / 1_000.0;
+        System.out.printf("%-17s %8.0f req/s, %d errors%n", mode,
+                (slowLatencies.size() + fastLatencies.size()) / seconds, errors);
+        report("slow query", slowLatencies);
+        report("no database", fastLatencies);
+    }
+
+    private static long load(HttpClient client, URI slow, URI fast, Duration duration,
+                             List<Long> slowLatencies, List<Long> fastLatencies) throws InterruptedException {
+        AtomicLong errors = new AtomicLong();
+        long end = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int offset = c;
+                clients.submit(() -> {
+                    for (int i = offset; System.nanoTime() < end; i++) {
+                        boolean isFast = i % 10 == 0;
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(
+                                    HttpRequest.newBuilder(isFast ? fast : slow).build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        (isFast ? fastLatencies : slowLatencies).add(System.nanoTime() - start);
+                    }
+                });
+            }
+        }
+        return errors.get();
+    }
+
+    private static void report(String name, List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        if (sorted.isEmpty()) {
+            System.out.printf("%-17s %-12s no completed requests%n", "", name);
+            return;
+        }
+        System.out.printf("%-17s %-12s p50 %8.1f ms   p99 %8.1f ms%n", "", name,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+    }
+
+    private static long percentile(List<Long> sorted, double fraction) {
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(fraction * sorted.size()) - 1));
+    }
+
+    @TestConfiguration
+    static class Endpoints {
+        @Bean
+        LoadEndpoints loadEndpoints(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+            return new LoadEndpoints(jdbcTemplate, new TransactionTemplate(transactionManager));
+        }
+    }
+
+    @RestController
+    static class LoadEndpoints {
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate transactionTemplate;
+
+        LoadEndpoints(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.transactionTemplate = transactionTemplate;
+        }
+
+        /** Holds a connection as long as a slow query would. */
+        @GetMapping("/benchmark/slow")
+        Integer slow() {
+            return transactionTemplate.execute(status -> {
+                Integer one = jdbcTemplate.queryForObject("select 1", Integer.class);
+                try {
+                    Thread.sleep(SLOW_QUERY_MS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return one;
+            });
+        }
+
+        @GetMapping("/benchmark/fast")
+        String fast() {
+            return "ok";
+        }
+    }
+}
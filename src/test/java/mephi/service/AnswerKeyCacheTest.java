@@ -0,0 +1,62 @@
+package mephi.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import mephi.entity.AnswerOption;
+import mephi.entity.Question;
+import mephi.repository.QuestionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Answer key cache
+ * Testing requirement: a quiz with questions is compiled once and kept until invalidated, while
+ * an unknown or empty quiz is reported missing on every probe and never takes up a cache entry
+ */
+class AnswerKeyCacheTest {
+    private final QuestionRepository questionRepository = mock(QuestionRepository.class);
+    private final AnswerKeyCache cache = new AnswerKeyCache(questionRepository, 2);
+
+    @Test
+    void testKeyIsCompiledOnceUntilInvalidated() {
+        when(questionRepository.findByQuizIdWithOptions(1L)).thenReturn(List.of(question(10L, 100L)));
+
+        assertThat(cache.get(1L).grade(Map.of(10L, List.of(100L)))).isEqualTo(AnswerKey.MAX_SCORE);
+        assertThat(cache.get(1L).questionCount()).isEqualTo(1);
+        verify(questionRepository, times(1)).findByQuizIdWithOptions(1L);
+
+        cache.invalidate(1L);
+        cache.get(1L);
+        verify(questionRepository, times(2)).findByQuizIdWithOptions(1L);
+    }
+
+    @Test
+    void testQuizWithoutQuestionsIsNotCached() {
+        when(questionRepository.findByQuizIdWithOptions(99L)).thenReturn(List.of());
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> cache.get(99L)).isInstanceOf(EntityNotFoundException.class);
+        }
+        verify(questionRepository, times(3)).findByQuizIdWithOptions(99L);
+    }
+
+    private static Question question(Long id, Long correctOptionId) {
+        Question question = new Question();
+        question.setId(id);
+        question.setType(Question.QuestionType.SINGLE_CHOICE);
+        AnswerOption option = new AnswerOption();
+        option.setId(correctOptionId);
+        option.setIsCorrect(true);
+        option.setQuestion(question);
+        question.getOptions().add(option);
+        return question;
+    }
+}
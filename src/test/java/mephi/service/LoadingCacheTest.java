@@ -0,0 +1,114 @@
+package mephi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bounded loading cache
+ * Testing requirement: the least recently used key is evicted first, a slow load blocks neither
+ * other keys nor invalidation, concurrent misses of one key load it once, and a value invalidated
+ * while it loads or a failed load is not cached
+ */
+class LoadingCacheTest {
+
+    @Test
+    void testLeastRecentlyUsedKeyIsEvicted() {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<Integer, String> cache = new LoadingCache<>(2, key -> {
+            loads.incrementAndGet();
+            return "v" + key;
+        });
+
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+        cache.get(3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getIfPresent(1)).isEqualTo("v1");
+        assertThat(cache.getIfPresent(2)).isNull();
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void testSlowLoadBlocksOnlyItsOwnKey() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<Integer, String> cache = new LoadingCache<>(10, key -> {
+            loads.incrementAndGet();
+            if (key == 1) {
+                loading.countDown();
+                await(release);
+            }
+            return "v" + key;
+        });
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get(1));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> cache.get(1));
+
+        // other keys and invalidation do not wait for the load
+        assertThat(cache.get(2)).isEqualTo("v2");
+        cache.invalidate(2);
+        assertThat(waiting).isNotDone();
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void testValueInvalidatedWhileLoadingIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger version = new AtomicInteger();
+        LoadingCache<Integer, Integer> cache = new LoadingCache<>(10, key -> {
+            int read = version.get();
+            loading.countDown();
+            await(release);
+            return read;
+        });
+
+        CompletableFuture<Integer> stale = CompletableFuture.supplyAsync(() -> cache.get(1));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        version.incrementAndGet();
+        cache.invalidate(1);
+        release.countDown();
+
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isZero();
+        assertThat(cache.get(1)).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<Integer, String> cache = new LoadingCache<>(10, key -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("database unavailable");
+            }
+            return "v" + key;
+        });
+
+        assertThatThrownBy(() -> cache.get(1)).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.getIfPresent(1)).isNull();
+        assertThat(cache.get(1)).isEqualTo("v1");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
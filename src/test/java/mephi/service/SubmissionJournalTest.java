@@ -0,0 +1,69 @@
+package mephi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Submission intake journal
+ * Testing requirement: the file is compacted down to what follows the stored prefix even while
+ * entries keep arriving, and a line torn by a crash does not prevent reopening the journal
+ */
+class SubmissionJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testStoredPrefixIsCompactedUnderLoad() throws Exception {
+        Path file = directory.resolve("intake.journal");
+        try (SubmissionJournal journal = new SubmissionJournal(file)) {
+            SubmissionJournal.Appended first = journal.append("{\"id\":1}");
+            SubmissionJournal.Appended second = journal.append("{\"id\":2}");
+            SubmissionJournal.Appended third = journal.append("{\"id\":3}");
+            journal.sync(third.end());
+
+            // stored out of order: nothing is dropped until the oldest entry is stored
+            journal.stored(List.of(second.seq()));
+            assertThat(Files.readAllLines(file)).hasSize(3);
+
+            journal.stored(List.of(first.seq()));
+            assertThat(Files.readAllLines(file)).containsExactly("{\"id\":3}");
+
+            SubmissionJournal.Appended fourth = journal.append("{\"id\":4}");
+            journal.sync(fourth.end());
+            journal.stored(List.of(third.seq()));
+            assertThat(Files.readAllLines(file)).containsExactly("{\"id\":4}");
+
+            journal.stored(List.of(fourth.seq()));
+            assertThat(Files.size(file)).isZero();
+        }
+        try (SubmissionJournal reopened = new SubmissionJournal(file)) {
+            assertThat(reopened.recovered()).isEmpty();
+        }
+    }
+
+    @Test
+    void testTornLastLineIsCutOff() throws Exception {
+        Path file = directory.resolve("intake.journal");
+        Files.writeString(file, "{\"id\":1}\n{\"id\":2}\n{\"id\":", StandardCharsets.UTF_8, StandardOpenOption.CREATE);
+
+        try (SubmissionJournal journal = new SubmissionJournal(file)) {
+            assertThat(journal.recovered()).extracting(SubmissionJournal.Entry::line)
+                    .containsExactly("{\"id\":1}", "{\"id\":2}");
+
+            SubmissionJournal.Appended appended = journal.append("{\"id\":3}");
+            journal.sync(appended.end());
+            assertThat(Files.readAllLines(file)).containsExactly("{\"id\":1}", "{\"id\":2}", "{\"id\":3}");
+
+            journal.stored(journal.recovered().stream().map(SubmissionJournal.Entry::seq).toList());
+            assertThat(Files.readAllLines(file)).containsExactly("{\"id\":3}");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package mephi.support;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.dialect.PostgreSQLSqlAstTranslator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.SqlAstTranslatorFactory;
+import org.hibernate.sql.ast.spi.StandardSqlAstTranslatorFactory;
+import org.hibernate.sql.ast.tree.Statement;
+import org.hibernate.sql.exec.spi.JdbcOperation;
+
+/**
+ * The production PostgreSQL dialect for the H2 test database (PostgreSQL mode), except for
+ * pessimistic write locks: H2 understands {@code for update} but rejects the
+ * {@code for no key update} the PostgreSQL dialect renders. Everything else, including the
+ * generated schema, stays as in production.
+ */
+public class H2PostgreSQLDialect extends PostgreSQLDialect {
+    @Override
+    public SqlAstTranslatorFactory getSqlAstTranslatorFactory() {
+        return new StandardSqlAstTranslatorFactory() {
+            @Override
+            protected <T extends JdbcOperation> SqlAstTranslator<T> buildTranslator(SessionFactoryImplementor sessionFactory,
+                                                                                   Statement statement) {
+                return new PostgreSQLSqlAstTranslator<>(sessionFactory, statement) {
+                    @Override
+                    protected String getForUpdate() {
+                        return " for update";
+                    }
+                };
+            }
+        };
+    }
+}
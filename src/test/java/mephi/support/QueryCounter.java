@@ -0,0 +1,169 @@
+package mephi.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the SQL statements sent to the database inside a block, by statement type. Tests import
+ * {@link Config}, which puts a counting proxy in front of the application's DataSource, and wrap
+ * the code under test in {@link #count}:
+ *
+ * <pre>
+ * QueryCount queries = queryCounter.count(() -> mockMvc.perform(get("/courses/all")));
+ * assertThat(queries.total()).isEqualTo(1);
+ * </pre>
+ *
+ * A statement is counted when it is prepared (or, for plain statements, executed), so a JDBC batch
+ * counts once. Statements from every thread are counted while a block runs, including the worker
+ * threads of parallel endpoints; only one block may run at a time.
+ */
+public class QueryCounter {
+    private static final int SELECT = 0;
+    private static final int INSERT = 1;
+    private static final int UPDATE = 2;
+    private static final int DELETE = 3;
+    private static final int OTHER = 4;
+
+    private final AtomicLongArray counts = new AtomicLongArray(5);
+    private volatile boolean counting;
+
+    public synchronized QueryCount count(Block block) throws Exception {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        counting = true;
+        try {
+            block.run();
+        } finally {
+            counting = false;
+        }
+        return new QueryCount(counts.get(SELECT), counts.get(INSERT), counts.get(UPDATE), counts.get(DELETE),
+                counts.get(OTHER));
+    }
+
+    void statement(String sql) {
+        if (!counting) {
+            return;
+        }
+        String keyword = sql.stripLeading().toLowerCase(Locale.ROOT);
+        int type;
+        if (keyword.startsWith("select") || keyword.startsWith("with")) {
+            type = SELECT;
+        } else if (keyword.startsWith("insert")) {
+            type = INSERT;
+        } else if (keyword.startsWith("update")) {
+            type = UPDATE;
+        } else if (keyword.startsWith("delete")) {
+            type = DELETE;
+        } else {
+            type = OTHER;
+        }
+        counts.incrementAndGet(type);
+    }
+
+    @FunctionalInterface
+    public interface Block {
+        void run() throws Exception;
+    }
+
+    public record QueryCount(long selects, long inserts, long updates, long deletes, long other) {
+        public long total() {
+            return selects + inserts + updates + deletes + other;
+        }
+
+        public long writes() {
+            return inserts + updates + deletes;
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Config {
+
+        @Bean
+        static QueryCounter queryCounter() {
+            return new QueryCounter();
+        }
+
+        @Bean
+        static BeanPostProcessor queryCountingDataSource(QueryCounter queryCounter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+                        return new CountingDataSource(dataSource, queryCounter);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    private static final class CountingDataSource extends DelegatingDataSource {
+        private final QueryCounter queryCounter;
+
+        private CountingDataSource(DataSource target, QueryCounter queryCounter) {
+            super(target);
+            this.queryCounter = queryCounter;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private Connection counting(Connection connection) {
+            return proxy(Connection.class, connection, (method, args) -> {
+                String name = method.getName();
+                if ((name.equals("prepareStatement") || name.equals("prepareCall")) && args[0] instanceof String sql) {
+                    queryCounter.statement(sql);
+                }
+                Object result = method.invoke(connection, args);
+                if (name.equals("createStatement")) {
+                    Statement statement = (Statement) result;
+                    return proxy(Statement.class, statement, (statementMethod, statementArgs) -> {
+                        if (statementMethod.getName().startsWith("execute") && statementArgs != null
+                                && statementArgs.length > 0 && statementArgs[0] instanceof String sql) {
+                            queryCounter.statement(sql);
+                        }
+                        return statementMethod.invoke(statement, statementArgs);
+                    });
+                }
+                return result;
+            });
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Call call) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return call.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(QueryCounter.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        Object invoke(Method method, Object[] args) throws Exception;
+    }
+}